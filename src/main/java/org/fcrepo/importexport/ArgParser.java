@@ -17,6 +17,7 @@
  */
 package org.fcrepo.importexport;
 
+import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
 import static org.duraspace.bagit.serialize.SerializationSupport.GZIP_TYPES;
 import static org.duraspace.bagit.serialize.SerializationSupport.TAR_TYPES;
 import static org.duraspace.bagit.serialize.SerializationSupport.ZIP_TYPES;
@@ -28,6 +29,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -40,11 +42,19 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.jena.riot.Lang;
 import org.duraspace.bagit.profile.BagProfile;
 import org.fcrepo.client.FcrepoClient;
+import org.fcrepo.importexport.common.BinaryOrder;
 import org.fcrepo.importexport.common.Config;
+import org.fcrepo.importexport.common.PooledFcrepoClient;
 import org.fcrepo.importexport.common.TransferProcess;
+import org.fcrepo.importexport.common.TurtleFormat;
+import org.fcrepo.importexport.exporter.ExportArchive;
 import org.fcrepo.importexport.exporter.Exporter;
+import org.fcrepo.importexport.exporter.ExportFrontier;
+import org.fcrepo.importexport.exporter.InteractionModelCache;
+import org.fcrepo.importexport.exporter.ReferenceClassifier;
 import org.fcrepo.importexport.importer.Importer;
 import org.slf4j.Logger;
 
@@ -67,6 +77,9 @@ public class ArgParser {
 
     private static final Logger logger = getLogger(ArgParser.class);
 
+    // The RDF languages a streaming export can write
+    private static final Set<Lang> STREAMING_LANGS = new HashSet<>(Arrays.asList(Lang.NTRIPLES, Lang.TURTLE));
+
     private static final Options configOptions = new Options();
 
     private static final Options configFileOptions = new Options();
@@ -234,7 +247,23 @@ public class ArgParser {
                 .longOpt("streaming").argName("streaming")
                 .hasArg(false)
                 .required(false)
-                .desc("Use streaming mode for export, implies rdfLang set to application/n-triples" )
+                .desc("Use streaming mode for export, writing application/n-triples unless rdfLang is text/turtle" )
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("turtle-format").argName("format")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("With --streaming and rdfLang text/turtle, write the triples of each subject as a block or " +
+                        "one triple per line: [blocks|flat] (default: blocks)")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("streaming-threshold").argName("MB")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting without --streaming, stream the RDF of resources larger than this many " +
+                        "megabytes as --streaming would; requires rdfLang application/n-triples or text/turtle")
                 .build());
 
         // create the description for the serialization option
@@ -306,6 +335,181 @@ public class ArgParser {
                 .desc("Skip tombstones errors during export, disabled by default")
                 .build());
 
+        configOptions.addOption(Option.builder()
+                .longOpt("skip-head")
+                .required(false)
+                .desc("When exporting, request the RDF of each resource without a preceding HEAD request and " +
+                        "inspect the response headers instead, disabled by default")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("virtual-threads")
+                .required(false)
+                .desc("When exporting, export each resource on its own virtual thread (Java 21 or later), bounded " +
+                        "by --max-requests instead of --threadCount, disabled by default")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("max-requests").argName("num")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("With --virtual-threads, the maximum number of resources exported concurrently, and of the " +
+                        "description and range requests sent alongside them (default: " +
+                        Exporter.DEFAULT_MAX_REQUESTS + ")")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("binary-threads").argName("num")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting, export binaries on this many separate threads so that large binaries don't " +
+                        "hold up RDF resources; by default binaries share the export threads")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("binary-order").argName("order")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("With --binary-threads, the order in which waiting binaries are exported: " +
+                        "[fifo|smallest-first|largest-first] (default: fifo)")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("range-segments").argName("num")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting, download binaries larger than --range-threshold in this many concurrent " +
+                        "byte ranges, where the repository supports them and the binary has a strong ETag or a " +
+                        "Last-Modified date; by default binaries are downloaded in a single request")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("range-threshold").argName("MB")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("With --range-segments, the size in megabytes above which binaries are downloaded in byte " +
+                        "ranges (default: " + Exporter.DEFAULT_RANGE_THRESHOLD + ")")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("direct-buffers")
+                .required(false)
+                .desc("When exporting, write binaries to disk through direct (off-heap) buffers, disabled by default")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("journal").argName("path")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting, record the progress of the export in this file so that it can be resumed")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("resume")
+                .required(false)
+                .desc("When exporting, resume an interrupted export from the file given by --journal, skipping " +
+                        "the resources it already exported")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("archive").argName("path")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting, write the export straight into this tar, tar.gz or zip archive, or to " +
+                        "standard output as a tar archive if the path is -; the format follows --bag-serialization " +
+                        "if given, otherwise the file name")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("compression-threads").argName("num")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting to a gzip bag or tar.gz archive, compress on this many threads (default: one " +
+                        "per available processor)")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("compression-level").argName("level")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting to a gzip bag or tar.gz archive, the compression level from 0 (none) to 9 " +
+                        "(best); by default the standard gzip level is used")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("incremental").argName("dir")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting, update the export in this directory: binaries that have not changed since " +
+                        "are linked from it rather than downloaded again")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("model-cache-size").argName("num")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting, the maximum number of resource interaction models to cache (default: " +
+                        InteractionModelCache.DEFAULT_SIZE + ")")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("model-cache-file").argName("path")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting, load the interaction model cache from this file and save it there when " +
+                        "the export finishes")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("reference-lookups").argName("num")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting without binaries, the maximum number of concurrent requests used to find " +
+                        "references to binaries (default: " + ReferenceClassifier.DEFAULT_LOOKUPS + ")")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("frontier-size").argName("num")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("When exporting, the maximum number of resources waiting to be exported that are kept in " +
+                        "memory; further resources are spilled to temporary files (default: " +
+                        ExportFrontier.DEFAULT_SIZE + ")")
+                .build());
+
+        // HTTP connection pool
+        configOptions.addOption(Option.builder()
+                .longOpt("max-connections").argName("num")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("Maximum number of pooled HTTP connections (default: " +
+                        PooledFcrepoClient.Builder.DEFAULT_MAX_TOTAL + ")")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("max-connections-per-route").argName("num")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("Maximum number of pooled HTTP connections to a single host (default: " +
+                        PooledFcrepoClient.Builder.DEFAULT_MAX_PER_ROUTE + ")")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("idle-timeout").argName("seconds")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("Close pooled HTTP connections that have been idle for this many seconds (default: " +
+                        PooledFcrepoClient.Builder.DEFAULT_IDLE_TIMEOUT + ")")
+                .build());
+
+        configOptions.addOption(Option.builder()
+                .longOpt("keep-alive").argName("seconds")
+                .hasArg(true).numberOfArgs(1)
+                .required(false)
+                .desc("Keep HTTP connections alive for this many seconds when the server does not specify " +
+                        "a timeout (default: " + PooledFcrepoClient.Builder.DEFAULT_KEEP_ALIVE + ")")
+                .build());
+
     }
 
     /**
@@ -368,6 +572,36 @@ public class ArgParser {
             throw new RuntimeException("A resource must be specified when importing");
         }
 
+        if (config.isResume() && config.getJournal() == null) {
+            throw new RuntimeException("A journal must be specified when resuming an export");
+        }
+
+        if (config.isExport() && config.getArchive() != null && config.getJournal() != null) {
+            throw new RuntimeException("An export written to an archive cannot be journaled or resumed");
+        }
+
+        if (config.isExport() && config.getArchive() != null) {
+            // fail early on an unsupported format
+            ExportArchive.Format.of(config.getBagSerialization(), config.getArchive());
+        }
+
+        if (config.getCompressionLevel() != null &&
+                (config.getCompressionLevel() < 0 || config.getCompressionLevel() > 9)) {
+            throw new RuntimeException("The compression level must be from 0 to 9");
+        }
+
+        if (config.isExport() && config.getIncremental() != null) {
+            if (!config.getIncremental().isDirectory()) {
+                throw new RuntimeException("The export to update does not exist: " + config.getIncremental());
+            }
+            final File exportDir = config.getBagProfile() == null ? config.getBaseDirectory() :
+                    config.getBaseDirectory().getParentFile();
+            if (config.getIncremental().getAbsoluteFile().equals(exportDir.getAbsoluteFile())) {
+                throw new RuntimeException("An incremental export must be written to a different directory than " +
+                        "the export it updates");
+            }
+        }
+
         if (config.isExport() && config.getResource() == null && config.getResourceFile() == null) {
             throw new RuntimeException("Either a resource or a resource file must be specified when exporting");
         }
@@ -380,8 +614,16 @@ public class ArgParser {
             throw new RuntimeException("Streaming mode is only available for export");
         }
 
-        if (config.isExport() && config.isStreaming() && config.isRdfSet() && !config.getRdfLanguage().equals("application/n-triples")) {
-            throw new RuntimeException("Streaming mode is only available for export and does not support setting the RDF language to something other than application/n-triples");
+        if (config.isExport() && config.isStreaming() && config.isRdfSet() &&
+                !STREAMING_LANGS.contains(contentTypeToLang(config.getRdfLanguage()))) {
+            throw new RuntimeException("Streaming mode only supports the RDF languages application/n-triples and " +
+                    "text/turtle");
+        }
+
+        if (config.isExport() && config.getStreamingThreshold() != null &&
+                !STREAMING_LANGS.contains(contentTypeToLang(config.getRdfLanguage()))) {
+            throw new RuntimeException("--streaming-threshold only supports the RDF languages " +
+                    "application/n-triples and text/turtle");
         }
     }
 
@@ -508,9 +750,76 @@ public class ArgParser {
         }
 
         config.setStreaming(cmd.hasOption("streaming"));
+        if (cmd.getOptionValue("turtle-format") != null) {
+            config.setTurtleFormat(TurtleFormat.fromString(cmd.getOptionValue("turtle-format")));
+        }
+        if (cmd.getOptionValue("streaming-threshold") != null) {
+            config.setStreamingThreshold(Integer.parseInt(cmd.getOptionValue("streaming-threshold")));
+        }
 
         config.setSkipTombstoneErrors(cmd.hasOption("skip-tombstones"));
 
+        config.setSkipHead(cmd.hasOption("skip-head"));
+
+        config.setVirtualThreads(cmd.hasOption("virtual-threads"));
+        config.setDirectBuffers(cmd.hasOption("direct-buffers"));
+
+        if (cmd.getOptionValue("max-requests") != null) {
+            config.setMaxRequests(Integer.parseInt(cmd.getOptionValue("max-requests")));
+        }
+
+        if (cmd.getOptionValue("binary-threads") != null) {
+            config.setBinaryThreads(Integer.parseInt(cmd.getOptionValue("binary-threads")));
+        }
+        if (cmd.getOptionValue("binary-order") != null) {
+            config.setBinaryOrder(BinaryOrder.fromString(cmd.getOptionValue("binary-order")));
+        }
+
+        if (cmd.getOptionValue("range-segments") != null) {
+            config.setRangeSegments(Integer.parseInt(cmd.getOptionValue("range-segments")));
+        }
+        if (cmd.getOptionValue("range-threshold") != null) {
+            config.setRangeThreshold(Integer.parseInt(cmd.getOptionValue("range-threshold")));
+        }
+
+        if (cmd.getOptionValue("model-cache-size") != null) {
+            config.setModelCacheSize(Integer.parseInt(cmd.getOptionValue("model-cache-size")));
+        }
+        if (cmd.getOptionValue("frontier-size") != null) {
+            config.setFrontierSize(Integer.parseInt(cmd.getOptionValue("frontier-size")));
+        }
+        if (cmd.getOptionValue("reference-lookups") != null) {
+            config.setReferenceLookups(Integer.parseInt(cmd.getOptionValue("reference-lookups")));
+        }
+        if (cmd.getOptionValue("model-cache-file") != null) {
+            config.setModelCacheFile(Paths.get(cmd.getOptionValue("model-cache-file")));
+        }
+        if (cmd.getOptionValue("journal") != null) {
+            config.setJournal(Paths.get(cmd.getOptionValue("journal")));
+        }
+        config.setResume(cmd.hasOption("resume"));
+        config.setIncremental(cmd.getOptionValue("incremental"));
+        config.setArchive(cmd.getOptionValue("archive"));
+        if (cmd.getOptionValue("compression-threads") != null) {
+            config.setCompressionThreads(Integer.parseInt(cmd.getOptionValue("compression-threads")));
+        }
+        if (cmd.getOptionValue("compression-level") != null) {
+            config.setCompressionLevel(Integer.parseInt(cmd.getOptionValue("compression-level")));
+        }
+
+        if (cmd.getOptionValue("max-connections") != null) {
+            config.setMaxConnections(Integer.parseInt(cmd.getOptionValue("max-connections")));
+        }
+        if (cmd.getOptionValue("max-connections-per-route") != null) {
+            config.setMaxConnectionsPerRoute(Integer.parseInt(cmd.getOptionValue("max-connections-per-route")));
+        }
+        if (cmd.getOptionValue("idle-timeout") != null) {
+            config.setIdleTimeout(Integer.parseInt(cmd.getOptionValue("idle-timeout")));
+        }
+        if (cmd.getOptionValue("keep-alive") != null) {
+            config.setKeepAlive(Integer.parseInt(cmd.getOptionValue("keep-alive")));
+        }
+
         return config;
     }
 
@@ -566,20 +875,37 @@ public class ArgParser {
     public TransferProcess parse(final String[] args) {
         final Config config = parseConfiguration(args);
         if (config.isImport()) {
-            return new Importer(config, clientBuilder());
+            return new Importer(config, clientBuilder(config));
         } else if (config.isExport()) {
-            return new Exporter(config, clientBuilder());
+            return new Exporter(config, clientBuilder(config));
         }
         throw new IllegalArgumentException("Invalid mode parameter");
     }
 
     /**
-     * Get a new client
+     * Get a new builder for a pooled client, shared by all threads of the transfer process
      *
+     * @param config the configuration holding the connection pool settings
      * @return the FcrepoClientBuilder
      */
-    private FcrepoClient.FcrepoClientBuilder clientBuilder() {
-        return FcrepoClient.client();
+    private FcrepoClient.FcrepoClientBuilder clientBuilder(final Config config) {
+        // an export task may hold up to three connections at once (binary, description and reference lookups)
+        // and the reference lookups have their own threads, so make sure the default pool cannot be exhausted
+        final int lookups = config.getReferenceLookups() == null ? ReferenceClassifier.DEFAULT_LOOKUPS :
+                config.getReferenceLookups();
+        final Integer tasks = config.isVirtualThreads() ? (config.getMaxRequests() == null ?
+                Exporter.DEFAULT_MAX_REQUESTS : config.getMaxRequests()) : config.getThreadCount();
+        final int binaryTasks = config.getBinaryThreads() == null ? 0 : config.getBinaryThreads();
+        final int minimum = tasks == null ? 0 : (tasks + binaryTasks) * 3 + lookups;
+        final Integer maxTotal = config.getMaxConnections() != null ? config.getMaxConnections() :
+                Math.max(minimum, PooledFcrepoClient.Builder.DEFAULT_MAX_TOTAL);
+        final Integer maxPerRoute = config.getMaxConnectionsPerRoute() != null ?
+                config.getMaxConnectionsPerRoute() : Math.max(minimum, PooledFcrepoClient.Builder.DEFAULT_MAX_PER_ROUTE);
+        return PooledFcrepoClient.pooledClient()
+                .maxTotal(maxTotal)
+                .maxPerRoute(maxPerRoute)
+                .idleTimeout(config.getIdleTimeout())
+                .keepAlive(config.getKeepAlive());
     }
 
     /**
@@ -678,6 +1004,54 @@ public class ArgParser {
                 c.setResourceFile(Paths.get(entry.getValue()));
             } else if (entry.getKey().trim().equalsIgnoreCase("streaming")) {
                 c.setStreaming(parseBoolean("streaming", entry.getValue(), lineNumber));
+            } else if (entry.getKey().trim().equalsIgnoreCase("turtleFormat")) {
+                c.setTurtleFormat(TurtleFormat.fromString(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("streamingThreshold")) {
+                c.setStreamingThreshold(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("skipHead")) {
+                c.setSkipHead(parseBoolean("skipHead", entry.getValue(), lineNumber));
+            } else if (entry.getKey().trim().equalsIgnoreCase("virtualThreads")) {
+                c.setVirtualThreads(parseBoolean("virtualThreads", entry.getValue(), lineNumber));
+            } else if (entry.getKey().trim().equalsIgnoreCase("directBuffers")) {
+                c.setDirectBuffers(parseBoolean("directBuffers", entry.getValue(), lineNumber));
+            } else if (entry.getKey().trim().equalsIgnoreCase("maxRequests")) {
+                c.setMaxRequests(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("binaryThreads")) {
+                c.setBinaryThreads(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("binaryOrder")) {
+                c.setBinaryOrder(BinaryOrder.fromString(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("rangeSegments")) {
+                c.setRangeSegments(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("rangeThreshold")) {
+                c.setRangeThreshold(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("modelCacheSize")) {
+                c.setModelCacheSize(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("frontierSize")) {
+                c.setFrontierSize(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("referenceLookups")) {
+                c.setReferenceLookups(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("modelCacheFile")) {
+                c.setModelCacheFile(Paths.get(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("journal")) {
+                c.setJournal(Paths.get(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("resume")) {
+                c.setResume(parseBoolean("resume", entry.getValue(), lineNumber));
+            } else if (entry.getKey().trim().equalsIgnoreCase("incremental")) {
+                c.setIncremental(entry.getValue());
+            } else if (entry.getKey().trim().equalsIgnoreCase("archive")) {
+                c.setArchive(entry.getValue());
+            } else if (entry.getKey().trim().equalsIgnoreCase("compressionThreads")) {
+                c.setCompressionThreads(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("compressionLevel")) {
+                c.setCompressionLevel(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("maxConnections")) {
+                c.setMaxConnections(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("maxConnectionsPerRoute")) {
+                c.setMaxConnectionsPerRoute(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("idleTimeout")) {
+                c.setIdleTimeout(Integer.parseInt(entry.getValue()));
+            } else if (entry.getKey().trim().equalsIgnoreCase("keepAlive")) {
+                c.setKeepAlive(Integer.parseInt(entry.getValue()));
             } else if (entry.getKey().equalsIgnoreCase("membership")) {
                 c.setIncludeMembership(parseBoolean("membership", entry.getValue(), lineNumber));
             } else {
@@ -0,0 +1,76 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.common;
+
+/**
+ * The order in which binaries waiting in the binary lane are exported
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public enum BinaryOrder {
+
+    /**
+     * In the order they were found
+     */
+    FIFO("fifo"),
+
+    /**
+     * Smallest Content-Length first, binaries of unknown size last
+     */
+    SMALLEST_FIRST("smallest-first"),
+
+    /**
+     * Largest Content-Length first, binaries of unknown size last
+     */
+    LARGEST_FIRST("largest-first");
+
+    private final String value;
+
+    BinaryOrder(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the name of the order as given on the command line
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Look up an order by the name given on the command line
+     *
+     * @param value the name of the order
+     * @return the order
+     */
+    public static BinaryOrder fromString(final String value) {
+        for (final BinaryOrder order : values()) {
+            if (order.value.equalsIgnoreCase(value.trim())) {
+                return order;
+            }
+        }
+        throw new IllegalArgumentException("Invalid binary order: " + value + ", expected one of fifo, " +
+                "smallest-first or largest-first");
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -82,6 +82,11 @@ public class Config {
     private Integer threadCount;
     private Path resourceFile;
 
+    private Integer maxConnections;
+    private Integer maxConnectionsPerRoute;
+    private Integer idleTimeout;
+    private Integer keepAlive;
+
     private boolean auditLog = false;
 
     private boolean streaming = false;
@@ -92,6 +97,28 @@ public class Config {
 
     private boolean skipTombstoneErrors = false;
 
+    private boolean skipHead = false;
+    private boolean virtualThreads = false;
+    private Integer maxRequests;
+    private Integer binaryThreads;
+    private BinaryOrder binaryOrder = BinaryOrder.FIFO;
+    private TurtleFormat turtleFormat = TurtleFormat.BLOCKS;
+    private Integer streamingThreshold;
+    private boolean directBuffers = false;
+    private Integer rangeSegments;
+    private Integer rangeThreshold;
+
+    private Integer modelCacheSize;
+    private Integer referenceLookups;
+    private Integer frontierSize;
+    private Path modelCacheFile;
+    private Path journal;
+    private boolean resume = false;
+    private File incremental;
+    private String archive;
+    private Integer compressionThreads;
+    private Integer compressionLevel;
+
     /**
      * This method returns true if the configuration is set for 'import'
      *
@@ -623,7 +650,69 @@ public class Config {
         if (resourceFile != null) {
             map.put("resourceFile", resourceFile.toAbsolutePath().toString());
         }
+        if (maxConnections != null) {
+            map.put("maxConnections", maxConnections.toString());
+        }
+        if (maxConnectionsPerRoute != null) {
+            map.put("maxConnectionsPerRoute", maxConnectionsPerRoute.toString());
+        }
+        if (idleTimeout != null) {
+            map.put("idleTimeout", idleTimeout.toString());
+        }
+        if (keepAlive != null) {
+            map.put("keepAlive", keepAlive.toString());
+        }
         map.put("streaming", Boolean.toString(this.streaming));
+        if (this.streaming) {
+            map.put("turtleFormat", getTurtleFormat().getValue());
+        }
+        if (streamingThreshold != null) {
+            map.put("streamingThreshold", streamingThreshold.toString());
+        }
+        map.put("skipHead", Boolean.toString(this.skipHead));
+        map.put("virtualThreads", Boolean.toString(this.virtualThreads));
+        if (maxRequests != null) {
+            map.put("maxRequests", maxRequests.toString());
+        }
+        if (binaryThreads != null) {
+            map.put("binaryThreads", binaryThreads.toString());
+            map.put("binaryOrder", getBinaryOrder().getValue());
+        }
+        map.put("directBuffers", Boolean.toString(this.directBuffers));
+        if (rangeSegments != null) {
+            map.put("rangeSegments", rangeSegments.toString());
+        }
+        if (rangeThreshold != null) {
+            map.put("rangeThreshold", rangeThreshold.toString());
+        }
+        if (modelCacheSize != null) {
+            map.put("modelCacheSize", modelCacheSize.toString());
+        }
+        if (referenceLookups != null) {
+            map.put("referenceLookups", referenceLookups.toString());
+        }
+        if (frontierSize != null) {
+            map.put("frontierSize", frontierSize.toString());
+        }
+        if (modelCacheFile != null) {
+            map.put("modelCacheFile", modelCacheFile.toAbsolutePath().toString());
+        }
+        if (journal != null) {
+            map.put("journal", journal.toAbsolutePath().toString());
+        }
+        map.put("resume", Boolean.toString(this.resume));
+        if (incremental != null) {
+            map.put("incremental", incremental.getAbsolutePath());
+        }
+        if (archive != null) {
+            map.put("archive", archive);
+        }
+        if (compressionThreads != null) {
+            map.put("compressionThreads", compressionThreads.toString());
+        }
+        if (compressionLevel != null) {
+            map.put("compressionLevel", compressionLevel.toString());
+        }
         map.put("isRdfSet", Boolean.toString(this.isRdfSet()));
         return map;
     }
@@ -736,6 +825,34 @@ public class Config {
         this.streaming = streaming;
     }
 
+    /**
+     * @return the layout of the Turtle written when streaming an export in Turtle
+     */
+    public TurtleFormat getTurtleFormat() {
+        return turtleFormat == null ? TurtleFormat.BLOCKS : turtleFormat;
+    }
+
+    /**
+     * @param turtleFormat the layout of the Turtle written when streaming an export in Turtle
+     */
+    public void setTurtleFormat(final TurtleFormat turtleFormat) {
+        this.turtleFormat = turtleFormat;
+    }
+
+    /**
+     * @return the size in megabytes above which the RDF of a resource is streamed, or null if it never is
+     */
+    public Integer getStreamingThreshold() {
+        return streamingThreshold;
+    }
+
+    /**
+     * @param streamingThreshold the size in megabytes above which the RDF of a resource is streamed, or null
+     */
+    public void setStreamingThreshold(final Integer streamingThreshold) {
+        this.streamingThreshold = positiveOrNull(streamingThreshold);
+    }
+
     /**
      * @return true if tombstone errors should be skipped
      */
@@ -749,4 +866,345 @@ public class Config {
     public void setSkipTombstoneErrors(final boolean skipTombstoneErrors) {
         this.skipTombstoneErrors = skipTombstoneErrors;
     }
+
+    /**
+     * @return true if resources should be exported without an initial HEAD request
+     */
+    public boolean isSkipHead() {
+        return skipHead;
+    }
+
+    /**
+     * @param skipHead true to request the RDF of a resource straight away and inspect the response headers instead
+     *                 of sending a HEAD request first
+     */
+    public void setSkipHead(final boolean skipHead) {
+        this.skipHead = skipHead;
+    }
+
+    /**
+     * @return true if each resource should be exported on its own virtual thread
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @param virtualThreads true to export each resource on its own virtual thread, where the Java runtime supports
+     *                       them, instead of on a fixed number of platform threads
+     */
+    public void setVirtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * @return the number of threads exporting binaries separately from RDF resources, or null if binaries are
+     *         exported by the same threads as RDF resources
+     */
+    public Integer getBinaryThreads() {
+        return binaryThreads;
+    }
+
+    /**
+     * Set the number of threads which export binaries, so that large binaries can't hold up the export of RDF
+     * resources. If null, binaries are exported by the same threads as RDF resources.
+     *
+     * @param binaryThreads the number of binary threads, or null
+     */
+    public void setBinaryThreads(final Integer binaryThreads) {
+        this.binaryThreads = positiveOrNull(binaryThreads);
+    }
+
+    /**
+     * @return the order in which binaries waiting for a binary thread are exported
+     */
+    public BinaryOrder getBinaryOrder() {
+        return binaryOrder == null ? BinaryOrder.FIFO : binaryOrder;
+    }
+
+    /**
+     * @param binaryOrder the order in which binaries waiting for a binary thread are exported
+     */
+    public void setBinaryOrder(final BinaryOrder binaryOrder) {
+        this.binaryOrder = binaryOrder;
+    }
+
+    /**
+     * @return true if binaries should be written to disk through direct (off-heap) buffers
+     */
+    public boolean isDirectBuffers() {
+        return directBuffers;
+    }
+
+    /**
+     * @param directBuffers true to write binaries to disk through direct (off-heap) buffers
+     */
+    public void setDirectBuffers(final boolean directBuffers) {
+        this.directBuffers = directBuffers;
+    }
+
+    /**
+     * @return the number of concurrent byte ranges a large binary is downloaded in, or null if binaries are always
+     *         downloaded in a single request
+     */
+    public Integer getRangeSegments() {
+        return rangeSegments;
+    }
+
+    /**
+     * @param rangeSegments the number of concurrent byte ranges a large binary is downloaded in, or null
+     */
+    public void setRangeSegments(final Integer rangeSegments) {
+        this.rangeSegments = positiveOrNull(rangeSegments);
+    }
+
+    /**
+     * @return the size in megabytes above which binaries are downloaded in byte ranges, or null for the default
+     */
+    public Integer getRangeThreshold() {
+        return rangeThreshold;
+    }
+
+    /**
+     * @param rangeThreshold the size in megabytes above which binaries are downloaded in byte ranges, or null
+     */
+    public void setRangeThreshold(final Integer rangeThreshold) {
+        this.rangeThreshold = positiveOrNull(rangeThreshold);
+    }
+
+    /**
+     * @return the maximum number of resources exported concurrently on virtual threads, may be null
+     */
+    public Integer getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * Set the maximum number of resources exported concurrently on virtual threads, which bounds the number of
+     * HTTP requests in flight. If null, a default is used.
+     *
+     * @param maxRequests the maximum number of concurrent exports, or null
+     */
+    public void setMaxRequests(final Integer maxRequests) {
+        this.maxRequests = positiveOrNull(maxRequests);
+    }
+
+    /**
+     * @return the maximum number of entries in the interaction model cache, may be null
+     */
+    public Integer getModelCacheSize() {
+        return modelCacheSize;
+    }
+
+    /**
+     * Set the maximum number of entries in the interaction model cache. If null, a default is used.
+     *
+     * @param modelCacheSize the maximum number of entries, or null
+     */
+    public void setModelCacheSize(final Integer modelCacheSize) {
+        this.modelCacheSize = positiveOrNull(modelCacheSize);
+    }
+
+    /**
+     * @return the maximum number of resources waiting to be exported that are kept in memory, may be null
+     */
+    public Integer getFrontierSize() {
+        return frontierSize;
+    }
+
+    /**
+     * Set the maximum number of resources waiting to be exported that are kept in memory. Further resources are
+     * spilled to temporary files. If null, a default is used.
+     *
+     * @param frontierSize the maximum number of resources, or null
+     */
+    public void setFrontierSize(final Integer frontierSize) {
+        this.frontierSize = positiveOrNull(frontierSize);
+    }
+
+    /**
+     * @return the maximum number of concurrent requests used to classify referenced resources, may be null
+     */
+    public Integer getReferenceLookups() {
+        return referenceLookups;
+    }
+
+    /**
+     * Set the maximum number of concurrent requests used to classify referenced resources when binaries are
+     * excluded. If null, a default is used.
+     *
+     * @param referenceLookups the maximum number of concurrent lookups, or null
+     */
+    public void setReferenceLookups(final Integer referenceLookups) {
+        this.referenceLookups = positiveOrNull(referenceLookups);
+    }
+
+    /**
+     * @return the file the interaction model cache is loaded from and saved to, may be null
+     */
+    public Path getModelCacheFile() {
+        return modelCacheFile;
+    }
+
+    /**
+     * @param modelCacheFile the file the interaction model cache is loaded from and saved to, or null to keep the
+     *                       cache in memory only
+     */
+    public void setModelCacheFile(final Path modelCacheFile) {
+        this.modelCacheFile = modelCacheFile;
+    }
+
+    /**
+     * @return the file recording the progress of the export, or null if none is kept
+     */
+    public Path getJournal() {
+        return journal;
+    }
+
+    /**
+     * @param journal the file recording the progress of the export so that it can be resumed, or null
+     */
+    public void setJournal(final Path journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @return true if an interrupted export should be resumed from its journal
+     */
+    public boolean isResume() {
+        return resume;
+    }
+
+    /**
+     * @param resume true to resume an interrupted export from its journal
+     */
+    public void setResume(final boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * @return the directory of an earlier export which this export updates, or null for a full export
+     */
+    public File getIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @param directory the directory of an earlier export whose unchanged binaries are reused, or null
+     */
+    public void setIncremental(final String directory) {
+        this.incremental = directory == null ? null : Paths.get(directory).normalize().toFile();
+    }
+
+    /**
+     * @return the archive file the export is written to, "-" for standard output, or null to write the export to
+     *         the export directory
+     */
+    public String getArchive() {
+        return archive;
+    }
+
+    /**
+     * @param archive the archive file to write the export to, "-" for standard output, or null
+     */
+    public void setArchive(final String archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * @return the number of threads gzip serialization is compressed on, or null for one per available processor
+     */
+    public Integer getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    /**
+     * @param compressionThreads the number of threads gzip serialization is compressed on, or null
+     */
+    public void setCompressionThreads(final Integer compressionThreads) {
+        this.compressionThreads = positiveOrNull(compressionThreads);
+    }
+
+    /**
+     * @return the gzip compression level from 0 to 9, or null for the default level
+     */
+    public Integer getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * @param compressionLevel the gzip compression level from 0 to 9, or null for the default level
+     */
+    public void setCompressionLevel(final Integer compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * @return the maximum number of pooled HTTP connections, may be null
+     */
+    public Integer getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Set the maximum number of pooled HTTP connections. If null, a default is used.
+     *
+     * @param maxConnections the maximum number of connections, or null
+     */
+    public void setMaxConnections(final Integer maxConnections) {
+        this.maxConnections = positiveOrNull(maxConnections);
+    }
+
+    /**
+     * @return the maximum number of pooled HTTP connections to a single host, may be null
+     */
+    public Integer getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Set the maximum number of pooled HTTP connections to a single host. If null, a default is used.
+     *
+     * @param maxConnectionsPerRoute the maximum number of connections per host, or null
+     */
+    public void setMaxConnectionsPerRoute(final Integer maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = positiveOrNull(maxConnectionsPerRoute);
+    }
+
+    /**
+     * @return the number of seconds after which idle pooled connections are evicted, may be null
+     */
+    public Integer getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Set the number of seconds after which idle pooled connections are evicted. If null, a default is used.
+     *
+     * @param idleTimeout the idle timeout in seconds, or null
+     */
+    public void setIdleTimeout(final Integer idleTimeout) {
+        this.idleTimeout = positiveOrNull(idleTimeout);
+    }
+
+    /**
+     * @return the number of seconds to keep a connection alive when the server does not say, may be null
+     */
+    public Integer getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Set the number of seconds to keep a connection alive when the server does not send a Keep-Alive timeout.
+     * If null, a default is used.
+     *
+     * @param keepAlive the keep-alive in seconds, or null
+     */
+    public void setKeepAlive(final Integer keepAlive) {
+        this.keepAlive = positiveOrNull(keepAlive);
+    }
+
+    private static Integer positiveOrNull(final Integer value) {
+        return value == null || value < 1 ? null : value;
+    }
 }
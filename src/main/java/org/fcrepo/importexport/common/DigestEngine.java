@@ -0,0 +1,278 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes several digests of a stream at once without slowing down the thread reading it. The reading thread fills
+ * large buffers from a small ring and writes each one to its destination, while every digest is updated from the
+ * same buffer on a shared pool of worker threads. The updates of a single digest are applied in order, one buffer
+ * at a time, and a buffer is only refilled once the destination and every digest are done with it, so a slow
+ * digest holds up the reader only when the whole ring is waiting on it. Buffers are kept for reuse by later copies.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class DigestEngine {
+
+    public static final int BUFFER_SIZE = 256 * 1024;
+
+    public static final int RING_SIZE = 4;
+
+    private static final int MAX_SPARE_BUFFERS = 64;
+
+    private final ExecutorService executor;
+    private final Queue<byte[]> spare = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger spareCount = new AtomicInteger();
+
+    /**
+     * Constructor
+     *
+     * @param threads the number of digest worker threads, or null for one per available processor
+     */
+    public DigestEngine(final Integer threads) {
+        final int workers = threads == null || threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    final Thread thread = new Thread(r, "digest-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Copy a stream, updating the digests with every byte copied. When this returns, the digests are complete.
+     *
+     * @param in the stream to read, which is not closed
+     * @param out where to write the bytes read, or null to only compute the digests; it is not closed
+     * @param digests the digests to update
+     * @return the number of bytes copied
+     * @throws IOException if the stream cannot be read or written
+     */
+    public long copy(final InputStream in, final OutputStream out, final Collection<MessageDigest> digests)
+            throws IOException {
+        final List<Lane> lanes = new ArrayList<>(digests.size());
+        for (final MessageDigest digest : digests) {
+            lanes.add(new Lane(digest));
+        }
+        final Ring ring = new Ring();
+        long total = 0;
+        try {
+            while (true) {
+                final byte[] buffer = ring.take();
+                final int length = fill(in, buffer);
+                if (length < 0) {
+                    ring.release(buffer);
+                    break;
+                }
+                final Chunk chunk = new Chunk(ring, buffer, length, lanes.size() + 1);
+                lanes.forEach(lane -> lane.offer(chunk));
+                try {
+                    if (out != null) {
+                        out.write(buffer, 0, length);
+                    }
+                } finally {
+                    chunk.release();
+                }
+                total += length;
+            }
+            ring.awaitIdle();
+        } finally {
+            ring.recycle();
+        }
+        return total;
+    }
+
+    /**
+     * Compute digests of a stream
+     *
+     * @param in the stream to read, which is not closed
+     * @param digests the digests to update
+     * @return the number of bytes read
+     * @throws IOException if the stream cannot be read
+     */
+    public long digest(final InputStream in, final Collection<MessageDigest> digests) throws IOException {
+        return copy(in, null, digests);
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Read until the buffer is full or the stream ends
+     *
+     * @return the number of bytes read, or -1 if the stream had ended
+     */
+    private static int fill(final InputStream in, final byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            final int read = in.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length == 0 ? -1 : length;
+    }
+
+    /**
+     * The buffers of a single copy. Buffers are borrowed from the engine's spares, or allocated, as the copy needs
+     * them, up to {@link #RING_SIZE}.
+     */
+    private final class Ring {
+        private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(RING_SIZE);
+        private int allocated = 0;
+
+        private byte[] take() throws IOException {
+            byte[] buffer = free.poll();
+            if (buffer == null && allocated < RING_SIZE) {
+                allocated++;
+                buffer = spare.poll();
+                if (buffer == null) {
+                    buffer = new byte[BUFFER_SIZE];
+                } else {
+                    spareCount.decrementAndGet();
+                }
+            }
+            if (buffer == null) {
+                try {
+                    buffer = free.take();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a digest buffer");
+                }
+            }
+            return buffer;
+        }
+
+        private void release(final byte[] buffer) {
+            free.add(buffer);
+        }
+
+        /**
+         * Wait until every buffer has been released, which means that every digest is complete
+         */
+        private void awaitIdle() throws IOException {
+            final List<byte[]> taken = new ArrayList<>(allocated);
+            try {
+                while (taken.size() < allocated) {
+                    taken.add(free.take());
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for digests to complete");
+            } finally {
+                free.addAll(taken);
+            }
+        }
+
+        /**
+         * Return the released buffers to the engine's spares. Buffers still in use by a digest after a failure are
+         * left for the garbage collector.
+         */
+        private void recycle() {
+            byte[] buffer;
+            while ((buffer = free.poll()) != null) {
+                if (spareCount.incrementAndGet() <= MAX_SPARE_BUFFERS) {
+                    spare.add(buffer);
+                } else {
+                    spareCount.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * A filled buffer, released to its ring by the last of the destination and the digests to finish with it
+     */
+    private static final class Chunk {
+        private final Ring ring;
+        private final byte[] buffer;
+        private final int length;
+        private final AtomicInteger users;
+
+        private Chunk(final Ring ring, final byte[] buffer, final int length, final int users) {
+            this.ring = ring;
+            this.buffer = buffer;
+            this.length = length;
+            this.users = new AtomicInteger(users);
+        }
+
+        private void release() {
+            if (users.decrementAndGet() == 0) {
+                ring.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Applies the chunks of a copy to one digest, in order, on at most one worker thread at a time
+     */
+    private final class Lane implements Runnable {
+        private final MessageDigest digest;
+        private final Queue<Chunk> chunks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Lane(final MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        private void offer(final Chunk chunk) {
+            chunks.add(chunk);
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                final Chunk chunk = chunks.poll();
+                try {
+                    digest.update(chunk.buffer, 0, chunk.length);
+                } finally {
+                    chunk.release();
+                }
+            } while (pending.decrementAndGet() > 0);
+        }
+    }
+}
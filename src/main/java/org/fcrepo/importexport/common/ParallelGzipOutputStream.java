@@ -0,0 +1,232 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A gzip stream compressed on several threads. The input is split into fixed-size blocks and each block is
+ * compressed independently, on a pool of worker threads, into a complete gzip member; the members are written in
+ * order, and their concatenation is a valid gzip stream (RFC 1952, section 2.2) which any gzip reader decompresses
+ * to the original input. Compressing blocks independently costs a little compression ratio, as no block can refer
+ * back into the one before it, in exchange for scaling with the number of cores. The number of blocks compressed or
+ * waiting to be written at once is bounded, so a slow destination holds up the writer rather than filling memory.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ParallelGzipOutputStream extends FilterOutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final byte[] HEADER = {
+        0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final ExecutorService executor;
+    private final int level;
+    private final int blockSize;
+    private final int maxPending;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block;
+    private int count = 0;
+    private boolean written = false;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param out the stream to write the compressed data to
+     * @param threads the number of compression threads, or null for one per available processor
+     * @param level the compression level from 0 to 9, or null for the default level
+     */
+    public ParallelGzipOutputStream(final OutputStream out, final Integer threads, final Integer level) {
+        this(out, threads, level, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param out the stream to write the compressed data to
+     * @param threads the number of compression threads, or null for one per available processor
+     * @param level the compression level from 0 to 9, or null for the default level
+     * @param blockSize the number of bytes of input compressed into each gzip member
+     */
+    public ParallelGzipOutputStream(final OutputStream out, final Integer threads, final Integer level,
+            final int blockSize) {
+        super(out);
+        final int workers = threads == null || threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        this.level = level == null ? Deflater.DEFAULT_COMPRESSION : level;
+        if (this.level != Deflater.DEFAULT_COMPRESSION && (this.level < 0 || this.level > 9)) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.blockSize = blockSize;
+        this.maxPending = workers * 2;
+        this.block = new byte[blockSize];
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    final Thread thread = new Thread(r, "gzip-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        block[count++] = (byte) b;
+        if (count == blockSize) {
+            submit();
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            final int length = Math.min(remaining, blockSize - count);
+            System.arraycopy(b, offset, block, count, length);
+            count += length;
+            offset += length;
+            remaining -= length;
+            if (count == blockSize) {
+                submit();
+            }
+        }
+    }
+
+    /**
+     * Write the members that have been compressed so far and flush the destination. The block being filled is not
+     * compressed early, so as not to shrink the blocks (and the compression ratio) of a stream that is flushed often.
+     *
+     * @throws IOException if the destination cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+            writeMember(pending.removeFirst());
+        }
+        out.flush();
+    }
+
+    /**
+     * Compress the remaining input, write every member and close the destination
+     *
+     * @throws IOException if the input cannot be compressed or the destination cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // an empty input still needs one (empty) member to be a gzip stream
+            if (count > 0 || !written) {
+                submit();
+            }
+            while (!pending.isEmpty()) {
+                writeMember(pending.removeFirst());
+            }
+            out.flush();
+        } finally {
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void submit() throws IOException {
+        final byte[] input = block;
+        final int length = count;
+        pending.addLast(executor.submit(() -> compress(input, length, level)));
+        written = true;
+        block = new byte[blockSize];
+        count = 0;
+        if (pending.size() >= maxPending) {
+            writeMember(pending.removeFirst());
+        }
+    }
+
+    private void writeMember(final Future<byte[]> member) throws IOException {
+        try {
+            out.write(member.get());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (final ExecutionException e) {
+            throw new IOException("Unable to compress block", e.getCause());
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Compress a block into a complete gzip member
+     */
+    private static byte[] compress(final byte[] input, final int length, final int level) {
+        final CRC32 crc = new CRC32();
+        crc.update(input, 0, length);
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+            final ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2 + HEADER.length + 8);
+            member.write(HEADER, 0, HEADER.length);
+            final byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                final int n = deflater.deflate(buffer);
+                member.write(buffer, 0, n);
+            }
+            writeInt(member, (int) crc.getValue());
+            writeInt(member, length);
+            return member.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeInt(final ByteArrayOutputStream out, final int value) {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.common;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.AuthState;
+import org.apache.http.auth.Credentials;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.fcrepo.client.FcrepoClient;
+import org.fcrepo.client.FcrepoOperationFailedException;
+import org.fcrepo.client.FcrepoResponse;
+import org.slf4j.Logger;
+
+/**
+ * A thread-safe FcrepoClient that sends every request through a single pooled connection manager, so that
+ * connections (and their TCP/TLS handshakes) are reused across requests and threads for the whole run.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class PooledFcrepoClient extends FcrepoClient implements Closeable {
+
+    private static final Logger LOGGER = getLogger(PooledFcrepoClient.class);
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    private final boolean throwExceptionOnFailure;
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param builder the builder holding the pool and authentication settings
+     */
+    protected PooledFcrepoClient(final Builder builder) {
+        super(null, null, null, builder.throwExceptionOnFailure);
+        this.throwExceptionOnFailure = builder.throwExceptionOnFailure;
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(builder.maxTotal);
+        connectionManager.setDefaultMaxPerRoute(builder.maxPerRoute);
+
+        final HttpClientBuilder httpClientBuilder = HttpClients.custom()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy(builder.keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections((long) builder.idleTimeout, TimeUnit.SECONDS);
+
+        if (builder.username != null && !builder.username.isEmpty() && builder.password != null
+                && !builder.password.isEmpty()) {
+            LOGGER.debug("Accessing fcrepo with user credentials");
+            final CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+            final AuthScope scope = builder.host == null || builder.host.isEmpty() ? AuthScope.ANY
+                    : new AuthScope(new HttpHost(builder.host));
+            credentialsProvider.setCredentials(scope,
+                    new UsernamePasswordCredentials(builder.username, builder.password));
+            httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider)
+                    .addInterceptorFirst(new PreemptiveAuthInterceptor());
+        }
+
+        httpClient = httpClientBuilder.build();
+        LOGGER.info("Using a pooled HTTP connection manager: max-total={}, max-per-route={}, idle-timeout={}s, " +
+                "keep-alive={}s", builder.maxTotal, builder.maxPerRoute, builder.idleTimeout, builder.keepAlive);
+    }
+
+    /**
+     * Create a new builder for a pooled client
+     *
+     * @return the builder
+     */
+    public static Builder pooledClient() {
+        return new Builder();
+    }
+
+    @Override
+    public FcrepoResponse executeRequest(final URI url, final HttpRequestBase request)
+            throws FcrepoOperationFailedException {
+        LOGGER.debug("Fcrepo {} request to {}", request.getMethod(), url);
+        requestCount.incrementAndGet();
+        final CloseableHttpResponse response;
+        try {
+            response = httpClient.execute(request);
+        } catch (final IOException e) {
+            LOGGER.debug("HTTP Operation failed: ", e);
+            throw new FcrepoOperationFailedException(request.getURI(), -1, e.getMessage());
+        }
+        final int status = response.getStatusLine().getStatusCode();
+        final FcrepoResponse fcrepoResponse = new FcrepoResponse(url, status, getHeaders(response),
+                getEntityContent(response));
+        if (status < 400 || !throwExceptionOnFailure) {
+            return fcrepoResponse;
+        }
+        try {
+            fcrepoResponse.close();
+        } catch (final IOException e) {
+            LOGGER.debug("Unable to close failed response: ", e);
+        }
+        throw new FcrepoOperationFailedException(request.getURI(), status,
+                response.getStatusLine().getReasonPhrase());
+    }
+
+    /**
+     * Get a snapshot of the connection pool statistics
+     *
+     * @return the pool statistics (leased, pending, available and max connections)
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * @return the number of requests sent by this client
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Shut down the pool, closing all open connections
+     *
+     * @throws IOException if the client cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private static InputStream getEntityContent(final HttpResponse response) {
+        try {
+            return response.getEntity() == null ? null : response.getEntity().getContent();
+        } catch (final IOException e) {
+            LOGGER.debug("Unable to extract HttpEntity response into an InputStream: ", e);
+            return null;
+        }
+    }
+
+    private static Map<String, List<String>> getHeaders(final HttpResponse response) {
+        final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (final Header header : response.getAllHeaders()) {
+            headers.computeIfAbsent(header.getName(), k -> new ArrayList<>()).add(header.getValue());
+        }
+        return headers;
+    }
+
+    /**
+     * Honour the server's Keep-Alive timeout when it sends one, otherwise keep connections alive for the
+     * configured number of seconds.
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(final int keepAlive) {
+        return (response, context) -> {
+            final BasicHeaderElementIterator it =
+                    new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                final HeaderElement element = it.nextElement();
+                if (element.getValue() != null && element.getName().equalsIgnoreCase("timeout")) {
+                    try {
+                        return Long.parseLong(element.getValue()) * 1000;
+                    } catch (final NumberFormatException ignore) {
+                        // fall back to the configured value
+                    }
+                }
+            }
+            return keepAlive * 1000L;
+        };
+    }
+
+    /**
+     * Sends the basic credentials with the first request rather than waiting for a challenge
+     */
+    private static class PreemptiveAuthInterceptor implements HttpRequestInterceptor {
+
+        @Override
+        public void process(final HttpRequest request, final HttpContext context) throws HttpException {
+            final AuthState authState = (AuthState) context.getAttribute(HttpClientContext.TARGET_AUTH_STATE);
+            if (authState != null && authState.getAuthScheme() == null) {
+                final CredentialsProvider credentialsProvider =
+                        (CredentialsProvider) context.getAttribute(HttpClientContext.CREDS_PROVIDER);
+                final HttpHost targetHost = (HttpHost) context.getAttribute(HttpCoreContext.HTTP_TARGET_HOST);
+                final Credentials credentials = credentialsProvider.getCredentials(
+                        new AuthScope(targetHost.getHostName(), targetHost.getPort()));
+                if (credentials == null) {
+                    LOGGER.debug("Cannot initiate preemptive authentication, credentials not found");
+                    return;
+                }
+                authState.update(new BasicScheme(), credentials);
+            }
+        }
+    }
+
+    /**
+     * Builds a {@link PooledFcrepoClient}. Each call to {@link #build()} creates a new connection pool, so a
+     * transfer process should build its client once and share it between threads.
+     */
+    public static class Builder extends FcrepoClient.FcrepoClientBuilder {
+
+        public static final int DEFAULT_MAX_TOTAL = 100;
+        public static final int DEFAULT_MAX_PER_ROUTE = 50;
+        public static final int DEFAULT_IDLE_TIMEOUT = 30;
+        public static final int DEFAULT_KEEP_ALIVE = 30;
+
+        private String username;
+        private String password;
+        private String host;
+        private int maxTotal = DEFAULT_MAX_TOTAL;
+        private int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+        private int idleTimeout = DEFAULT_IDLE_TIMEOUT;
+        private int keepAlive = DEFAULT_KEEP_ALIVE;
+        private boolean throwExceptionOnFailure = false;
+
+        @Override
+        public Builder credentials(final String username, final String password) {
+            this.username = username;
+            this.password = password;
+            return this;
+        }
+
+        @Override
+        public Builder authScope(final String authHost) {
+            this.host = authHost;
+            return this;
+        }
+
+        @Override
+        public Builder throwExceptionOnFailure() {
+            this.throwExceptionOnFailure = true;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of connections in the pool
+         *
+         * @param maxTotal the maximum, ignored when null or less than one
+         * @return this builder
+         */
+        public Builder maxTotal(final Integer maxTotal) {
+            if (maxTotal != null && maxTotal > 0) {
+                this.maxTotal = maxTotal;
+            }
+            return this;
+        }
+
+        /**
+         * Set the maximum number of connections to a single host
+         *
+         * @param maxPerRoute the maximum, ignored when null or less than one
+         * @return this builder
+         */
+        public Builder maxPerRoute(final Integer maxPerRoute) {
+            if (maxPerRoute != null && maxPerRoute > 0) {
+                this.maxPerRoute = maxPerRoute;
+            }
+            return this;
+        }
+
+        /**
+         * Set the number of seconds after which idle pooled connections are closed
+         *
+         * @param idleTimeout the timeout in seconds, ignored when null or less than one
+         * @return this builder
+         */
+        public Builder idleTimeout(final Integer idleTimeout) {
+            if (idleTimeout != null && idleTimeout > 0) {
+                this.idleTimeout = idleTimeout;
+            }
+            return this;
+        }
+
+        /**
+         * Set the number of seconds to keep a connection alive when the server does not specify a timeout
+         *
+         * @param keepAlive the keep-alive in seconds, ignored when null or less than one
+         * @return this builder
+         */
+        public Builder keepAlive(final Integer keepAlive) {
+            if (keepAlive != null && keepAlive > 0) {
+                this.keepAlive = keepAlive;
+            }
+            return this;
+        }
+
+        @Override
+        public PooledFcrepoClient build() {
+            return new PooledFcrepoClient(this);
+        }
+    }
+}
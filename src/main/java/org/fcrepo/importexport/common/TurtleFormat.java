@@ -0,0 +1,82 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.common;
+
+import org.apache.jena.riot.RDFFormat;
+
+/**
+ * The layout of the Turtle written by a streaming export
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public enum TurtleFormat {
+
+    /**
+     * The triples of each subject grouped in a block, as they arrive
+     */
+    BLOCKS("blocks", RDFFormat.TURTLE_BLOCKS),
+
+    /**
+     * One triple per line, abbreviated with the prefixes of the response
+     */
+    FLAT("flat", RDFFormat.TURTLE_FLAT);
+
+    private final String value;
+
+    private final RDFFormat format;
+
+    TurtleFormat(final String value, final RDFFormat format) {
+        this.value = value;
+        this.format = format;
+    }
+
+    /**
+     * @return the name of the format as given on the command line
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return the streaming RDF format to write
+     */
+    public RDFFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Look up a format by the name given on the command line
+     *
+     * @param value the name of the format
+     * @return the format
+     */
+    public static TurtleFormat fromString(final String value) {
+        for (final TurtleFormat format : values()) {
+            if (format.value.equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Invalid Turtle format: " + value + ", expected one of blocks or flat");
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fcrepo.importexport.common.DigestEngine;
+
+/**
+ * Writes an exported file through a {@link FileChannel}. Writes are expected in the large blocks produced by the
+ * {@link DigestEngine}, so there is no further buffering. The file is not preallocated: Java has no portable way to
+ * reserve blocks on disk, and extending the file by writing its last byte only makes it sparse, so the file simply
+ * grows with every block.
+ *
+ * <p>Heap blocks are normally handed straight to the channel, which copies them into a temporary direct buffer
+ * cached per thread. Optionally, the sink instead stages blocks in a direct buffer of its own, taken from a small
+ * shared pool, which keeps direct memory bounded when binaries are written from many short-lived threads.</p>
+ *
+ * <p>A sink may also continue a {@link PartialDownload}, appending to the bytes already in the file and
+ * checkpointing its progress as it writes.</p>
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class BinarySink extends OutputStream {
+
+    private static final int MAX_POOLED_BUFFERS = 32;
+
+    private static final Queue<ByteBuffer> directBuffers = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+
+    private final FileChannel channel;
+    private final long offset;
+    private final PartialDownload download;
+    private long checkpointed;
+    private ByteBuffer staging;
+    private long written = 0;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param file the file to write, which is replaced if it exists
+     * @param direct true to stage writes in a direct buffer
+     * @throws IOException if the file cannot be opened
+     */
+    public BinarySink(final File file, final boolean direct) throws IOException {
+        this(file, null, direct);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param file the file to write
+     * @param download the download to continue and checkpoint, or null to replace the file
+     * @param direct true to stage writes in a direct buffer
+     * @throws IOException if the file cannot be opened
+     */
+    public BinarySink(final File file, final PartialDownload download, final boolean direct) throws IOException {
+        this.download = download;
+        this.offset = download == null ? 0 : download.getOffset();
+        this.checkpointed = offset;
+        if (offset == 0) {
+            // replace rather than overwrite the file, which may be a hard link into an earlier export
+            Files.deleteIfExists(file.toPath());
+        }
+        this.channel = offset > 0 ? FileChannel.open(file.toPath(), WRITE) :
+                FileChannel.open(file.toPath(), CREATE, WRITE, TRUNCATE_EXISTING);
+        try {
+            if (offset > 0) {
+                channel.truncate(offset);
+                channel.position(offset);
+            }
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (direct) {
+            staging = directBuffers.poll();
+            if (staging == null) {
+                staging = ByteBuffer.allocateDirect(DigestEngine.BUFFER_SIZE);
+            } else {
+                pooled.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes written by this sink, not counting those of the download it continues
+     */
+    public long getBytesWritten() {
+        return written;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (staging == null) {
+            writeFully(ByteBuffer.wrap(b, off, len));
+        } else {
+            int offset = off;
+            final int end = off + len;
+            while (offset < end) {
+                final int count = Math.min(staging.capacity(), end - offset);
+                staging.clear();
+                staging.put(b, offset, count);
+                staging.flip();
+                writeFully(staging);
+                offset += count;
+            }
+        }
+    }
+
+    private void writeFully(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        if (download != null && offset + written - checkpointed >= PartialDownload.CHECKPOINT_INTERVAL) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Force the bytes written so far to disk and record them as the progress of the download
+     *
+     * @throws IOException if the file or the progress cannot be written
+     */
+    public void checkpoint() throws IOException {
+        if (download != null && !closed) {
+            channel.force(false);
+            checkpointed = offset + written;
+            download.checkpoint(checkpointed);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+        } finally {
+            if (staging != null) {
+                if (pooled.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+                    directBuffers.add(staging);
+                } else {
+                    pooled.decrementAndGet();
+                }
+                staging = null;
+            }
+        }
+    }
+}
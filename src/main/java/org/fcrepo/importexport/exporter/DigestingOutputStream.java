@@ -0,0 +1,88 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Counts the bytes written to a stream and updates digests with them on the way, so that an exported file does not
+ * have to be read back to compute the checksums of the bag manifests.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class DigestingOutputStream extends FilterOutputStream {
+
+    private final Map<String, MessageDigest> digests;
+
+    private long byteCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param out the stream to write to
+     * @param digests the digests to update, by BagIt algorithm name
+     */
+    public DigestingOutputStream(final OutputStream out, final Map<String, MessageDigest> digests) {
+        super(out);
+        this.digests = digests;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        out.write(b);
+        for (final MessageDigest digest : digests.values()) {
+            digest.update((byte) b);
+        }
+        byteCount++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        out.write(b, off, len);
+        for (final MessageDigest digest : digests.values()) {
+            digest.update(b, off, len);
+        }
+        byteCount += len;
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Complete the digests. Call once, after the last byte has been written.
+     *
+     * @return the hex encoded digests of the bytes written, by BagIt algorithm name
+     */
+    public Map<String, String> getDigests() {
+        final Map<String, String> hex = new HashMap<>();
+        digests.forEach((algorithm, digest) -> hex.put(algorithm, Hex.encodeHexString(digest.digest())));
+        return hex;
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.fcrepo.importexport.common.ParallelGzipOutputStream;
+import org.slf4j.Logger;
+
+/**
+ * Writes the files of an export straight into a tar, gzipped tar or zip stream, to a file or to standard output,
+ * instead of into the export directory. Export tasks add their files concurrently; the archive stream is written by
+ * one task at a time, a whole entry at a time.
+ *
+ * <p>A tar entry header records the size of the entry, so content is spooled (in memory up to
+ * {@value #SPOOL_THRESHOLD} bytes, then in a temporary file) and only added once it is complete. No task holds up the
+ * others while it downloads, however large its content, and content which fails or ends short of its expected size
+ * never reaches the archive: the export fails for that resource as usual.</p>
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ExportArchive implements Closeable {
+
+    private static final Logger logger = getLogger(ExportArchive.class);
+
+    public static final String STDOUT = "-";
+
+    // Content of up to this many bytes is spooled in memory
+    static final int SPOOL_THRESHOLD = 8 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * The archive formats
+     */
+    public enum Format {
+        TAR, TAR_GZ, ZIP;
+
+        /**
+         * Determine the format of an archive
+         *
+         * @param format the format (tar, gzip, tgz, tar.gz or zip), or null to use the name of the archive
+         * @param target the name of the archive
+         * @return the format
+         */
+        public static Format of(final String format, final String target) {
+            if (format == null) {
+                final String name = target.toLowerCase(Locale.ROOT);
+                if (name.endsWith(".zip")) {
+                    return ZIP;
+                }
+                return name.endsWith(".tar.gz") || name.endsWith(".tgz") ? TAR_GZ : TAR;
+            }
+            switch (format.toLowerCase(Locale.ROOT)) {
+            case "tar":
+                return TAR;
+            case "gzip":
+            case "tgz":
+            case "tar.gz":
+                return TAR_GZ;
+            case "zip":
+                return ZIP;
+            default:
+                throw new IllegalArgumentException("Unsupported archive format: " + format);
+            }
+        }
+    }
+
+    /**
+     * The content of an archive entry
+     */
+    @FunctionalInterface
+    public interface Content {
+
+        /**
+         * @param out the stream to write the content to, which must not be closed
+         * @return the number of bytes written
+         * @throws IOException if the content cannot be read or written
+         */
+        long writeTo(OutputStream out) throws IOException;
+    }
+
+    private final ArchiveOutputStream archive;
+    private final Format format;
+    private final Path exportDir;
+    private final String root;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long entries = 0;
+
+    /**
+     * Constructor
+     *
+     * @param out the stream to write the archive to
+     * @param format the format of the archive
+     * @param exportDir the export directory whose files are written to the archive
+     */
+    public ExportArchive(final OutputStream out, final Format format, final File exportDir) throws IOException {
+        this(out, format, exportDir, null, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param out the stream to write the archive to
+     * @param format the format of the archive
+     * @param exportDir the export directory whose files are written to the archive
+     * @param compressionThreads the number of threads a tar.gz archive is compressed on, or null for one per
+     *        available processor
+     * @param compressionLevel the compression level of a tar.gz archive, or null for the default level
+     */
+    public ExportArchive(final OutputStream out, final Format format, final File exportDir,
+            final Integer compressionThreads, final Integer compressionLevel) throws IOException {
+        this.format = format;
+        this.exportDir = exportDir.getAbsoluteFile().toPath().normalize();
+        this.root = this.exportDir.getFileName() == null ? "export" : this.exportDir.getFileName().toString();
+        final OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        if (format == Format.ZIP) {
+            final ZipArchiveOutputStream zip = new ZipArchiveOutputStream(buffered);
+            zip.setUseZip64(Zip64Mode.AsNeeded);
+            archive = zip;
+        } else {
+            final TarArchiveOutputStream tar = new TarArchiveOutputStream(format == Format.TAR_GZ ?
+                    new ParallelGzipOutputStream(buffered, compressionThreads, compressionLevel) : buffered, "UTF-8");
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            archive = tar;
+        }
+    }
+
+    /**
+     * Open an archive
+     *
+     * @param target the archive file, or {@value #STDOUT} for standard output
+     * @param format the format name, or null to use the name of the archive file
+     * @param exportDir the export directory whose files are written to the archive
+     * @param compressionThreads the number of threads a tar.gz archive is compressed on, or null
+     * @param compressionLevel the compression level of a tar.gz archive, or null for the default level
+     * @return the archive
+     * @throws IOException if the archive cannot be created
+     */
+    public static ExportArchive open(final String target, final String format, final File exportDir,
+            final Integer compressionThreads, final Integer compressionLevel) throws IOException {
+        final OutputStream out;
+        if (STDOUT.equals(target)) {
+            // the archive owns standard output, so anything else printed there (e.g. console logging) goes to
+            // standard error instead
+            out = new FileOutputStream(FileDescriptor.out);
+            System.setOut(System.err);
+        } else {
+            final File file = new File(target).getAbsoluteFile();
+            Files.createDirectories(file.getParentFile().toPath());
+            out = new FileOutputStream(file);
+        }
+        final Format resolved = Format.of(format, STDOUT.equals(target) ? "export.tar" : target);
+        logger.info("Writing the export to {} as {}", STDOUT.equals(target) ? "standard output" : target, resolved);
+        return new ExportArchive(out, resolved, exportDir, compressionThreads, compressionLevel);
+    }
+
+    /**
+     * @return the format of the archive
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @param file a file of the export
+     * @return the name of its entry in the archive
+     */
+    public String entryName(final File file) {
+        final Path path = file.getAbsoluteFile().toPath().normalize();
+        return root + "/" + exportDir.relativize(path).toString().replace('\\', '/');
+    }
+
+    /**
+     * Add a file of the export to the archive
+     *
+     * @param file the file of the export
+     * @param size the size of the content, or -1 if it is unknown
+     * @param content writes the content
+     * @return the number of bytes of content
+     * @throws IOException if the content cannot be read or the archive cannot be written
+     */
+    public long add(final File file, final long size, final Content content) throws IOException {
+        final DeferredFileOutputStream spool = new DeferredFileOutputStream(SPOOL_THRESHOLD, "archive-entry", ".tmp",
+                null);
+        try {
+            try {
+                content.writeTo(spool);
+            } finally {
+                spool.close();
+            }
+            if (size >= 0 && spool.getByteCount() != size) {
+                throw new IOException("Content of " + file + " was " + spool.getByteCount() + " bytes instead of " +
+                        size);
+            }
+            lock.lock();
+            try {
+                putEntry(file, spool.getByteCount());
+                spool.writeTo(archive);
+                archive.closeArchiveEntry();
+                entries++;
+            } finally {
+                lock.unlock();
+            }
+            return spool.getByteCount();
+        } finally {
+            if (!spool.isInMemory() && spool.getFile() != null) {
+                Files.deleteIfExists(spool.getFile().toPath());
+            }
+        }
+    }
+
+    /**
+     * Add a file on disk to the archive under the name of a file of the export
+     *
+     * @param source the file on disk
+     * @param file the file of the export
+     * @return the number of bytes of content
+     * @throws IOException if the file cannot be read or the archive cannot be written
+     */
+    public long add(final File source, final File file) throws IOException {
+        try (final InputStream in = Files.newInputStream(source.toPath())) {
+            return add(file, source.length(), out -> IOUtils.copyLarge(in, out));
+        }
+    }
+
+    /**
+     * @return the number of entries written
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    private void putEntry(final File file, final long size) throws IOException {
+        final ArchiveEntry entry;
+        if (format == Format.ZIP) {
+            final ZipArchiveEntry zipEntry = new ZipArchiveEntry(entryName(file));
+            zipEntry.setSize(size);
+            entry = zipEntry;
+        } else {
+            final TarArchiveEntry tarEntry = new TarArchiveEntry(entryName(file));
+            tarEntry.setSize(size);
+            entry = tarEntry;
+        }
+        archive.putArchiveEntry(entry);
+    }
+
+    /**
+     * Finish the archive and close the stream it is written to
+     *
+     * @throws IOException if the archive cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            archive.finish();
+            archive.close();
+            logger.info("Wrote {} entries to the archive", entries);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
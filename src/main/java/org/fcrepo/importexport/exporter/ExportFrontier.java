@@ -0,0 +1,245 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+
+/**
+ * A thread-safe FIFO queue of the resources waiting to be exported. At most a fixed number of URIs are held in
+ * memory; once that is reached, further URIs are appended to segment files in a temporary directory and read back,
+ * one segment at a time, as the in-memory part is drained. Heap use therefore stays flat no matter how many
+ * children a container has.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ExportFrontier implements Closeable {
+
+    private static final Logger logger = getLogger(ExportFrontier.class);
+
+    public static final int DEFAULT_SIZE = 10_000;
+
+    private final int capacity;
+    private final Deque<URI> memory = new ArrayDeque<>();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private Path directory;
+    private Segment writing;
+    private DataOutputStream writer;
+    private long size = 0;
+    private long spilled = 0;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param capacity the maximum number of URIs to hold in memory, or null for the default
+     */
+    public ExportFrontier(final Integer capacity) {
+        this.capacity = capacity == null || capacity < 1 ? DEFAULT_SIZE : capacity;
+    }
+
+    /**
+     * Add a resource to the end of the queue
+     *
+     * @param uri the resource
+     * @throws IOException if the queue is closed or the resource cannot be spilled to disk
+     */
+    public synchronized void add(final URI uri) throws IOException {
+        if (closed) {
+            throw new IOException("Export queue is closed");
+        }
+        // once anything has been spilled, keep appending to disk so that the queue stays in order
+        if (writer == null && segments.isEmpty() && memory.size() < capacity) {
+            memory.add(uri);
+        } else {
+            spill(uri);
+        }
+        size++;
+    }
+
+    /**
+     * Remove the resource at the head of the queue, reading the next spilled segment if necessary
+     *
+     * @return the resource, or null if the queue is empty
+     * @throws IOException if a spilled segment cannot be read
+     */
+    public synchronized URI poll() throws IOException {
+        if (memory.isEmpty() && !closed) {
+            refill();
+        }
+        final URI uri = memory.poll();
+        if (uri != null) {
+            size--;
+        }
+        return uri;
+    }
+
+    /**
+     * @return true if there are no resources in the queue
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of resources in the queue
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * @return the number of resources that have been spilled to disk
+     */
+    public synchronized long getSpilled() {
+        return spilled;
+    }
+
+    /**
+     * Remove all resources from the queue
+     *
+     * @param consumer receives each resource that was in the queue
+     */
+    public synchronized void drain(final Consumer<URI> consumer) {
+        try {
+            URI uri;
+            while ((uri = poll()) != null) {
+                consumer.accept(uri);
+            }
+        } catch (final IOException e) {
+            logger.error("Unable to read {} spilled resources: {}", size, e.getMessage());
+        }
+    }
+
+    /**
+     * Discard the queue and delete any spilled segments
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        memory.clear();
+        if (writer != null) {
+            closeWriter();
+            segments.add(writing);
+        }
+        for (final Segment segment : segments) {
+            delete(segment.path);
+        }
+        segments.clear();
+        if (directory != null) {
+            delete(directory);
+            directory = null;
+        }
+        size = 0;
+    }
+
+    private void spill(final URI uri) throws IOException {
+        if (writer == null) {
+            if (directory == null) {
+                directory = Files.createTempDirectory("fcrepo-export-queue");
+                logger.info("Export queue is larger than {} resources, spilling to {}", capacity, directory);
+            }
+            writing = new Segment(Files.createTempFile(directory, "segment", ".bin"));
+            writer = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(writing.path)));
+        }
+        final byte[] bytes = uri.toString().getBytes(UTF_8);
+        writer.writeInt(bytes.length);
+        writer.write(bytes);
+        writing.count++;
+        spilled++;
+        if (writing.count >= capacity) {
+            closeWriter();
+            segments.add(writing);
+            writing = null;
+        }
+    }
+
+    private void refill() throws IOException {
+        if (segments.isEmpty() && writer != null) {
+            closeWriter();
+            segments.add(writing);
+            writing = null;
+        }
+        final Segment segment = segments.poll();
+        if (segment == null) {
+            return;
+        }
+        int read = 0;
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(segment.path)))) {
+            for (; read < segment.count; read++) {
+                final byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                memory.add(URI.create(new String(bytes, UTF_8)));
+            }
+        } catch (final IOException | IllegalArgumentException e) {
+            // the unread resources can't be recovered, so stop counting them as queued
+            size -= segment.count - read;
+            throw new IOException("Unable to read " + (segment.count - read) + " spilled resources from " +
+                    segment.path, e);
+        } finally {
+            delete(segment.path);
+        }
+    }
+
+    private void closeWriter() {
+        try {
+            writer.close();
+        } catch (final IOException e) {
+            logger.warn("Unable to close export queue segment {}: {}", writing.path, e.getMessage());
+        }
+        writer = null;
+    }
+
+    private static void delete(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException e) {
+            logger.warn("Unable to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * A file of spilled resources
+     */
+    private static class Segment {
+        private final Path path;
+        private int count = 0;
+
+        private Segment(final Path path) {
+            this.path = path;
+        }
+    }
+}
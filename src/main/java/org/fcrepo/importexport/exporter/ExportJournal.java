@@ -0,0 +1,450 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+
+/**
+ * A durable, append-only record of an export's progress, from which an interrupted export can be resumed. Every
+ * queued resource is recorded as it is queued; everything an export task produces (the files it wrote with their
+ * sizes and digests, and the number of resources it exported) is collected while the task runs and appended as one
+ * block when the task completes. Tasks that did not complete leave no block behind and are simply exported again
+ * when resuming. Entries are buffered and flushed to disk in batches.
+ *
+ * <p>Journal lines are:
+ * <pre>
+ * Q &lt;uri&gt;                               a resource was queued
+ * F &lt;bytes&gt; &lt;alg&gt;=&lt;hex&gt;,... &lt;path&gt;   a file was written by the task in progress
+ * S &lt;count&gt;                             resources exported by the task in progress
+ * D &lt;uri&gt;                               the task exporting the resource completed
+ * </pre>
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ExportJournal implements Closeable {
+
+    private static final Logger logger = getLogger(ExportJournal.class);
+
+    // Flush after this many entries, or when this many milliseconds have passed since the last flush
+    private static final int FLUSH_ENTRIES = 1000;
+    private static final long FLUSH_MILLIS = 5000;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Writer writer;
+    private final ThreadLocal<Record> current = new ThreadLocal<>();
+    private int unflushed = 0;
+    private long lastFlush = System.currentTimeMillis();
+
+    /**
+     * The output of one export task, written to the journal when the task completes
+     */
+    public static class Record {
+        private final URI uri;
+        private final List<String> lines = new ArrayList<>();
+        private int exported = 0;
+        private volatile boolean handedOff = false;
+
+        private Record(final URI uri) {
+            this.uri = uri;
+        }
+
+        /**
+         * @return the resource the task exports
+         */
+        public URI getUri() {
+            return uri;
+        }
+
+        /**
+         * Mark the record as handed over to another task, which will complete it
+         */
+        public void handOff() {
+            handedOff = true;
+        }
+
+        /**
+         * @return true if another task will complete the record
+         */
+        public boolean isHandedOff() {
+            return handedOff;
+        }
+    }
+
+    /**
+     * Receives the digests of the files written by completed tasks while a journal is read
+     */
+    @FunctionalInterface
+    public interface DigestConsumer {
+
+        /**
+         * @param algorithm the BagIt name of the digest algorithm
+         * @param file the file
+         * @param digest the hex-encoded digest
+         * @throws IOException if the digest cannot be recorded
+         */
+        void accept(String algorithm, File file, String digest) throws IOException;
+    }
+
+    /**
+     * The progress of an interrupted export, read from its journal
+     */
+    public static class State implements Closeable {
+        private long exported = 0;
+        private long bytes = 0;
+        private long completed = 0;
+        private final VisitedSet done = new VisitedSet();
+
+        /**
+         * @return the number of resources exported by completed tasks
+         */
+        public long getExported() {
+            return exported;
+        }
+
+        /**
+         * @return the number of bytes written by completed tasks
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the number of completed tasks
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * Release the set of completed resources
+         *
+         * @throws IOException if its file cannot be deleted
+         */
+        @Override
+        public void close() throws IOException {
+            done.close();
+        }
+    }
+
+    /**
+     * Open a journal for writing
+     *
+     * @param file the journal file
+     * @param append true to append to an existing journal when resuming, false to start a new one
+     * @throws IOException if the journal cannot be opened
+     */
+    public ExportJournal(final Path file, final boolean append) throws IOException {
+        this.file = file;
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, CREATE, WRITE, append ? APPEND : TRUNCATE_EXISTING);
+        this.writer = new OutputStreamWriter(Channels.newOutputStream(channel), UTF_8);
+    }
+
+    /**
+     * Record that a resource was queued
+     *
+     * @param uri the resource
+     */
+    public void queued(final URI uri) {
+        write("Q " + uri + "\n", 1);
+    }
+
+    /**
+     * Start collecting the output of an export task on the current thread
+     *
+     * @param uri the resource the task exports
+     * @return the record of the task
+     */
+    public Record begin(final URI uri) {
+        final Record record = new Record(uri);
+        current.set(record);
+        return record;
+    }
+
+    /**
+     * Stop collecting output on the current thread
+     */
+    public void end() {
+        current.remove();
+    }
+
+    /**
+     * @return the record of the task running on the current thread, or null
+     */
+    public Record current() {
+        return current.get();
+    }
+
+    /**
+     * Run part of a task on the current thread, collecting its output in the task's record
+     *
+     * @param record the record of the task, may be null
+     * @param callable the part of the task
+     * @param <T> the result type
+     * @return the result
+     * @throws Exception if the callable fails
+     */
+    public <T> T within(final Record record, final Callable<T> callable) throws Exception {
+        final Record previous = current.get();
+        current.set(record);
+        try {
+            return callable.call();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Record a file written by the task running on the current thread
+     *
+     * @param file the file
+     * @param bytes the size of the file
+     * @param digests the digests of the file by BagIt algorithm name, may be empty
+     */
+    public void fileWritten(final File file, final long bytes, final Map<String, String> digests) {
+        final Record record = current.get();
+        if (record == null) {
+            return;
+        }
+        final StringBuilder line = new StringBuilder("F ").append(bytes).append(' ');
+        if (digests.isEmpty()) {
+            line.append('-');
+        } else {
+            final StringBuilder values = new StringBuilder();
+            digests.forEach((algorithm, digest) -> values.append(values.length() == 0 ? "" : ",")
+                    .append(algorithm).append('=').append(digest));
+            line.append(values);
+        }
+        line.append(' ').append(file.getPath()).append('\n');
+        synchronized (record) {
+            record.lines.add(line.toString());
+        }
+    }
+
+    /**
+     * Record that the task running on the current thread exported a resource
+     */
+    public void exported() {
+        final Record record = current.get();
+        if (record != null) {
+            synchronized (record) {
+                record.exported++;
+            }
+        }
+    }
+
+    /**
+     * Append the output of a completed task to the journal
+     *
+     * @param record the record of the task
+     */
+    public void complete(final Record record) {
+        final StringBuilder block = new StringBuilder();
+        synchronized (record) {
+            record.lines.forEach(block::append);
+            if (record.exported > 0) {
+                block.append("S ").append(record.exported).append('\n');
+            }
+            block.append("D ").append(record.uri).append('\n');
+            write(block.toString(), record.lines.size() + 2);
+        }
+    }
+
+    private synchronized void write(final String entries, final int count) {
+        try {
+            writer.write(entries);
+            unflushed += count;
+            if (unflushed >= FLUSH_ENTRIES || System.currentTimeMillis() - lastFlush >= FLUSH_MILLIS) {
+                flush();
+            }
+        } catch (final IOException e) {
+            logger.error("Unable to write to export journal {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Write buffered entries through to the disk
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        writer.flush();
+        channel.force(false);
+        unflushed = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        writer.close();
+    }
+
+    /**
+     * Read the progress of an interrupted export from its journal, ignoring the digests of the files written
+     *
+     * @param file the journal file
+     * @param queued receives every resource that was queued
+     * @return the progress of the export
+     * @throws IOException if the journal cannot be read
+     */
+    public static State read(final Path file, final Consumer<URI> queued) throws IOException {
+        return read(file, queued, (algorithm, written, digest) -> { });
+    }
+
+    /**
+     * Read the progress of an interrupted export from its journal. Entries of tasks that did not complete, including
+     * a truncated last line, are ignored. The digests of the files written by each completed task are passed on as
+     * its block is read, so they are never all held in memory.
+     *
+     * @param file the journal file
+     * @param queued receives every resource that was queued
+     * @param digests receives the digests of the files written by completed tasks, in the order they were written
+     * @return the progress of the export
+     * @throws IOException if the journal cannot be read, or a digest cannot be recorded
+     */
+    public static State read(final Path file, final Consumer<URI> queued, final DigestConsumer digests)
+            throws IOException {
+        final State state = new State();
+        final List<String> block = new ArrayList<>();
+        try {
+            forEachLine(file, line -> {
+                if (line.startsWith("Q ")) {
+                    queued.accept(URI.create(line.substring(2)));
+                } else if (line.startsWith("F ") || line.startsWith("S ")) {
+                    block.add(line);
+                } else if (line.startsWith("D ")) {
+                    try {
+                        commit(state, block, digests);
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    state.done.add(URI.create(line.substring(2)));
+                    state.completed++;
+                    block.clear();
+                } else if (!line.isEmpty()) {
+                    logger.warn("Ignoring invalid export journal entry: {}", line);
+                }
+            });
+        } catch (final UncheckedIOException e) {
+            state.close();
+            throw e.getCause();
+        }
+        return state;
+    }
+
+    /**
+     * Pass every resource which was queued but whose task did not complete to a consumer
+     *
+     * @param file the journal file
+     * @param state the progress read from the journal
+     * @param pending receives the resources to export again
+     * @throws IOException if the journal cannot be read
+     */
+    public static void forEachPending(final Path file, final State state, final Consumer<URI> pending)
+            throws IOException {
+        forEachLine(file, line -> {
+            if (line.startsWith("Q ")) {
+                final URI uri = URI.create(line.substring(2));
+                if (!state.done.contains(uri)) {
+                    pending.accept(uri);
+                }
+            }
+        });
+    }
+
+    /**
+     * Read the lines of a journal, skipping a last line that was only partly written
+     */
+    private static void forEachLine(final Path file, final Consumer<String> consumer) throws IOException {
+        final boolean terminated;
+        try (final FileChannel in = FileChannel.open(file)) {
+            final ByteBuffer last = ByteBuffer.allocate(1);
+            terminated = in.size() == 0 || (in.read(last, in.size() - 1) == 1 && last.get(0) == '\n');
+        }
+        try (final BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                final String next = reader.readLine();
+                if (next != null || terminated) {
+                    consumer.accept(line);
+                }
+                line = next;
+            }
+        } catch (final IllegalArgumentException e) {
+            logger.warn("Ignoring the rest of export journal {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void commit(final State state, final List<String> block, final DigestConsumer digests)
+            throws IOException {
+        for (final String line : block) {
+            if (line.startsWith("S ")) {
+                state.exported += Long.parseLong(line.substring(2).trim());
+                continue;
+            }
+            final String[] parts = line.split(" ", 4);
+            if (parts.length < 4) {
+                throw new IllegalArgumentException("Invalid file entry: " + line);
+            }
+            state.bytes += Long.parseLong(parts[1]);
+            if (!parts[2].equals("-")) {
+                final File path = new File(parts[3]);
+                for (final String digest : parts[2].split(",")) {
+                    final int separator = digest.indexOf('=');
+                    digests.accept(digest.substring(0, separator), path, digest.substring(separator + 1));
+                }
+            }
+        }
+    }
+}
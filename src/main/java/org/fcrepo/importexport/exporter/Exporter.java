@@ -20,13 +20,16 @@ package org.fcrepo.importexport.exporter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.IOUtils;
-import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.NodeIterator;
-import org.apache.jena.rdf.model.RDFNode;
-import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.rdf.model.Statement;
-import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.apache.http.conn.EofSensorInputStream;
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWriter;
 import org.duraspace.bagit.BagConfig;
 import org.duraspace.bagit.BagItDigest;
 import org.duraspace.bagit.BagWriter;
@@ -34,38 +37,45 @@ import org.duraspace.bagit.profile.BagProfile;
 import org.duraspace.bagit.profile.BagProfileConstants;
 import org.duraspace.bagit.serialize.BagSerializer;
 import org.duraspace.bagit.serialize.SerializationSupport;
+import org.duraspace.bagit.serialize.TarGzBagSerializer;
 import org.fcrepo.client.FcrepoClient;
 import org.fcrepo.client.FcrepoOperationFailedException;
 import org.fcrepo.client.FcrepoResponse;
 import org.fcrepo.client.GetBuilder;
-import org.fcrepo.client.HeadBuilder;
+import org.fcrepo.importexport.common.BinaryOrder;
 import org.fcrepo.importexport.common.Config;
+import org.fcrepo.importexport.common.DigestEngine;
+import org.fcrepo.importexport.common.PooledFcrepoClient;
 import org.fcrepo.importexport.common.ResourceFileParser;
 import org.fcrepo.importexport.common.TombstoneFoundException;
 import org.fcrepo.importexport.common.TransferProcess;
 import org.slf4j.Logger;
 
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.lang.reflect.Method;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -74,38 +84,36 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static org.apache.commons.io.FileUtils.byteCountToDisplaySize;
-import static org.apache.jena.rdf.model.ModelFactory.createDefaultModel;
-import static org.apache.jena.rdf.model.ResourceFactory.createProperty;
 import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
-import static org.fcrepo.importexport.common.FcrepoConstants.CONTAINER;
-import static org.fcrepo.importexport.common.FcrepoConstants.CONTAINS;
 import static org.fcrepo.importexport.common.FcrepoConstants.HEADERS_EXTENSION;
 import static org.fcrepo.importexport.common.FcrepoConstants.INBOUND_REFERENCES;
-import static org.fcrepo.importexport.common.FcrepoConstants.MEMENTO;
-import static org.fcrepo.importexport.common.FcrepoConstants.NON_RDF_SOURCE;
 import static org.fcrepo.importexport.common.FcrepoConstants.PREFER_MEMBERSHIP;
-import static org.fcrepo.importexport.common.FcrepoConstants.RDF_SOURCE;
-import static org.fcrepo.importexport.common.FcrepoConstants.REPOSITORY_NAMESPACE;
-import static org.fcrepo.importexport.common.FcrepoConstants.TIMEMAP;
 import static org.fcrepo.importexport.common.TransferProcess.checkValidResponse;
 import static org.fcrepo.importexport.common.TransferProcess.fileForBinary;
 import static org.fcrepo.importexport.common.TransferProcess.fileForExternalResources;
 import static org.fcrepo.importexport.common.TransferProcess.fileForURI;
 import static org.fcrepo.importexport.common.TransferProcess.isRepositoryRoot;
-import static org.fcrepo.importexport.common.UriUtils.withSlash;
-import static org.fcrepo.importexport.common.UriUtils.withoutSlash;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -124,18 +132,30 @@ public class Exporter implements TransferProcess {
     // Log progress every time this many resources have been exported
     private static final int REPORTING_INTERVAL = 10_000;
 
+    // Unwanted response bodies larger than this are dropped with their connection instead of being read
+    private static final long DISCARD_LIMIT = 8192;
+
+    // The default maximum number of resources exported concurrently on virtual threads
+    public static final int DEFAULT_MAX_REQUESTS = 64;
+
+    // The default size in megabytes above which binaries are downloaded in byte ranges
+    public static final int DEFAULT_RANGE_THRESHOLD = 1024;
+
+    // Filtered RDF of up to this many bytes is spooled in memory before it is written to the export
+    private static final int RDF_SPOOL_THRESHOLD = 4 * 1024 * 1024;
+
+    // The number of times a binary download is attempted, as long as each attempt makes progress
+    private static final int DOWNLOAD_ATTEMPTS = 3;
+
     private final Config config;
     protected FcrepoClient.FcrepoClientBuilder clientBuilder;
-    private final URI binaryURI;
-    private final URI containerURI;
-    private final URI rdfSourceURI;
+    private volatile FcrepoClient client;
     private BagWriter bag;
     private BagSerializer bagSerializer;
     private String bagProfileId;
-    private HashMap<File, String> sha1FileMap = null;
-    private HashMap<File, String> sha256FileMap = null;
-    private HashMap<File, String> sha512FileMap = null;
-    private HashMap<File, String> md5FileMap = null;
+    private ManifestAccumulator manifests;
+    private final DigestEngine digestEngine = new DigestEngine(null);
+    private final ExecutorService rdfParsers;
 
     private final Logger exportLogger;
     private final Logger remainingLogger;
@@ -148,7 +168,17 @@ public class Exporter implements TransferProcess {
 
     private final TaskManager taskManager;
 
-    protected StreamTripleHandler streamTripleHandler = null;
+    private final InteractionModelCache interactionModels;
+
+    private final ReferenceClassifier referenceClassifier;
+
+    private final VisitedSet visited = new VisitedSet();
+
+    private ExportJournal journal;
+
+    private PreviousExport previousExport;
+    private ExportArchive archive;
+    private final AtomicLong reusedCount = new AtomicLong();
 
     /**
      * Constructor that takes the Import/Export configuration
@@ -159,25 +189,71 @@ public class Exporter implements TransferProcess {
     public Exporter(final Config config, final FcrepoClient.FcrepoClientBuilder clientBuilder) {
         this.config = config;
         this.clientBuilder = clientBuilder;
-        this.binaryURI = URI.create(NON_RDF_SOURCE.getURI());
-        this.containerURI = URI.create(CONTAINER.getURI());
-        this.rdfSourceURI = URI.create(RDF_SOURCE.getURI());
         this.exportLogger = config.getAuditLog();
         this.remainingLogger = getLogger(REMAINING_LOG_PREFIX);
         this.dateFormat = new SimpleDateFormat("yyyy-MM-dd");
         this.repositoryRoot = config.getRepositoryRoot();
-        this.taskManager = new TaskManager(config.getThreadCount());
+        this.taskManager = new TaskManager(config);
+        this.interactionModels = new InteractionModelCache(config.getModelCacheSize());
+        this.referenceClassifier = new ReferenceClassifier(config.getReferenceLookups());
+        final AtomicInteger parserCount = new AtomicInteger();
+        this.rdfParsers = Executors.newCachedThreadPool(r -> {
+            final Thread thread = new Thread(r, "rdf-parser-" + parserCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (config.getModelCacheFile() != null) {
+            try {
+                interactionModels.load(config.getModelCacheFile());
+            } catch (final IOException e) {
+                logger.warn("Unable to load interaction model cache {}: {}", config.getModelCacheFile(),
+                        e.getMessage());
+            }
+        }
 
         if (config.getBagProfile() != null) {
             configureBagItParameters();
         }
+        if (config.getIncremental() != null) {
+            configurePreviousExport();
+        }
+    }
+
+    /**
+     * @return the cache of interaction models shared by all export tasks
+     */
+    InteractionModelCache getInteractionModelCache() {
+        return interactionModels;
+    }
+
+    /**
+     * @return the classifier shared by all export tasks to look up referenced resources
+     */
+    ReferenceClassifier getReferenceClassifier() {
+        return referenceClassifier;
+    }
+
+    /**
+     * Create the handler that streams the RDF of a single resource. Each export task gets its own handler, as it
+     * holds the file, writer and members of the resource it is streaming.
+     *
+     * @return a new handler
+     */
+    protected StreamTripleHandler newStreamTripleHandler() {
+        return new StreamTripleHandler(config, this, client());
     }
 
-    private StreamTripleHandler getStreamTripleHandler() {
-        if (streamTripleHandler == null) {
-            streamTripleHandler = new StreamTripleHandler(config, this, client());
+    private void configurePreviousExport() {
+        final File exportDir = config.getBagProfile() == null ? config.getBaseDirectory() :
+                config.getBaseDirectory().getParentFile();
+        try {
+            previousExport = new PreviousExport(config.getIncremental(), exportDir,
+                    manifests == null ? Collections.emptySet() : manifests.getAlgorithms());
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to open the export to update " + config.getIncremental() + ": " +
+                    e.getMessage(), e);
         }
-        return streamTripleHandler;
+        logger.info("Reusing unchanged binaries from {}", config.getIncremental());
     }
 
     private void configureBagItParameters() {
@@ -198,14 +274,19 @@ public class Exporter implements TransferProcess {
 
             // check if serialization is required
             final String serializationFormat = config.getBagSerialization();
-            if (serializationFormat != null) {
+            if (serializationFormat != null && config.getArchive() == null) {
                 // this can throw exceptions if the serialization format is not supported
                 bagSerializer = SerializationSupport.serializerFor(serializationFormat, bagProfile);
+                if (bagSerializer instanceof TarGzBagSerializer) {
+                    bagSerializer = new ParallelTarGzBagSerializer(config.getCompressionThreads(),
+                            config.getCompressionLevel());
+                }
             }
 
             // setup bag
             final File bagdir = config.getBaseDirectory().getParentFile();
             this.bag = new BagWriter(bagdir, algorithms);
+            this.manifests = new ManifestAccumulator(bagdir, algorithms);
             for (final String tagFile : bagConfig.getTagFiles()) {
                 this.bag.addTags(tagFile, bagConfig.getFieldsForTagFile(tagFile));
             }
@@ -256,34 +337,9 @@ public class Exporter implements TransferProcess {
         return algorithms.stream()
                              .map(String::toUpperCase)
                              .map(BagItDigest::valueOf)
-                             .peek(this::setupFileMap)
                              .collect(Collectors.toSet());
     }
 
-    /**
-     * Configure the digest algorithm and fileMap for a given BagItDigest
-     *
-     * @param digest the BagItDigest to initialize fields for
-     */
-    private void setupFileMap(final BagItDigest digest) {
-        switch (digest) {
-            case MD5:
-                this.md5FileMap = new HashMap<>();
-                break;
-            case SHA1:
-                this.sha1FileMap = new HashMap<>();
-                break;
-            case SHA256:
-                this.sha256FileMap = new HashMap<>();
-                break;
-            case SHA512:
-                this.sha512FileMap = new HashMap<>();
-                break;
-            default:
-                throw new IllegalStateException("Unexpected BagIt algorithm: " + digest);
-        }
-    }
-
     /**
      * Loads a bag config from path
      * @param bagConfigPath The path to the bag config yaml.
@@ -300,11 +356,40 @@ public class Exporter implements TransferProcess {
         }
     }
 
+    /**
+     * Get the client shared by all export tasks, building it on first use so that every request reuses the same
+     * connection pool.
+     */
     private FcrepoClient client() {
-        if (config.getUsername() != null) {
-            clientBuilder.credentials(config.getUsername(), config.getPassword());
+        FcrepoClient result = client;
+        if (result == null) {
+            synchronized (this) {
+                result = client;
+                if (result == null) {
+                    if (config.getUsername() != null) {
+                        clientBuilder.credentials(config.getUsername(), config.getPassword());
+                    }
+                    client = result = clientBuilder.build();
+                }
+            }
+        }
+        return result;
+    }
+
+    private void logPoolStats() {
+        if (client instanceof PooledFcrepoClient) {
+            logger.info("Connection pool: {}", ((PooledFcrepoClient) client).getPoolStats());
+        }
+    }
+
+    private void closeClient() {
+        if (client instanceof Closeable) {
+            try {
+                ((Closeable) client).close();
+            } catch (final IOException e) {
+                logger.warn("Failed to close HTTP client: {}", e.getMessage());
+            }
         }
-        return clientBuilder.build();
     }
 
     /**
@@ -325,6 +410,13 @@ public class Exporter implements TransferProcess {
 
         startTime = Instant.now();
 
+        if (config.getJournal() != null) {
+            openJournal();
+        }
+        if (config.getArchive() != null) {
+            openArchive();
+        }
+
         if (config.getResource() != null) {
             export(config.getResource());
         }
@@ -337,30 +429,30 @@ public class Exporter implements TransferProcess {
         try {
             taskManager.awaitCompletion();
             logger.info("Export complete");
+            logPoolStats();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            closeArchive();
             throw new RuntimeException(e);
         } finally {
             taskManager.shutdown();
+            referenceClassifier.shutdown();
+            digestEngine.shutdown();
+            rdfParsers.shutdown();
+            closeClient();
+            closeJournal();
+            closePreviousExport();
+            closeVisited();
         }
 
         if (bag != null) {
             try {
                 logger.info("Finishing bag manifests...");
                 bag.addTags(BagConfig.BAG_INFO_KEY, bagTechMetadata());
-                if (sha1FileMap != null) {
-                    bag.registerChecksums(BagItDigest.SHA1, sha1FileMap);
-                }
-                if (sha256FileMap != null) {
-                    bag.registerChecksums(BagItDigest.SHA256, sha256FileMap);
-                }
-                if (sha512FileMap != null) {
-                    bag.registerChecksums(BagItDigest.SHA512, sha512FileMap);
+                manifests.write(bag);
+                if (archive != null) {
+                    archiveTagFiles();
                 }
-                if (md5FileMap != null) {
-                    bag.registerChecksums(BagItDigest.MD5, md5FileMap);
-                }
-                bag.write();
 
                 if (bagSerializer != null) {
                     // Make sure the path is an absolute path because the BagSerializer uses Path#relativize which
@@ -371,9 +463,140 @@ public class Exporter implements TransferProcess {
                 throw new RuntimeException("Error finishing Bag: " + e.toString());
             } catch (Exception e) {
                 e.printStackTrace();
+            } finally {
+                manifests.close();
+                closeArchive();
             }
+        } else {
+            closeArchive();
         }
         exportLogger.info("Finished export... {} bytes/{} resources exported", successBytes.get(), successCount.get());
+        exportLogger.info("{} resources visited, {} duplicate references skipped", visited.size(),
+                visited.getDuplicates());
+        if (previousExport != null) {
+            exportLogger.info("{} unchanged binaries reused from {}", reusedCount.get(), config.getIncremental());
+        }
+        logger.info("Interaction model cache: {}", interactionModels);
+        if (config.getModelCacheFile() != null) {
+            try {
+                interactionModels.save(config.getModelCacheFile());
+            } catch (final IOException e) {
+                logger.warn("Unable to save interaction model cache {}: {}", config.getModelCacheFile(),
+                        e.getMessage());
+            }
+        }
+        if (client instanceof PooledFcrepoClient) {
+            final long requests = ((PooledFcrepoClient) client).getRequestCount();
+            exportLogger.info("{} requests sent, {} requests per resource", requests,
+                    String.format("%.2f", (double) requests / Math.max(successCount.get(), 1)));
+        }
+    }
+
+    /**
+     * Open the export journal. When resuming, the counts and digests of the completed tasks are restored from it and
+     * the resources it queued which were not exported are queued again.
+     */
+    private void openJournal() {
+        final Path file = config.getJournal();
+        try {
+            if (config.isResume() && Files.exists(file)) {
+                logger.info("Resuming export from journal {}", file);
+                try (final ExportJournal.State state = ExportJournal.read(file, visited::add, this::restoreDigest)) {
+                    successCount.set(state.getExported());
+                    successBytes.set(state.getBytes());
+                    journal = new ExportJournal(file, true);
+                    final AtomicLong pending = new AtomicLong();
+                    ExportJournal.forEachPending(file, state, uri -> {
+                        pending.incrementAndGet();
+                        taskManager.submit(uri);
+                    });
+                    exportLogger.info("Resuming export: {} resources/{} bytes already exported, {} resources " +
+                            "pending", state.getExported(), state.getBytes(), pending.get());
+                }
+            } else {
+                journal = new ExportJournal(file, false);
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to open export journal " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Add a digest replayed from the journal to the bag manifests
+     */
+    private void restoreDigest(final String algorithm, final File file, final String digest) throws IOException {
+        if (manifests == null) {
+            return;
+        }
+        for (final BagItDigest manifestAlgorithm : manifests.getAlgorithms()) {
+            if (manifestAlgorithm.bagitName().equals(algorithm)) {
+                manifests.add(manifestAlgorithm, file, digest);
+            }
+        }
+    }
+
+    private void openArchive() {
+        final File exportDir = config.getBagProfile() == null ? config.getBaseDirectory() :
+                config.getBaseDirectory().getParentFile();
+        try {
+            archive = ExportArchive.open(config.getArchive(), config.getBagSerialization(), exportDir,
+                    config.getCompressionThreads(), config.getCompressionLevel());
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to create archive " + config.getArchive() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Add the tag files of the bag, which are written to the bag directory once the export is complete, to the
+     * archive after the payload
+     */
+    private void archiveTagFiles() throws IOException {
+        final File[] tagFiles = config.getBaseDirectory().getParentFile().listFiles(File::isFile);
+        if (tagFiles != null) {
+            Arrays.sort(tagFiles);
+            for (final File tagFile : tagFiles) {
+                archive.add(tagFile, tagFile);
+            }
+        }
+    }
+
+    private void closeArchive() {
+        if (archive != null) {
+            try {
+                archive.close();
+            } catch (final IOException e) {
+                throw new RuntimeException("Unable to finish archive " + config.getArchive() + ": " + e.getMessage(),
+                        e);
+            }
+        }
+    }
+
+    private void closePreviousExport() {
+        if (previousExport != null) {
+            try {
+                previousExport.close();
+            } catch (final IOException e) {
+                logger.warn("Unable to close the export to update: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void closeVisited() {
+        try {
+            visited.close();
+        } catch (final IOException e) {
+            logger.warn("Unable to delete the visited resources file: {}", e.getMessage());
+        }
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (final IOException e) {
+                logger.warn("Unable to close export journal: {}", e.getMessage());
+            }
+        }
     }
 
     private Map<String, String> bagTechMetadata() {
@@ -386,11 +609,18 @@ public class Exporter implements TransferProcess {
     }
 
     /**
-     * Queues a new resource to be exported
+     * Queues a new resource to be exported, unless it has already been queued by this export
      *
      * @param uri resource to export
      */
     protected void export(final URI uri) {
+        if (!visited.add(uri)) {
+            logger.debug("Skipping already visited resource {}", uri);
+            return;
+        }
+        if (journal != null) {
+            journal.queued(uri);
+        }
         taskManager.submit(uri);
     }
 
@@ -402,38 +632,24 @@ public class Exporter implements TransferProcess {
      * @throws IOException
      */
     private void doExport(final URI uri) throws FcrepoOperationFailedException, IOException {
-        logger.trace("HEAD " + uri);
-        try (FcrepoResponse response = client().head(uri).disableRedirects().perform()) {
-            if (response.getStatusCode() == 404 && uri.toString().endsWith("fcr:acl")) {
-                logger.debug("ACL {} not found and thus will not be exported.", uri);
+        try {
+            if (config.isSkipHead() && exportWithoutHead(uri)) {
                 return;
             }
 
-            checkValidResponse(response, uri, config.getUsername());
-            final List<URI> linkHeaders = response.getLinkHeaders("type");
-            final URI acl = response.getLinkHeaders("acl").stream().findFirst().orElse(null);
-
-            if (linkHeaders.contains(binaryURI)) {
-                logger.debug("Found binary at " + uri);
-                final boolean external = response.getHeaderValue("Content-Location") != null;
-                final boolean redirect = response.getStatusCode() >= 300 && response.getStatusCode() < 400;
-                final List<URI> describedby = response.getLinkHeaders("describedby");
-                exportBinary(uri, describedby, external, redirect);
-            } else if (linkHeaders.contains(containerURI) || linkHeaders.contains(rdfSourceURI)) {
-                logger.debug("Found container at " + uri);
-                exportRdf(uri, null);
-                // Export versions for this container
-                exportVersions(uri);
-            } else if (uri.equals(URI.create(repositoryRoot.toString() + "/fcr:acl").normalize())) {
-                logger.info("The repository default root ACL is not being exported: {}", uri);
-            } else {
-                logger.error("Resource is not an LDP Container, LDP RDFSource,  or an LDP NonRDFSource: {}", uri);
-                exportLogger.error("Resource is not an LDP Container, LDP RDFSource, or an LDP NonRDFSource: {}", uri);
-            }
+            logger.trace("HEAD " + uri);
+            final ResourceMetadata metadata;
+            try (FcrepoResponse response = client().head(uri).disableRedirects().perform()) {
+                if (response.getStatusCode() == 404 && uri.toString().endsWith("fcr:acl")) {
+                    logger.debug("ACL {} not found and thus will not be exported.", uri);
+                    return;
+                }
 
-            if (acl != null && config.isIncludeAcls()) {
-                export(acl);
+                checkValidResponse(response, uri, config.getUsername());
+                metadata = ResourceMetadata.fromResponse(uri, response);
             }
+            interactionModels.put(metadata);
+            exportResource(metadata);
         } catch (final TombstoneFoundException e) {
             if (config.isSkipTombstoneErrors()) {
                 logger.warn("Skipping tombstone resource: {}", uri);
@@ -444,61 +660,446 @@ public class Exporter implements TransferProcess {
         }
     }
 
-    private void exportBinary(final URI uri, final List<URI> describedby, final boolean external,
-                              final boolean redirect) throws FcrepoOperationFailedException, IOException {
+    /**
+     * Export a resource whose metadata has already been retrieved
+     *
+     * @param metadata the metadata of the resource
+     * @throws FcrepoOperationFailedException
+     * @throws IOException
+     */
+    private void exportResource(final ResourceMetadata metadata) throws FcrepoOperationFailedException,
+            IOException {
+        final URI uri = metadata.getUri();
+        // queue the ACL first so that another thread can export it while this one exports the resource
+        exportAcl(metadata);
+        if (metadata.isBinary()) {
+            logger.debug("Found binary at " + uri);
+            if (config.isIncludeBinaries() && taskManager.submitBinary(metadata)) {
+                return;
+            }
+            exportBinary(metadata);
+        } else if (metadata.isRdf()) {
+            logger.debug("Found container at " + uri);
+            exportRdf(uri, null);
+        } else if (uri.equals(URI.create(repositoryRoot.toString() + "/fcr:acl").normalize())) {
+            logger.info("The repository default root ACL is not being exported: {}", uri);
+        } else {
+            logger.error("Resource is not an LDP Container, LDP RDFSource,  or an LDP NonRDFSource: {}", uri);
+            exportLogger.error("Resource is not an LDP Container, LDP RDFSource, or an LDP NonRDFSource: {}", uri);
+        }
+    }
+
+    /**
+     * Export a binary which was handed over to the binary lane
+     *
+     * @param metadata the metadata of the binary
+     * @throws FcrepoOperationFailedException
+     * @throws IOException
+     */
+    private void exportQueuedBinary(final ResourceMetadata metadata) throws FcrepoOperationFailedException,
+            IOException {
+        try {
+            exportBinary(metadata);
+        } catch (final TombstoneFoundException e) {
+            if (!config.isSkipTombstoneErrors()) {
+                throw e;
+            }
+            logger.warn("Skipping tombstone resource: {}", metadata.getUri());
+        }
+    }
+
+    private void exportAcl(final ResourceMetadata metadata) {
+        if (metadata.getAcl() != null && config.isIncludeAcls()) {
+            export(metadata.getAcl());
+        }
+    }
+
+    /**
+     * Export a resource by requesting its RDF straight away and inspecting the headers of the response, rather than
+     * issuing a HEAD request first. Binaries are recognized from the same headers and exported without a HEAD too.
+     *
+     * @param uri resource to export
+     * @return true if the resource was handled, false if it should be exported using a HEAD request instead
+     * @throws FcrepoOperationFailedException
+     * @throws IOException
+     */
+    private boolean exportWithoutHead(final URI uri) throws FcrepoOperationFailedException, IOException {
+        final File file = fileForURI(uri, null, null, config.getBaseDirectory(), config.getRdfExtension());
+        if (file.exists() && !config.isResume()) {
+            return false;
+        }
+
+        final FcrepoResponse response = rdfRequest(uri).disableRedirects().perform();
+        if (response.getStatusCode() >= 400) {
+            // let the HEAD request report errors, tombstones and missing ACLs in the usual way
+            discard(response);
+            return false;
+        }
+
+        final ResourceMetadata metadata = ResourceMetadata.fromResponse(uri, response);
+        interactionModels.put(metadata);
+        if (metadata.isRdf()) {
+            exportRdf(uri, null, file, response);
+            exportAcl(metadata);
+        } else {
+            discard(response);
+            exportResource(metadata);
+        }
+        return true;
+    }
+
+    /**
+     * Close a response whose body is not needed, dropping the connection rather than reading the rest of a large
+     * body (e.g. a binary) just to return the connection to the pool.
+     */
+    private static void discard(final FcrepoResponse response) throws IOException {
+        final long length = contentLength(response);
+        final InputStream body = response.getBody();
+        if (body instanceof EofSensorInputStream && (length < 0 || length > DISCARD_LIMIT)) {
+            ((EofSensorInputStream) body).abortConnection();
+        }
+        response.close();
+    }
+
+    /**
+     * @return the Content-Length of a response, or -1 if it is unknown
+     */
+    private static long contentLength(final FcrepoResponse response) {
+        final String length = response.getHeaderValue("Content-Length");
+        try {
+            return length == null ? -1 : Long.parseLong(length.trim());
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void exportBinary(final ResourceMetadata metadata) throws FcrepoOperationFailedException,
+            IOException {
+        final URI uri = metadata.getUri();
         if (!config.isIncludeBinaries()) {
             logger.debug("Skipping: {} -> binaries are not included in this export configuration", uri);
             return;
         }
 
+        // fetch the descriptions and queue the versions while the content downloads
+        final List<Future<Void>> descriptions = new ArrayList<>(metadata.getDescribedby().size());
+        for (final URI description : metadata.getDescribedby()) {
+            descriptions.add(taskManager.fork(() -> {
+                exportRdf(description, uri);
+                return null;
+            }));
+        }
+        exportVersions(metadata);
+
+        final boolean external = metadata.isExternal();
+        final File file;
+        try {
+            final File ranged = !external && isRanged(metadata) && !hasPrevious(metadata) ? exportRanges(metadata) :
+                    null;
+            file = ranged != null ? ranged : exportContent(metadata);
+        } catch (RuntimeException | FcrepoOperationFailedException | IOException e) {
+            descriptions.forEach(f -> f.cancel(true));
+            throw e;
+        }
+
+        // the binary only counts as exported once its descriptions are
+        join(descriptions);
+        exportLogger.info("export {} to {}", uri, file.getAbsolutePath());
+        incrementSuccessCount();
+    }
+
+    /**
+     * Download the content of a binary in a single request. A download of a binary in the repository that fails
+     * part way is kept, and resumed by the next attempt, or by the next export if this was the last attempt.
+     *
+     * @param metadata the metadata of the binary
+     * @return the file the content was written to
+     */
+    private File exportContent(final ResourceMetadata metadata) throws FcrepoOperationFailedException,
+            IOException {
+        final URI uri = metadata.getUri();
+        final boolean external = metadata.isExternal();
+        final File file = external ? fileForExternalResources(uri, null, null, config.getBaseDirectory()) :
+                fileForBinary(uri, null, null, config.getBaseDirectory());
+        final File previous = external || previousExport == null ? null : previousExport.find(file);
+        if (previous != null && metadata.isMemento() && previousExport.readHeaders(previous) != null) {
+            // mementos never change, so one that was exported before is reused without requesting it
+            reuseBinary(uri, previous, file);
+            return file;
+        }
+        for (int attempt = 1; ; attempt++) {
+            final PartialDownload resume = external || archive != null ? null : PartialDownload.load(file);
+            try {
+                exportContent(metadata, file, resume, resume == null ? previous : null);
+                return file;
+            } catch (final IOException e) {
+                final PartialDownload progress = external || archive != null ? null : PartialDownload.load(file);
+                final long before = resume == null ? 0 : resume.getOffset();
+                if (attempt >= DOWNLOAD_ATTEMPTS || progress == null || progress.getOffset() <= before) {
+                    throw e;
+                }
+                logger.warn("Download of {} failed after {} bytes, resuming: {}", uri, progress.getOffset(),
+                        e.toString());
+            }
+        }
+    }
+
+    /**
+     * Make one attempt to download the content of a binary
+     *
+     * @param metadata the metadata of the binary
+     * @param file the file to write the content to
+     * @param resume the interrupted download to resume, or null
+     * @param previous the binary in the export being updated, reused if it is unchanged, or null
+     */
+    private void exportContent(final ResourceMetadata metadata, final File file, final PartialDownload resume,
+            final File previous) throws FcrepoOperationFailedException, IOException {
+        final URI uri = metadata.getUri();
+        final boolean external = metadata.isExternal();
         GetBuilder getBuilder = client().get(uri);
         if (external && !config.retrieveExternal()) {
             getBuilder = getBuilder.disableRedirects();
         }
+        if (resume != null) {
+            getBuilder = getBuilder.range(resume.getOffset(), null).addHeader("If-Range", resume.getValidator());
+        }
+        final Map<String, List<String>> previousHeaders = previous == null ? null :
+                previousExport.readHeaders(previous);
+        if (previousHeaders != null) {
+            final String etag = PreviousExport.header(previousHeaders, "ETag");
+            final String lastModified = PreviousExport.header(previousHeaders, "Last-Modified");
+            if (etag != null) {
+                getBuilder = getBuilder.ifNoneMatch(etag);
+            }
+            if (lastModified != null) {
+                getBuilder = getBuilder.ifModifiedSince(lastModified);
+            }
+        }
         try (FcrepoResponse response = getBuilder.perform()) {
             checkValidResponse(response, uri, config.getUsername());
+            if (previousHeaders != null && response.getStatusCode() == 304) {
+                reuseBinary(uri, previous, file);
+                return;
+            }
 
-            final File file = external ? fileForExternalResources(uri, null, null, config.getBaseDirectory()) :
-                    fileForBinary(uri, null, null, config.getBaseDirectory());
+            // the repository only sends part of the content if it is unchanged since the interrupted download
+            final boolean resumed = resume != null && response.getStatusCode() == 206;
+            final PartialDownload download;
+            if (resumed) {
+                logger.info("Resuming download of {} from byte {}", uri, resume.getOffset());
+                download = resume;
+            } else {
+                download = external || archive != null ? null : PartialDownload.start(file,
+                        response.getHeaderValue("ETag"), response.getHeaderValue("Last-Modified"));
+            }
+            final long length = contentLength(response);
 
             //only retrieve content of external resources when retrieve external flag is enabled
             //otherwise write a zero length file.
             try (final InputStream is = external && !config.retrieveExternal() ?
                     IOUtils.toInputStream("", Charset.defaultCharset()) : response.getBody()) {
                 logger.info("Exporting binary: {}", uri);
-                writeResponse(uri, is, describedby, file);
-                writeHeadersFile(response, getHeadersFile(file));
+                writeResponse(uri, is, null, file, external && !config.retrieveExternal() ? 0 :
+                        resumed && length >= 0 ? resume.getOffset() + length : length, download);
+                if (resumed) {
+                    // the headers of a partial response describe the range, so use those of the HEAD request
+                    writeHeadersFile(metadata.getHeaders(), getHeadersFile(file));
+                } else {
+                    writeHeadersFile(response, getHeadersFile(file));
+                }
+
+                // For redirected content export headers from the repository as well, which were captured by the
+                // initial non-redirected request
+                if (metadata.isRedirect() && config.retrieveExternal()) {
+                    writeHeadersFile(metadata.getHeaders(),
+                            new File(file.getParentFile(), file.getName() + ".fcrepo" + HEADERS_EXTENSION));
+                }
+            }
+        }
+    }
 
-                // For redirected content export headers from the repository as well
-                if (redirect && config.retrieveExternal()) {
-                    writeNonRedirectedHeaders(uri, file);
+    /**
+     * Reuse an unchanged binary and its headers from the export being updated
+     *
+     * @param uri the binary
+     * @param previous the binary in the export being updated
+     * @param file the file of the binary in this export
+     */
+    private void reuseBinary(final URI uri, final File previous, final File file) throws IOException {
+        if (archive != null) {
+            try (final InputStream in = Files.newInputStream(previous.toPath())) {
+                copy(in, file, previous.length());
+            }
+            final File previousHeaders = getHeadersFile(previous);
+            if (previousHeaders.exists()) {
+                try (final InputStream in = Files.newInputStream(previousHeaders.toPath())) {
+                    copy(in, getHeadersFile(file), previousHeaders.length());
                 }
-                exportLogger.info("export {} to {}", uri, file.getAbsolutePath());
-                incrementSuccessCount();
             }
+            reusedCount.incrementAndGet();
+            logger.info("Reused unchanged binary {} from {}", uri, previous);
+            return;
+        }
+        previousExport.reuse(previous, file);
+        final Map<String, String> digests = previousExport.getDigests(previous);
+        if (digests == null) {
+            digestFile(file);
+        } else {
+            successBytes.addAndGet(file.length());
+            recordDigests(file, file.length(), digests);
+        }
+        final File headers = getHeadersFile(file);
+        if (headers.exists()) {
+            digestFile(headers);
+        }
+        reusedCount.incrementAndGet();
+        logger.info("Reused unchanged binary {} from {}", uri, previous);
+    }
+
+    /**
+     * @return true if the export being updated has a copy of the binary, which is reused if it is unchanged
+     */
+    private boolean hasPrevious(final ResourceMetadata metadata) {
+        return previousExport != null &&
+                previousExport.find(fileForBinary(metadata.getUri(), null, null, config.getBaseDirectory())) != null;
+    }
+
+    /**
+     * @return true if the binary is large enough to be downloaded in byte ranges, the repository supports them, and
+     *     the binary has a validator so that every range can be requested from the same version of it
+     */
+    private boolean isRanged(final ResourceMetadata metadata) {
+        final Integer segments = config.getRangeSegments();
+        final Integer threshold = config.getRangeThreshold();
+        final long minimum = (threshold == null || threshold < 1 ? DEFAULT_RANGE_THRESHOLD : threshold)
+                * 1024L * 1024L;
+        return archive == null && segments != null && segments > 1 && metadata.isRangeSupported()
+                && metadata.getContentLength() > minimum
+                && PartialDownload.validator(metadata.getEtag(), metadata.getLastModified()) != null;
+    }
+
+    /**
+     * Download the content of a binary in concurrent byte ranges, each written at its offset in the file. The
+     * digests of the file are computed from the file once all ranges are written. Every range is requested with
+     * the validator of the HEAD request in If-Range, so that a binary which changes during the download is sent
+     * whole rather than in ranges of different versions.
+     *
+     * @param metadata the metadata of the binary
+     * @return the file the content was written to, or null if the binary changed or the repository did not honour
+     *     the range requests
+     */
+    private File exportRanges(final ResourceMetadata metadata) throws FcrepoOperationFailedException,
+            IOException {
+        final URI uri = metadata.getUri();
+        final long length = metadata.getContentLength();
+        final int segments = config.getRangeSegments();
+        final long segmentSize = (length + segments - 1) / segments;
+        final String validator = PartialDownload.validator(metadata.getEtag(), metadata.getLastModified());
+        final File file = fileForBinary(uri, null, null, config.getBaseDirectory());
+        if (!file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
 
+        logger.info("Exporting binary: {} in {} ranges", uri, segments);
+        // replace rather than overwrite the file, which may be a hard link into an earlier export
+        Files.deleteIfExists(file.toPath());
+        try (final FileChannel channel = FileChannel.open(file.toPath(), CREATE, WRITE, TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(1), length - 1);
+            final List<Future<Void>> ranges = new ArrayList<>(segments);
+            for (long start = 0; start < length; start += segmentSize) {
+                final long first = start;
+                final long last = Math.min(start + segmentSize, length) - 1;
+                ranges.add(taskManager.fork(() -> {
+                    exportRange(uri, validator, channel, first, last);
+                    return null;
+                }));
+            }
+            join(ranges);
+        } catch (final RangeNotSupportedException e) {
+            logger.warn("{} changed during the download, or the repository ignored the range requests; downloading " +
+                    "it in a single request", uri);
+            return null;
         }
 
-        // Export versions for this binary
-        exportVersions(uri);
+        digestFile(file);
+        Files.deleteIfExists(PartialDownload.sidecarFor(file));
+        writeHeadersFile(metadata.getHeaders(), getHeadersFile(file));
+        logger.info("Exported {} to {}", uri, file.getAbsolutePath());
+        return file;
     }
 
-    private void writeNonRedirectedHeaders(final URI uri, final File file)
-        throws FcrepoOperationFailedException, IOException {
-        final HeadBuilder headBuilder = client().head(uri).disableRedirects();
-        try (final FcrepoResponse response = headBuilder.perform()) {
-            final File headers = new File(file.getParentFile(), file.getName() + ".fcrepo" + HEADERS_EXTENSION);
-            writeHeadersFile(response, headers);
+    /**
+     * Download a byte range of a binary, if it still matches the validator, and write it at its offset in the file
+     */
+    private void exportRange(final URI uri, final String validator, final FileChannel channel, final long first,
+            final long last) throws FcrepoOperationFailedException, IOException {
+        try (FcrepoResponse response = client().get(uri).range(first, last).addHeader("If-Range", validator)
+                .perform()) {
+            if (response.getStatusCode() != 206) {
+                // the body may be the whole binary, so drop the connection rather than read it to the end
+                discard(response);
+                checkValidResponse(response, uri, config.getUsername());
+                throw new RangeNotSupportedException();
+            }
+            final byte[] buffer = new byte[DigestEngine.BUFFER_SIZE];
+            long position = first;
+            try (final InputStream in = response.getBody()) {
+                int read;
+                while (position <= last && (read = in.read(buffer, 0,
+                        (int) Math.min(buffer.length, last + 1 - position))) != -1) {
+                    final ByteBuffer block = ByteBuffer.wrap(buffer, 0, read);
+                    while (block.hasRemaining()) {
+                        position += channel.write(block, position);
+                    }
+                }
+            }
+            if (position != last + 1) {
+                throw new IOException("Range " + first + "-" + last + " of " + uri + " ended after " +
+                        (position - first) + " bytes");
+            }
         }
     }
 
-    private void exportRdf(final URI uri, final URI binaryURI) throws FcrepoOperationFailedException, IOException {
-        final File file = fileForURI(uri, null, null, config.getBaseDirectory(), config.getRdfExtension());
-        if (file.exists()) {
-            logger.info("Already exported {}", uri);
-            return;
+    /**
+     * Thrown when the repository answers a range request with the whole content, because the binary no longer
+     * matches the validator or the repository does not support ranges after all
+     */
+    private static class RangeNotSupportedException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Wait for the subtasks of an export task, cancelling the rest if one of them fails
+     *
+     * @param subtasks the subtasks
+     * @throws FcrepoOperationFailedException if a subtask failed to retrieve a resource
+     * @throws IOException if a subtask failed to write a resource
+     */
+    private static void join(final List<Future<Void>> subtasks) throws FcrepoOperationFailedException,
+            IOException {
+        try {
+            for (final Future<Void> subtask : subtasks) {
+                subtask.get();
+            }
+        } catch (final InterruptedException e) {
+            subtasks.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for subtasks", e);
+        } catch (final ExecutionException e) {
+            subtasks.forEach(f -> f.cancel(true));
+            final Throwable cause = e.getCause();
+            if (cause instanceof FcrepoOperationFailedException) {
+                throw (FcrepoOperationFailedException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
         }
+    }
 
+    private GetBuilder rdfRequest(final URI uri) {
         final GetBuilder getBuilder = client().get(uri).accept(config.getRdfLanguage());
 
         final List<URI> includeUris = new ArrayList<>();
@@ -512,39 +1113,54 @@ public class Exporter implements TransferProcess {
         }
 
         getBuilder.preferRepresentation(includeUris, omitUris);
+        return getBuilder;
+    }
 
-        Model model = null;
-        Set<URI> inboundMembers = null;
-
-        try (FcrepoResponse response = getBuilder.perform()) {
-            checkValidResponse(response, uri, config.getUsername());
-            logger.info("Exporting rdf: {}", uri);
+    private void exportRdf(final URI uri, final URI binaryURI) throws FcrepoOperationFailedException, IOException {
+        final File file = fileForURI(uri, null, null, config.getBaseDirectory(), config.getRdfExtension());
+        // when resuming, an existing file was left behind by a task that did not complete and is exported again
+        if (file.exists() && !config.isResume()) {
+            logger.info("Already exported {}", uri);
+            return;
+        }
 
-            if (config.isStreaming()) {
-                final StreamTripleHandler handler = getStreamTripleHandler().setResource(uri).setFile(file);
-                RDFDataMgr.parse(handler, response.getBody(), contentTypeToLang(config.getRdfLanguage()));
-            } else {
-                final String responseBody = IOUtils.toString(response.getBody(), UTF_8);
-                model = createDefaultModel().read(new ByteArrayInputStream(responseBody.getBytes()),
-                        null, config.getRdfLanguage());
-                if (!config.isIncludeBinaries() || config.retrieveInbound()) {
+        exportRdf(uri, binaryURI, file, rdfRequest(uri).perform());
+    }
 
-                    if (!config.isIncludeBinaries()) {
-                        filterBinaryReferences(uri, model);
-                    }
+    /**
+     * Export the RDF of a resource from a response that has already been requested
+     *
+     * @param uri the resource
+     * @param binaryURI the binary the resource describes, or null
+     * @param file the file to write the RDF to
+     * @param rdfResponse the response to the RDF request, which is closed by this method
+     * @throws FcrepoOperationFailedException
+     * @throws IOException
+     */
+    private void exportRdf(final URI uri, final URI binaryURI, final File file, final FcrepoResponse rdfResponse)
+            throws FcrepoOperationFailedException, IOException {
+        final ResourceMetadata metadata;
 
-                    if (config.retrieveInbound()) {
-                        final URI subject = (binaryURI != null) ? binaryURI : uri;
-                        inboundMembers = filterInboundReferences(subject, model);
-                    }
+        try (FcrepoResponse response = rdfResponse) {
+            checkValidResponse(response, uri, config.getUsername());
+            metadata = ResourceMetadata.fromResponse(uri, response);
+            interactionModels.put(metadata);
+            logger.info("Exporting rdf: {}", uri);
 
-                    try (final ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-                        RDFDataMgr.write(out, model, contentTypeToLang(config.getRdfLanguage()));
-                        writeResponse(uri, new ByteArrayInputStream(out.toByteArray()), null, file);
+            final Integer streamingThreshold = config.getStreamingThreshold();
+            if (config.isStreaming()) {
+                streamRdf(uri, binaryURI, file, metadata, response.getBody());
+            } else if (streamingThreshold == null || streamingThreshold < 1) {
+                writeRdf(uri, binaryURI, file, metadata, response.getBody());
+            } else {
+                try (final RdfBodyProbe probe = new RdfBodyProbe(response.getBody(), metadata.getContentLength(),
+                        streamingThreshold * 1024L * 1024L, RDF_SPOOL_THRESHOLD)) {
+                    if (probe.isOversized()) {
+                        logger.info("Streaming oversized rdf: {}", uri);
+                        streamRdf(uri, binaryURI, file, metadata, probe.getBody());
+                    } else {
+                        writeRdf(uri, binaryURI, file, metadata, probe.getBody());
                     }
-                } else {
-                    // we can write the body to disk unfiltered
-                    writeResponse(uri, new ByteArrayInputStream(responseBody.getBytes()), null, file);
                 }
             }
 
@@ -569,11 +1185,7 @@ public class Exporter implements TransferProcess {
             throw e;
         }
 
-        if (!config.isStreaming()) {
-            // Handled in the StreamTripleHandler for streaming
-            exportMembers(model, inboundMembers);
-        }
-        exportVersions(uri);
+        exportVersions(metadata);
     }
 
     private File getHeadersFile(final File file) {
@@ -581,82 +1193,162 @@ public class Exporter implements TransferProcess {
     }
 
     void writeHeadersFile(final FcrepoResponse response, final File file) throws IOException {
-        final Map<String, List<String>> headers = response.getHeaders();
+        writeHeadersFile(response.getHeaders(), file);
+    }
+
+    private void writeHeadersFile(final Map<String, List<String>> headers, final File file) throws IOException {
         if (!headers.isEmpty()) {
             final String json = new ObjectMapper().writeValueAsString(headers);
             final InputStream byteInputStream = new ByteArrayInputStream(json.getBytes());
-            copy(byteInputStream, file);
+            copy(byteInputStream, file, -1);
         }
     }
 
-    private Set<URI> filterInboundReferences(final URI uri, final Model model) {
-        final String withSlash = withSlash(uri).toString();
-        final String withoutSlash = withoutSlash(uri).toString();
-        final Set<URI> inboundMembers = new HashSet<>();
-        final List<Statement> removeList = new ArrayList<>();
-        for (final StmtIterator inbound = model.listStatements(); inbound.hasNext(); ) {
-            final Statement s = inbound.next();
-            final String subject = s.getSubject().toString();
-            if (!subject.equals(withSlash) && !subject.equals(withoutSlash)) {
-                removeList.add(s);
-                logger.trace("Filtering inbound reference: {}", s);
-                inboundMembers.add(URI.create(subject));
+    /**
+     * Stream the RDF of a resource through a triple handler, which writes it and exports its members as it goes
+     *
+     * @param uri the resource
+     * @param binaryURI the binary the resource describes, or null
+     * @param file the file to write the RDF to
+     * @param metadata the metadata of the resource
+     * @param body the RDF
+     */
+    private void streamRdf(final URI uri, final URI binaryURI, final File file, final ResourceMetadata metadata,
+            final InputStream body) {
+        // the triples of a binary description, and its inbound references, are about the binary
+        final StreamTripleHandler handler = newStreamTripleHandler().setResource(binaryURI != null ? binaryURI : uri)
+                .setFile(file).setIncludeContained(metadata.isTimemap());
+        RDFDataMgr.parse(handler, body, contentTypeToLang(config.getRdfLanguage()));
+    }
+
+    /**
+     * Write the RDF of a resource, filtering it when the configuration calls for it. Its members and inbound
+     * references are exported as they are found.
+     *
+     * @param uri the resource
+     * @param binaryURI the binary the resource describes, or null
+     * @param file the file to write the RDF to
+     * @param metadata the metadata of the resource
+     * @param body the RDF
+     * @throws FcrepoOperationFailedException
+     * @throws IOException
+     */
+    private void writeRdf(final URI uri, final URI binaryURI, final File file, final ResourceMetadata metadata,
+            final InputStream body) throws FcrepoOperationFailedException, IOException {
+        final RdfStreamFilter filter = new RdfStreamFilter(config.getPredicates(), metadata.isTimemap(),
+                this::export);
+        if (!config.isIncludeBinaries() || config.retrieveInbound()) {
+
+            if (!config.isIncludeBinaries()) {
+                filter.filterBinaryReferences(repositoryRoot, this::findBinaries);
             }
-        }
 
-        model.remove(removeList);
-        return inboundMembers;
-    }
+            if (config.retrieveInbound()) {
+                filter.filterInboundReferences((binaryURI != null) ? binaryURI : uri, this::export);
+            }
 
-    private void exportMembers(final Model model, final Set<URI> inboundMembers) {
-        for (final String p : config.getPredicates()) {
-            final NodeIterator members = model.listObjectsOfProperty(createProperty(p));
-            while (members.hasNext()) {
-                export(URI.create(members.nextNode().toString()));
+            writeFiltered(uri, body, filter, file);
+        } else if (contentTypeToLang(config.getRdfLanguage()) == Lang.NTRIPLES) {
+            // N-Triples has one triple per line, so the members can be found in the bytes without parsing them
+            try (final NTriplesMemberScanner scanner = new NTriplesMemberScanner(body, config.getPredicates(),
+                    metadata.isTimemap(), this::export)) {
+                writeResponse(uri, scanner, null, file);
+            }
+        } else {
+            // we can write the body to disk unfiltered, finding the members in the same bytes on the way
+            try (final RdfTee tee = new RdfTee(body, contentTypeToLang(config.getRdfLanguage()), filter,
+                    rdfParsers)) {
+                writeResponse(uri, tee, null, file);
+                tee.await();
             }
         }
+    }
 
-        if (inboundMembers != null) {
-            for (final URI inbound : inboundMembers) {
-                export(inbound);
+    /**
+     * Write the RDF of a resource through a filter, without building a model of it. The filtered RDF is written
+     * as it is parsed where the RDF language has a streaming writer, and is spooled (to a temporary file if it is
+     * large) so that it can be copied to the export like any other response body.
+     *
+     * @param uri the resource
+     * @param body the RDF of the resource
+     * @param filter the filter
+     * @param file the file to write the filtered RDF to
+     * @throws FcrepoOperationFailedException
+     * @throws IOException
+     */
+    private void writeFiltered(final URI uri, final InputStream body, final RdfStreamFilter filter, final File file)
+            throws FcrepoOperationFailedException, IOException {
+        final Lang lang = contentTypeToLang(config.getRdfLanguage());
+        final DeferredFileOutputStream spool = new DeferredFileOutputStream(RDF_SPOOL_THRESHOLD, "rdf-", ".tmp",
+                null);
+        try {
+            final Graph graph = StreamRDFWriter.registered(lang) ? null : Factory.createDefaultGraph();
+            final StreamRDF writer = graph == null ? StreamRDFWriter.getWriterStream(spool, lang) :
+                    StreamRDFLib.graph(graph);
+            writer.start();
+            try {
+                RDFDataMgr.parse(filter.setOutput(writer), body, lang);
+            } catch (final RdfStreamFilter.ReferenceLookupException e) {
+                e.rethrow();
+            }
+            filter.releaseReferences();
+            writer.finish();
+            if (graph != null) {
+                RDFDataMgr.write(spool, graph, lang);
+            }
+            spool.close();
+            try (final InputStream in = spool.isInMemory() ? new ByteArrayInputStream(spool.getData()) :
+                    Files.newInputStream(spool.getFile().toPath())) {
+                writeResponse(uri, in, null, file);
+            }
+        } finally {
+            spool.close();
+            if (!spool.isInMemory() && spool.getFile() != null) {
+                Files.deleteIfExists(spool.getFile().toPath());
             }
         }
     }
 
     /**
-     * Filter out the binary resource references from the model
-     * @param uri the URI for the resource
-     * @param model the RDF Model of the resource
-     * @return the RDF model with no binary references
+     * Find the binaries among the repository resources referenced by a resource
+     * @param references the referenced resources
+     * @return the referenced resources which are binaries
      * @throws FcrepoOperationFailedException
      * @throws IOException
      */
-    private void filterBinaryReferences(final URI uri, final Model model) throws IOException,
+    private Set<URI> findBinaries(final Collection<URI> references) throws IOException,
             FcrepoOperationFailedException {
-
-        final List<Statement> removeList = new ArrayList<>();
-        for (final StmtIterator it = model.listStatements(); it.hasNext();) {
-            final Statement s = it.nextStatement();
-
-            final RDFNode obj = s.getObject();
-            if (obj.isResource() && obj.toString().startsWith(repositoryRoot.toString())
-                    && !s.getPredicate().toString().equals(REPOSITORY_NAMESPACE + "hasTransactionProvider")) {
-                try (final FcrepoResponse resp = client().head(URI.create(obj.toString())).disableRedirects()
-                        .perform()) {
-                    checkValidResponse(resp, URI.create(obj.toString()), config.getUsername());
-                    final List<URI> linkHeaders = resp.getLinkHeaders("type");
-                    if (linkHeaders.contains(binaryURI)) {
-                        removeList.add(s);
-                    }
-                } catch (final TombstoneFoundException e) {
-                    if (!config.isSkipTombstoneErrors()) {
-                        throw e;
-                    }
+        return referenceClassifier.findBinaries(references, ref -> {
+            try {
+                return isBinary(ref);
+            } catch (final TombstoneFoundException e) {
+                if (!config.isSkipTombstoneErrors()) {
+                    throw e;
                 }
+                return false;
             }
-        }
+        });
+    }
 
-        model.remove(removeList);
+    /**
+     * Check whether a resource is a binary, using the interaction model cache when possible
+     *
+     * @param uri the resource
+     * @return true if the resource is an LDP NonRDFSource
+     * @throws FcrepoOperationFailedException
+     * @throws IOException
+     */
+    private boolean isBinary(final URI uri) throws FcrepoOperationFailedException, IOException {
+        final InteractionModelCache.InteractionModel model = interactionModels.get(uri);
+        if (model != null) {
+            return model == InteractionModelCache.InteractionModel.NON_RDF_SOURCE;
+        }
+        try (final FcrepoResponse resp = client().head(uri).disableRedirects().perform()) {
+            checkValidResponse(resp, uri, config.getUsername());
+            final ResourceMetadata metadata = ResourceMetadata.fromResponse(uri, resp);
+            interactionModels.put(metadata);
+            return metadata.isBinary();
+        }
     }
 
     /**
@@ -675,55 +1367,34 @@ public class Exporter implements TransferProcess {
     }
 
     /**
-     * Initiates export of versions for the given resource if it is a versioned resourced
-     * 
-     * @param uri resource uri
-     * @throws FcrepoOperationFailedException
-     * @throws IOException
+     * Initiates export of versions for the given resource if it is a versioned resourced. The mementos are exported
+     * as the contained resources of the timemap.
+     *
+     * @param metadata the metadata of the resource
      */
-    private void exportVersions(final URI uri) throws FcrepoOperationFailedException, IOException {
+    private void exportVersions(final ResourceMetadata metadata) {
+        final URI uri = metadata.getUri();
         // Do not check for versions if disabled, already exporting a version, or the repo root
         if (!config.includeVersions() || uri.equals(repositoryRoot)) {
             return;
         }
 
-        // Resolve the timemap endpoint for this resource
-        final URI timemapURI;
-        try (FcrepoResponse response = client().head(uri).disableRedirects().perform()) {
-            checkValidResponse(response, uri, config.getUsername());
-            if (response.getLinkHeaders("type").contains(URI.create(MEMENTO.toString()))) {
-                logger.trace("Resource {} is a memento and therefore not versioned:  ", uri);
-                return;
-            } else if (response.getLinkHeaders("type").contains(URI.create(TIMEMAP.toString()))) {
-                logger.trace("Resource {} is a timemap and therefore not versioned:  ", uri);
-                return;
-            }
+        if (metadata.isMemento()) {
+            logger.trace("Resource {} is a memento and therefore not versioned:  ", uri);
+            return;
+        } else if (metadata.isTimemap()) {
+            logger.trace("Resource {} is a timemap and therefore not versioned:  ", uri);
+            return;
+        }
 
-            timemapURI = response.getLinkHeaders("timemap").stream().findFirst().orElse(null);
-            if (timemapURI == null) {
-                logger.trace("Resource {} is not versioned:  no rel=\"timemap\" Link header present", uri);
-                return;
-            }
+        final URI timemapURI = metadata.getTimemap();
+        if (timemapURI == null) {
+            logger.trace("Resource {} is not versioned:  no rel=\"timemap\" Link header present", uri);
+            return;
         }
 
+        logger.info("Exporting versions of {}", uri);
         export(timemapURI);
-
-        try (FcrepoResponse response = client().get(timemapURI).accept(config.getRdfLanguage()).perform()) {
-           // Verify that timemapURI can be accessed, which will fail if the resource is not versioned
-            checkValidResponse(response, timemapURI, config.getUsername());
-            // Extract uris of mementos for export
-            final Model model = createDefaultModel().read(response.getBody(), null, config.getRdfLanguage());
-            final StmtIterator versionsIt = model.listStatements();
-            while (versionsIt.hasNext()) {
-                final Statement versionSt = versionsIt.next();
-                if (versionSt.getPredicate().equals(CONTAINS)) {
-                    final Resource versionResc = versionSt.getResource();
-                    exportLogger.info("Exporting version: {}", versionResc.getURI());
-                    logger.info("Exporting version {} for {}", versionResc.getURI(), uri);
-                    export(URI.create(versionResc.getURI()));
-                }
-            }
-        }
     }
 
     private URI addRelativePath(final URI uri, final String path) {
@@ -743,10 +1414,21 @@ public class Exporter implements TransferProcess {
 
     void writeResponse(final URI uri, final InputStream in, final List<URI> describedby, final File file)
             throws IOException, FcrepoOperationFailedException {
-        if (!file.getParentFile().exists()) {
+        writeResponse(uri, in, describedby, file, -1);
+    }
+
+    void writeResponse(final URI uri, final InputStream in, final List<URI> describedby, final File file,
+            final long contentLength) throws IOException, FcrepoOperationFailedException {
+        writeResponse(uri, in, describedby, file, contentLength, null);
+    }
+
+    void writeResponse(final URI uri, final InputStream in, final List<URI> describedby, final File file,
+            final long contentLength, final PartialDownload download) throws IOException,
+            FcrepoOperationFailedException {
+        if (archive == null && !file.getParentFile().exists()) {
             file.getParentFile().mkdirs();
         }
-        copy(in, file);
+        copy(in, file, contentLength, download);
         logger.info("Exported {} to {}", uri, file.getAbsolutePath());
 
         if (describedby != null) {
@@ -760,70 +1442,210 @@ public class Exporter implements TransferProcess {
      * Copy bytes and generate checksums
      * @param in Source data
      * @param file destination
+     * @param contentLength the expected number of bytes, or -1 if it is unknown
      * @throws IOException If an I/O error occurs
      */
-    private void copy(final InputStream in, final File file) throws IOException {
-        final MessageDigest md5 = md5FileMap == null ? null : BagItDigest.MD5.messageDigest();
-        final MessageDigest sha1 = sha1FileMap == null ? null : BagItDigest.SHA1.messageDigest();
-        final MessageDigest sha256 = sha256FileMap == null ? null : BagItDigest.SHA256.messageDigest();
-        final MessageDigest sha512 = sha512FileMap == null ? null : BagItDigest.SHA512.messageDigest();
-
-        final InputStream wrappedStream = wrap(wrap(wrap(wrap(in, md5), sha1), sha256), sha512);
+    private void copy(final InputStream in, final File file, final long contentLength) throws IOException {
+        copy(in, file, contentLength, null);
+    }
 
-        try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
-            final int bytes = IOUtils.copy(wrappedStream, out);
+    /**
+     * Copy bytes and generate checksums, tracking the progress of a binary download so that it can be resumed if
+     * the copy fails
+     * @param in Source data
+     * @param file destination
+     * @param contentLength the expected number of bytes of the whole file, or -1 if it is unknown
+     * @param download the download to track, or null; if it has an offset, in holds the rest of the content
+     * @throws IOException If an I/O error occurs
+     */
+    private void copy(final InputStream in, final File file, final long contentLength,
+            final PartialDownload download) throws IOException {
+        final MessageDigest md5 = messageDigest(BagItDigest.MD5);
+        final MessageDigest sha1 = messageDigest(BagItDigest.SHA1);
+        final MessageDigest sha256 = messageDigest(BagItDigest.SHA256);
+        final MessageDigest sha512 = messageDigest(BagItDigest.SHA512);
+        final List<MessageDigest> digests = digests(md5, sha1, sha256, sha512);
+
+        if (archive != null) {
+            final long bytes = archive.add(file, contentLength, out -> digestEngine.copy(in, out, digests));
             successBytes.addAndGet(bytes);
-            if (md5FileMap != null) {
-                md5FileMap.put(file, Hex.encodeHexString(md5.digest()));
-            }
-            if (sha1FileMap != null) {
-                sha1FileMap.put(file, Hex.encodeHexString(sha1.digest()));
-            }
-            if (sha256FileMap != null) {
-                sha256FileMap.put(file, Hex.encodeHexString(sha256.digest()));
+            recordDigests(file, bytes, md5, sha1, sha256, sha512);
+            return;
+        }
+
+        // the digests of a resumed download start from the bytes written by the interrupted one
+        final long offset = download == null ? 0 : download.getOffset();
+        if (offset > 0 && !digests.isEmpty()) {
+            try (final InputStream written = new BoundedInputStream(Files.newInputStream(file.toPath()), offset)) {
+                digestEngine.digest(written, digests);
             }
-            if (sha512FileMap != null) {
-                sha512FileMap.put(file, Hex.encodeHexString(sha512.digest()));
+        }
+
+        try (final BinarySink out = new BinarySink(file, download, config.isDirectBuffers())) {
+            final long bytes;
+            try {
+                bytes = digestEngine.copy(in, out, digests);
+                if (download != null && contentLength >= 0 && offset + bytes < contentLength) {
+                    throw new IOException("Content of " + file + " ended after " + (offset + bytes) + " of " +
+                            contentLength + " bytes");
+                }
+            } catch (final IOException e) {
+                if (download != null) {
+                    try {
+                        out.checkpoint();
+                    } catch (final IOException checkpointFailure) {
+                        e.addSuppressed(checkpointFailure);
+                    }
+                }
+                throw e;
             }
+            successBytes.addAndGet(offset + bytes);
+            recordDigests(file, offset + bytes, md5, sha1, sha256, sha512);
+        }
+        if (download != null) {
+            download.complete();
         }
     }
 
     /**
-     * Generates checksums and byte counts for a file
-     * @param file the file to generate checksums for
+     * @return a new digest for the algorithm if it is used by the bag manifests, otherwise null
      */
-    protected void generateChecksums(final File file) {
-        final MessageDigest md5 = md5FileMap == null ? null : BagItDigest.MD5.messageDigest();
-        final MessageDigest sha1 = sha1FileMap == null ? null : BagItDigest.SHA1.messageDigest();
-        final MessageDigest sha256 = sha256FileMap == null ? null : BagItDigest.SHA256.messageDigest();
-        final MessageDigest sha512 = sha512FileMap == null ? null : BagItDigest.SHA512.messageDigest();
-        final byte[] buffer = new byte[8192];
+    private MessageDigest messageDigest(final BagItDigest algorithm) {
+        return manifests != null && manifests.getAlgorithms().contains(algorithm) ? algorithm.messageDigest() : null;
+    }
 
-        try (final InputStream in = Files.newInputStream(file.toPath())) {
-            final InputStream wrappedStream = wrap(wrap(wrap(wrap(in, md5), sha1), sha256), sha512);
-            int bytesRead;
-            while ((bytesRead = wrappedStream.read(buffer)) != -1) {
-                // Read the entire stream to generate checksums
-                successBytes.addAndGet(bytesRead);
-            }
-            if (md5FileMap != null) {
-                md5FileMap.put(file, Hex.encodeHexString(md5.digest()));
+    /**
+     * Register the digests of an exported file for the bag manifests and record the file in the journal
+     */
+    private void recordDigests(final File file, final long bytes, final MessageDigest md5, final MessageDigest sha1,
+            final MessageDigest sha256, final MessageDigest sha512) throws IOException {
+        final Map<String, String> digests = new HashMap<>();
+        putDigest(digests, BagItDigest.MD5, md5);
+        putDigest(digests, BagItDigest.SHA1, sha1);
+        putDigest(digests, BagItDigest.SHA256, sha256);
+        putDigest(digests, BagItDigest.SHA512, sha512);
+        recordDigests(file, bytes, digests);
+    }
+
+    /**
+     * Register the digests of an exported file, by BagIt algorithm name, for the bag manifests and record the file
+     * in the journal
+     */
+    private void recordDigests(final File file, final long bytes, final Map<String, String> digests)
+            throws IOException {
+        if (manifests != null) {
+            manifests.add(file, digests);
+        }
+        if (journal != null) {
+            journal.fileWritten(file, bytes, digests);
+        }
+    }
+
+    private static void putDigest(final Map<String, String> digests, final BagItDigest algorithm,
+            final MessageDigest digest) {
+        if (digest != null) {
+            digests.put(algorithm.bagitName(), Hex.encodeHexString(digest.digest()));
+        }
+    }
+
+    /**
+     * @param file an exported file
+     * @return the file to write it to: the file itself, or a temporary file when exporting to an archive
+     * @throws IOException if the temporary file cannot be created
+     */
+    File stagingFile(final File file) throws IOException {
+        return archive == null ? file : File.createTempFile("export-", ".tmp");
+    }
+
+    /**
+     * Wrap the stream an exported file is written to, so that its bag digests and byte count are computed as it is
+     * written
+     *
+     * @param out the stream writing the {@link #stagingFile(File) staging file} of an exported file
+     * @return the wrapped stream, to pass to {@link #fileWritten(File, File, DigestingOutputStream)}
+     */
+    DigestingOutputStream digestingStream(final OutputStream out) {
+        final Map<String, MessageDigest> digests = new HashMap<>();
+        for (final BagItDigest algorithm : new BagItDigest[]{BagItDigest.MD5, BagItDigest.SHA1, BagItDigest.SHA256,
+                BagItDigest.SHA512}) {
+            final MessageDigest digest = messageDigest(algorithm);
+            if (digest != null) {
+                digests.put(algorithm.bagitName(), digest);
             }
-            if (sha1FileMap != null) {
-                sha1FileMap.put(file, Hex.encodeHexString(sha1.digest()));
+        }
+        return new DigestingOutputStream(out, digests);
+    }
+
+    /**
+     * Register an exported file once it has been written to its {@link #stagingFile(File) staging file}: record
+     * its checksums and, when exporting to an archive, add it to the archive
+     *
+     * @param file the exported file
+     * @param staged the file it was written to
+     * @param written the {@link #digestingStream(OutputStream) digesting stream} it was written through, or null if
+     *        its checksums have to be generated by reading it
+     */
+    void fileWritten(final File file, final File staged, final DigestingOutputStream written) {
+        if (staged.equals(file)) {
+            if (written == null) {
+                generateChecksums(file);
+                return;
             }
-            if (sha256FileMap != null) {
-                sha256FileMap.put(file, Hex.encodeHexString(sha256.digest()));
+            try {
+                successBytes.addAndGet(written.getByteCount());
+                recordDigests(file, written.getByteCount(), written.getDigests());
+            } catch (final IOException e) {
+                logger.error("Error recording checksums for file: {}", file, e);
             }
-            if (sha512FileMap != null) {
-                sha512FileMap.put(file, Hex.encodeHexString(sha512.digest()));
+            return;
+        }
+        try (final InputStream in = Files.newInputStream(staged.toPath())) {
+            copy(in, file, staged.length());
+        } catch (final IOException e) {
+            logger.error("Error adding file to the archive: {}", file, e);
+        } finally {
+            try {
+                Files.deleteIfExists(staged.toPath());
+            } catch (final IOException e) {
+                logger.warn("Unable to delete temporary file {}: {}", staged, e.getMessage());
             }
+        }
+    }
+
+    /**
+     * Generates checksums and byte counts for a file produced without a digesting stream, by reading it back
+     * @param file the file to generate checksums for
+     */
+    protected void generateChecksums(final File file) {
+        try {
+            digestFile(file);
         } catch (IOException e) {
             logger.error("Error generating checksums for file: {}", file, e);
         }
     }
 
+    /**
+     * Read a file that has already been written to count its bytes and compute its digests
+     * @param file the file
+     * @throws IOException if the file cannot be read
+     */
+    private void digestFile(final File file) throws IOException {
+        final MessageDigest md5 = messageDigest(BagItDigest.MD5);
+        final MessageDigest sha1 = messageDigest(BagItDigest.SHA1);
+        final MessageDigest sha256 = messageDigest(BagItDigest.SHA256);
+        final MessageDigest sha512 = messageDigest(BagItDigest.SHA512);
+
+        try (final InputStream in = Files.newInputStream(file.toPath())) {
+            final long bytes = digestEngine.digest(in, digests(md5, sha1, sha256, sha512));
+            successBytes.addAndGet(bytes);
+            recordDigests(file, bytes, md5, sha1, sha256, sha512);
+        }
+    }
+
     private void incrementSuccessCount() {
+        if (journal != null) {
+            journal.exported();
+        }
         if (successCount.incrementAndGet() % REPORTING_INTERVAL == 0) {
             final long bytes = successBytes.get();
             final long count = successCount.get();
@@ -831,44 +1653,101 @@ public class Exporter implements TransferProcess {
             final long rate = bytes / Math.max(duration.toMillis() / 1000, 1);
 
             logger.info("Progress report: Exported {} resources in {} at {} bytes/sec", count, duration, rate);
+            logPoolStats();
         }
     }
 
-    private InputStream wrap(final InputStream in, final MessageDigest digest) {
-        if (digest != null) {
-            return new DigestInputStream(in, digest);
+    private static List<MessageDigest> digests(final MessageDigest... digests) {
+        final List<MessageDigest> list = new ArrayList<>(digests.length);
+        for (final MessageDigest digest : digests) {
+            if (digest != null) {
+                list.add(digest);
+            }
         }
-        return in;
+        return list;
     }
 
     private class TaskManager {
 
         private final ExecutorService executorService;
-        private final AtomicLong count;
-        private final Object lock;
-        private boolean shutdown = false;
+        private final ExportFrontier frontier;
+        private final int maxInFlight;
+        private final AtomicInteger inFlight;
+        private final ThreadPoolExecutor binaryExecutor;
+        private final AtomicInteger binaryPending;
+        private final AtomicLong binarySequence;
+        private final int binaryCapacity;
+        private final Comparator<BinaryTask> binaryOrder;
+        private final ExecutorService subtaskExecutor;
+        private final Semaphore subtaskPermits;
+        private volatile Thread waiter;
+        private volatile boolean shutdown = false;
 
         /**
-         * Creates a new task manager that uses the specified number of threads
+         * Creates a new task manager that uses the configured number of platform threads, or a virtual thread per
+         * resource
          *
-         * @param threadCount the number of threads to use, may be null to use default
+         * @param config the configuration holding the thread count, execution mode and frontier size
          */
-        public TaskManager(final Integer threadCount) {
-            final int threads = Math.max(threadCount == null
-                    ? Runtime.getRuntime().availableProcessors() - 1 : threadCount, 1);
-
-            logger.info("Using {} threads to export resources", threads);
-
-            this.executorService = new ThreadPoolExecutor(threads, threads,
-                    0L, TimeUnit.MILLISECONDS,
-                    new LinkedBlockingQueue<>()) {
-                @Override
-                protected <T> RunnableFuture<T> newTaskFor(final Callable<T> callable) {
-                    return new FutureTaskWithCallable<>(callable);
+        public TaskManager(final Config config) {
+            final ExecutorService virtual = config.isVirtualThreads() ? virtualThreadExecutor() : null;
+            if (virtual != null) {
+                // a virtual thread is started for every task and subtask, so the number of tasks in flight and
+                // the subtask permits are the only bounds on concurrency and on the HTTP requests sent
+                this.maxInFlight = config.getMaxRequests() == null ? DEFAULT_MAX_REQUESTS : config.getMaxRequests();
+                this.executorService = virtual;
+                this.subtaskExecutor = virtualThreadExecutor();
+                this.subtaskPermits = new Semaphore(maxInFlight);
+                logger.info("Using virtual threads to export up to {} resources concurrently", maxInFlight);
+            } else {
+                if (config.isVirtualThreads()) {
+                    logger.warn("Virtual threads are not supported by this Java runtime, using platform threads");
                 }
-            };
-            this.count = new AtomicLong(0);
-            this.lock = new Object();
+                final Integer threadCount = config.getThreadCount();
+                final int threads = Math.max(threadCount == null
+                        ? Runtime.getRuntime().availableProcessors() - 1 : threadCount, 1);
+
+                logger.info("Using {} threads to export resources", threads);
+
+                // resources wait in the frontier rather than in the executor's queue, which never holds more than
+                // one task per thread
+                this.maxInFlight = threads * 2;
+                this.executorService = new ThreadPoolExecutor(threads, threads,
+                        0L, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>()) {
+                    @Override
+                    protected <T> RunnableFuture<T> newTaskFor(final Callable<T> callable) {
+                        return new FutureTaskWithCallable<>(callable);
+                    }
+                };
+                // subtasks never wait on export tasks, so a pool of their own can't deadlock with them
+                final Integer binaryThreads = config.getBinaryThreads();
+                final int subtaskThreads = threads + (binaryThreads == null ? 0 : Math.max(binaryThreads, 0));
+                final ThreadPoolExecutor subtaskPool = new ThreadPoolExecutor(subtaskThreads, subtaskThreads,
+                        30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+                subtaskPool.allowCoreThreadTimeOut(true);
+                this.subtaskExecutor = subtaskPool;
+                this.subtaskPermits = null;
+            }
+            this.frontier = new ExportFrontier(config.getFrontierSize());
+            this.inFlight = new AtomicInteger(0);
+
+            // binaries get a lane of their own, in which they wait ordered by size instead of holding up RDF
+            this.binaryPending = new AtomicInteger(0);
+            this.binarySequence = new AtomicLong(0);
+            final Integer frontierSize = config.getFrontierSize();
+            this.binaryCapacity = frontierSize == null || frontierSize < 1 ? ExportFrontier.DEFAULT_SIZE :
+                    frontierSize;
+            this.binaryOrder = binaryOrder(config.getBinaryOrder());
+            final Integer binaryThreads = config.getBinaryThreads();
+            if (binaryThreads != null && binaryThreads > 0 && config.isIncludeBinaries()) {
+                logger.info("Using {} threads to export binaries, {}", binaryThreads, config.getBinaryOrder());
+                this.binaryExecutor = new ThreadPoolExecutor(binaryThreads, binaryThreads,
+                        0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(11, (a, b) ->
+                                binaryOrder.compare((BinaryTask) a, (BinaryTask) b)));
+            } else {
+                this.binaryExecutor = null;
+            }
 
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 if (!shutdown) {
@@ -884,54 +1763,201 @@ public class Exporter implements TransferProcess {
          * @param uri the uri of the resource to export
          */
         public void submit(final URI uri) {
+            if (shutdown) {
+                remainingLogger.error("{}", uri);
+                return;
+            }
             try {
-                executorService.submit(new ExportTask(uri, () -> {
-                    try {
-                        Exporter.this.doExport(uri);
-                    } catch (Exception e) {
-                        remainingLogger.error("{}", uri);
-
-                        if (e instanceof FcrepoOperationFailedException) {
-                            logger.warn("Error retrieving content: {}", e.toString());
-                            exportLogger.error(String.format("Error retrieving context of uri: %1$s, Message: %2$s",
-                                    uri, e), e);
-                        } else if (e instanceof IOException) {
-                            logger.warn("Error writing content: {}", e.toString());
-                            exportLogger.error(String.format("Error writing content from uri: %1$s, Message: %2$s",
-                                    uri, e), e);
-                        } else {
-                            logger.warn("Error exporting content: {}", e.toString());
-                            exportLogger.error(String.format("Error exporting content from uri: %1$s, Message: %2$s",
-                                    uri, e), e);
-                        }
-                    } finally {
-                        count.decrementAndGet();
-                        synchronized (lock) {
-                            lock.notifyAll();
-                        }
-                    }
-                }));
-            } catch (RejectedExecutionException e) {
+                frontier.add(uri);
+            } catch (IOException e) {
+                logger.warn("Unable to queue {}: {}", uri, e.toString());
                 remainingLogger.error("{}", uri);
+                return;
             }
+            dispatch();
+        }
 
-            count.incrementAndGet();
+        /**
+         * Hands a binary over to the binary lane, if there is one and it has room
+         *
+         * @param metadata the metadata of the binary
+         * @return true if the binary lane will export the binary, false if the caller should do it
+         */
+        public boolean submitBinary(final ResourceMetadata metadata) {
+            if (binaryExecutor == null || shutdown) {
+                return false;
+            }
+            // the lane holds the binaries' metadata on the heap, so beyond its capacity the caller exports inline
+            if (binaryPending.incrementAndGet() > binaryCapacity) {
+                binaryPending.decrementAndGet();
+                return false;
+            }
+            final ExportJournal.Record record = journal == null ? null : journal.current();
+            try {
+                binaryExecutor.execute(new BinaryTask(metadata, record, binarySequence.getAndIncrement()));
+            } catch (RejectedExecutionException e) {
+                binaryPending.decrementAndGet();
+                return false;
+            }
+            if (record != null) {
+                record.handOff();
+            }
+            return true;
         }
 
         /**
-         * Waits for all resources to be exported
+         * Runs part of an export task concurrently with the rest of it. The caller must join the subtask before
+         * the task completes.
          *
-         * @throws InterruptedException
+         * @param subtask the subtask
+         * @return the result of the subtask
          */
-        public void awaitCompletion() throws InterruptedException {
-            if (count.get() == 0) {
-                return;
+        public Future<Void> fork(final Callable<Void> subtask) {
+            final Callable<Void> bounded = subtaskPermits == null ? subtask : () -> {
+                // subtasks never fork, so waiting for a permit can't deadlock with the tasks that hold one
+                subtaskPermits.acquire();
+                try {
+                    return subtask.call();
+                } finally {
+                    subtaskPermits.release();
+                }
+            };
+            if (journal == null) {
+                return subtaskExecutor.submit(bounded);
             }
+            final ExportJournal.Record record = journal.current();
+            return subtaskExecutor.submit(() -> journal.within(record, bounded));
+        }
 
-            synchronized (lock) {
-                while (count.get() > 0) {
-                    lock.wait();
+        /**
+         * Moves resources from the frontier to the executor until the maximum number of tasks are in flight or the
+         * frontier is empty
+         */
+        private void dispatch() {
+            while (!shutdown) {
+                final int current = inFlight.get();
+                if (current >= maxInFlight) {
+                    return;
+                }
+                if (!inFlight.compareAndSet(current, current + 1)) {
+                    continue;
+                }
+                final URI uri;
+                try {
+                    uri = frontier.poll();
+                } catch (IOException e) {
+                    logger.error("Error reading queued resources: {}", e.toString());
+                    inFlight.decrementAndGet();
+                    continue;
                 }
+                if (uri == null) {
+                    inFlight.decrementAndGet();
+                    // another thread may have queued a resource while this one held the last slot
+                    if (frontier.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    executorService.submit(new ExportTask(uri, () -> execute(uri)));
+                } catch (RejectedExecutionException e) {
+                    inFlight.decrementAndGet();
+                    remainingLogger.error("{}", uri);
+                }
+            }
+        }
+
+        private void execute(final URI uri) {
+            final ExportJournal.Record record = journal == null ? null : journal.begin(uri);
+            try {
+                Exporter.this.doExport(uri);
+                // a binary handed over to the binary lane is only complete once the lane has exported it
+                if (record != null && !record.isHandedOff()) {
+                    journal.complete(record);
+                }
+            } catch (Exception e) {
+                logFailure(uri, e);
+            } finally {
+                if (journal != null) {
+                    journal.end();
+                }
+                // the resources found by this task are already in the frontier, so the export can only be
+                // complete once no task is in flight and the frontier is empty
+                inFlight.decrementAndGet();
+                dispatch();
+                signalIfComplete();
+            }
+        }
+
+        private void executeBinary(final ResourceMetadata metadata, final ExportJournal.Record record) {
+            try {
+                if (record == null) {
+                    Exporter.this.exportQueuedBinary(metadata);
+                } else {
+                    journal.within(record, () -> {
+                        Exporter.this.exportQueuedBinary(metadata);
+                        return null;
+                    });
+                    journal.complete(record);
+                }
+            } catch (Exception e) {
+                logFailure(metadata.getUri(), e);
+            } finally {
+                binaryPending.decrementAndGet();
+                signalIfComplete();
+            }
+        }
+
+        private void logFailure(final URI uri, final Exception e) {
+            remainingLogger.error("{}", uri);
+
+            if (e instanceof FcrepoOperationFailedException) {
+                logger.warn("Error retrieving content: {}", e.toString());
+                exportLogger.error(String.format("Error retrieving context of uri: %1$s, Message: %2$s",
+                        uri, e), e);
+            } else if (e instanceof IOException) {
+                logger.warn("Error writing content: {}", e.toString());
+                exportLogger.error(String.format("Error writing content from uri: %1$s, Message: %2$s",
+                        uri, e), e);
+            } else {
+                logger.warn("Error exporting content: {}", e.toString());
+                exportLogger.error(String.format("Error exporting content from uri: %1$s, Message: %2$s",
+                        uri, e), e);
+            }
+        }
+
+        private void signalIfComplete() {
+            if (isComplete()) {
+                final Thread thread = waiter;
+                if (thread != null) {
+                    LockSupport.unpark(thread);
+                }
+            }
+        }
+
+        private boolean isComplete() {
+            return inFlight.get() == 0 && binaryPending.get() == 0 && frontier.isEmpty();
+        }
+
+        /**
+         * Waits for all resources to be exported. Only one thread may wait at a time.
+         *
+         * @throws InterruptedException
+         */
+        public void awaitCompletion() throws InterruptedException {
+            waiter = Thread.currentThread();
+            try {
+                while (!isComplete()) {
+                    LockSupport.park(this);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            } finally {
+                waiter = null;
+            }
+            if (frontier.getSpilled() > 0) {
+                logger.info("{} queued resources were spilled to disk", frontier.getSpilled());
             }
         }
 
@@ -946,14 +1972,22 @@ public class Exporter implements TransferProcess {
                 try {
                     final List<Runnable> remaining = executorService.shutdownNow();
                     logRemainingTasks(remaining);
+                    if (binaryExecutor != null) {
+                        logRemainingTasks(binaryExecutor.shutdownNow());
+                    }
+                    subtaskExecutor.shutdownNow();
+                    frontier.drain(uri -> remainingLogger.error("{}", uri));
                     logger.info("Waiting for inflight tasks to complete...");
-                    if (!executorService.awaitTermination(5, TimeUnit.MINUTES)) {
+                    if (!executorService.awaitTermination(5, TimeUnit.MINUTES) || (binaryExecutor != null &&
+                            !binaryExecutor.awaitTermination(5, TimeUnit.MINUTES))) {
                         logger.warn("Failed to shutdown executor service cleanly after 5 minutes of waiting");
                     }
                 } catch (InterruptedException e) {
                     logger.warn("Failed to shutdown executor service cleanly");
                     Thread.currentThread().interrupt();
                     throw new RuntimeException(e);
+                } finally {
+                    frontier.close();
                 }
             }
         }
@@ -965,6 +1999,10 @@ public class Exporter implements TransferProcess {
         private void logRemainingTasks(final List<Runnable> remaining) {
             remaining.forEach(task -> {
                 try {
+                    if (task instanceof BinaryTask) {
+                        remainingLogger.error("{}", ((BinaryTask) task).metadata.getUri());
+                        return;
+                    }
                     final ExportTask callable = (ExportTask) ((FutureTaskWithCallable<Void>) task).callable;
                     remainingLogger.error("{}", callable.uri);
                 } catch (Exception e) {
@@ -974,6 +2012,46 @@ public class Exporter implements TransferProcess {
         }
     }
 
+    /**
+     * Compares waiting binaries according to the configured order, falling back to the order they were found in
+     *
+     * @param order the configured order
+     * @return the comparator
+     */
+    private static Comparator<BinaryTask> binaryOrder(final BinaryOrder order) {
+        final Comparator<BinaryTask> fifo = Comparator.comparingLong(task -> task.sequence);
+        // binaries of unknown size go last in either direction
+        final Comparator<BinaryTask> unknownLast = Comparator.comparing(task -> task.metadata.getContentLength() < 0);
+        final Comparator<BinaryTask> bySize = Comparator.comparingLong(task -> task.metadata.getContentLength());
+        if (order == null) {
+            return fifo;
+        }
+        switch (order) {
+            case SMALLEST_FIRST:
+                return unknownLast.thenComparing(bySize).thenComparing(fifo);
+            case LARGEST_FIRST:
+                return unknownLast.thenComparing(bySize.reversed()).thenComparing(fifo);
+            default:
+                return fifo;
+        }
+    }
+
+    /**
+     * Create an executor that starts a new virtual thread for each task. Virtual threads are looked up reflectively
+     * so that the exporter still runs on Java 8.
+     *
+     * @return the executor, or null if the Java runtime does not support virtual threads
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            final Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Unable to create a virtual thread executor: {}", e.toString());
+            return null;
+        }
+    }
+
     /**
      * FutureTask extension that supports accessing the wrapped Callable
      */
@@ -1003,4 +2081,24 @@ public class Exporter implements TransferProcess {
             return null;
         }
     }
+
+    /**
+     * Exports a binary in the binary lane
+     */
+    private class BinaryTask implements Runnable {
+        private final ResourceMetadata metadata;
+        private final ExportJournal.Record record;
+        private final long sequence;
+
+        private BinaryTask(final ResourceMetadata metadata, final ExportJournal.Record record, final long sequence) {
+            this.metadata = metadata;
+            this.record = record;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            taskManager.executeBinary(metadata, record);
+        }
+    }
 }
@@ -0,0 +1,249 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+
+/**
+ * A bounded, thread-safe cache of the interaction models of repository resources, so that resources referenced
+ * from many others (shared collections, ACLs, parents) are only classified once per run. The cache is split into
+ * independently locked segments, each evicting its least recently used entries, and can be saved to a file and
+ * reloaded by a later run.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class InteractionModelCache {
+
+    private static final Logger logger = getLogger(InteractionModelCache.class);
+
+    public static final int DEFAULT_SIZE = 100_000;
+
+    private static final int SEGMENTS = 16;
+
+    /**
+     * The interaction model of a resource, as far as the export is concerned
+     */
+    public enum InteractionModel {
+        NON_RDF_SOURCE('B'), RDF_SOURCE('R'), OTHER('O');
+
+        private final char code;
+
+        InteractionModel(final char code) {
+            this.code = code;
+        }
+
+        /**
+         * @param metadata the metadata of a resource
+         * @return the interaction model of the resource
+         */
+        public static InteractionModel of(final ResourceMetadata metadata) {
+            if (metadata.isBinary()) {
+                return NON_RDF_SOURCE;
+            }
+            return metadata.isRdf() ? RDF_SOURCE : OTHER;
+        }
+
+        private static InteractionModel fromCode(final char code) {
+            for (final InteractionModel model : values()) {
+                if (model.code == code) {
+                    return model;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final List<Map<String, InteractionModel>> segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor
+     *
+     * @param maxSize the maximum number of entries to keep, or null for the default
+     */
+    public InteractionModelCache(final Integer maxSize) {
+        final int size = maxSize == null || maxSize < 1 ? DEFAULT_SIZE : maxSize;
+        final int segmentSize = Math.max(1, size / SEGMENTS);
+        segments = new ArrayList<>(SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments.add(new LinkedHashMap<String, InteractionModel>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, InteractionModel> eldest) {
+                    return size() > segmentSize;
+                }
+            });
+        }
+    }
+
+    /**
+     * Look up the interaction model of a resource, counting the hit or miss
+     *
+     * @param uri the resource
+     * @return the interaction model, or null if it is not cached
+     */
+    public InteractionModel get(final URI uri) {
+        final String key = key(uri);
+        final Map<String, InteractionModel> segment = segment(key);
+        final InteractionModel model;
+        synchronized (segment) {
+            model = segment.get(key);
+        }
+        if (model == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return model;
+    }
+
+    /**
+     * Record the interaction model of a resource
+     *
+     * @param uri the resource
+     * @param model its interaction model
+     */
+    public void put(final URI uri, final InteractionModel model) {
+        final String key = key(uri);
+        final Map<String, InteractionModel> segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, model);
+        }
+    }
+
+    /**
+     * Record the interaction model of a resource from its metadata
+     *
+     * @param metadata the metadata of the resource
+     */
+    public void put(final ResourceMetadata metadata) {
+        put(metadata.getUri(), InteractionModel.of(metadata));
+    }
+
+    /**
+     * @return the number of cached entries
+     */
+    public int size() {
+        int size = 0;
+        for (final Map<String, InteractionModel> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of lookups that found an entry
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that did not find an entry
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Load entries saved by a previous run. A missing file is ignored.
+     *
+     * @param file the file to load
+     * @throws IOException if the file cannot be read
+     */
+    public void load(final Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        int count = 0;
+        try (final BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final InteractionModel model = line.length() > 2 ? InteractionModel.fromCode(line.charAt(0)) : null;
+                if (model == null || line.charAt(1) != ' ') {
+                    logger.warn("Ignoring invalid interaction model cache entry: {}", line);
+                    continue;
+                }
+                put(URI.create(line.substring(2)), model);
+                count++;
+            }
+        }
+        logger.info("Loaded {} interaction models from {}", count, file);
+    }
+
+    /**
+     * Save the cached entries so that they can be loaded by a later run
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(final Path file) throws IOException {
+        final Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (final BufferedWriter writer = Files.newBufferedWriter(temp, UTF_8)) {
+            for (final Map<String, InteractionModel> segment : segments) {
+                final List<Map.Entry<String, InteractionModel>> entries;
+                synchronized (segment) {
+                    entries = new ArrayList<>(segment.entrySet());
+                }
+                for (final Map.Entry<String, InteractionModel> entry : entries) {
+                    writer.write(entry.getValue().code);
+                    writer.write(' ');
+                    writer.write(entry.getKey());
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move(temp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    @Override
+    public String toString() {
+        return "[size: " + size() + "; hits: " + getHits() + "; misses: " + getMisses() + "]";
+    }
+
+    private Map<String, InteractionModel> segment(final String key) {
+        return segments.get((key.hashCode() & Integer.MAX_VALUE) % SEGMENTS);
+    }
+
+    private static String key(final URI uri) {
+        final String key = uri.toString();
+        return key.endsWith("/") ? key.substring(0, key.length() - 1) : key;
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.codec.binary.Hex;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.BagWriter;
+import org.slf4j.Logger;
+
+/**
+ * A thread-safe accumulator of the payload manifests of a bag. The digest of each payload file is appended to a
+ * temporary file per algorithm as soon as the file is written, rather than held on the heap until the export
+ * finishes. When the bag is written, each temporary file is sorted by path with an external merge sort (sorted runs
+ * of a fixed number of entries, merged at most {@value #MERGE_WIDTH} at a time) into the final manifest, so the
+ * memory needed does not depend on the number of files in the bag. If a file is recorded more than once, the last
+ * digest recorded for it is kept.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ManifestAccumulator implements Closeable {
+
+    private static final Logger logger = getLogger(ManifestAccumulator.class);
+
+    public static final int DEFAULT_RUN_SIZE = 100_000;
+
+    static final int MERGE_WIDTH = 64;
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparing((final Entry e) -> e.path).thenComparingLong(e -> e.sequence);
+
+    private final Path bagDir;
+    private final Set<BagItDigest> algorithms;
+    private final int runSize;
+    private final Map<BagItDigest, Writer> writers = new EnumMap<>(BagItDigest.class);
+    private final Map<BagItDigest, Path> unsorted = new EnumMap<>(BagItDigest.class);
+
+    private Path directory;
+    private long sequence = 0;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param bagDir the root directory of the bag
+     * @param algorithms the payload manifest algorithms
+     */
+    public ManifestAccumulator(final File bagDir, final Set<BagItDigest> algorithms) {
+        this(bagDir, algorithms, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param bagDir the root directory of the bag
+     * @param algorithms the payload manifest algorithms
+     * @param runSize the number of entries to sort in memory at a time, or null for the default
+     */
+    public ManifestAccumulator(final File bagDir, final Set<BagItDigest> algorithms, final Integer runSize) {
+        this.bagDir = bagDir.getAbsoluteFile().toPath();
+        this.algorithms = Collections.unmodifiableSet(algorithms);
+        this.runSize = runSize == null || runSize < 1 ? DEFAULT_RUN_SIZE : runSize;
+    }
+
+    /**
+     * @return the payload manifest algorithms
+     */
+    public Set<BagItDigest> getAlgorithms() {
+        return algorithms;
+    }
+
+    /**
+     * @return the number of entries recorded for each algorithm, including repeated entries for the same file
+     */
+    public synchronized long size() {
+        return sequence;
+    }
+
+    /**
+     * Record the digests of a payload file
+     *
+     * @param file the payload file
+     * @param digests the hex-encoded digests of the file, keyed by BagIt algorithm name
+     * @throws IOException if the entries cannot be written
+     */
+    public synchronized void add(final File file, final Map<String, String> digests) throws IOException {
+        final String path = relativePath(file);
+        for (final BagItDigest algorithm : algorithms) {
+            final String digest = digests.get(algorithm.bagitName());
+            if (digest == null) {
+                throw new IllegalArgumentException("Missing " + algorithm.bagitName() + " digest of " + file);
+            }
+            writeEntry(writer(algorithm), new Entry(digest, sequence, path));
+        }
+        sequence++;
+    }
+
+    /**
+     * Record a single digest of a payload file, such as one restored from a previous run
+     *
+     * @param algorithm the algorithm of the digest
+     * @param file the payload file
+     * @param digest the hex-encoded digest
+     * @throws IOException if the entry cannot be written
+     */
+    public synchronized void add(final BagItDigest algorithm, final File file, final String digest)
+            throws IOException {
+        add(algorithm, relativePath(file), digest);
+    }
+
+    /**
+     * Record a single digest of a path as it appears in a manifest
+     *
+     * @param algorithm the algorithm of the digest
+     * @param path the path relative to the bag, with line breaks encoded
+     * @param digest the hex-encoded digest
+     * @throws IOException if the entry cannot be written
+     */
+    synchronized void add(final BagItDigest algorithm, final String path, final String digest) throws IOException {
+        if (algorithms.contains(algorithm)) {
+            writeEntry(writer(algorithm), new Entry(digest, sequence++, path));
+        }
+    }
+
+    /**
+     * Sort the entries recorded for an algorithm into a manifest file of their own, outside of a bag
+     *
+     * @param algorithm the algorithm
+     * @param manifest the file to write the sorted manifest to
+     * @throws IOException if the manifest cannot be written
+     */
+    synchronized void writeManifest(final BagItDigest algorithm, final Path manifest) throws IOException {
+        if (closed) {
+            throw new IOException("Manifest accumulator is closed");
+        }
+        try (final Writer out = Files.newBufferedWriter(manifest, UTF_8)) {
+            writeManifest(algorithm, out);
+        }
+    }
+
+    /**
+     * Write the sorted payload manifests and then the rest of the bag. The bag writer only lists the tag files it
+     * wrote itself in the tag manifests, so entries for the payload manifests are appended to them afterwards. The
+     * bag writer must use the same algorithms for its tag manifests as this accumulator uses for the payload.
+     *
+     * @param bag the bag writer, with no payload checksums registered
+     * @throws IOException if the manifests or the bag cannot be written
+     */
+    public synchronized void write(final BagWriter bag) throws IOException {
+        if (closed) {
+            throw new IOException("Manifest accumulator is closed");
+        }
+        final Map<BagItDigest, Map<String, String>> tagDigests = new EnumMap<>(BagItDigest.class);
+        for (final BagItDigest algorithm : algorithms) {
+            final String name = "manifest-" + algorithm.bagitName() + ".txt";
+            final Map<BagItDigest, MessageDigest> digests = new EnumMap<>(BagItDigest.class);
+            OutputStream out = Files.newOutputStream(bagDir.resolve(name));
+            for (final BagItDigest tagAlgorithm : algorithms) {
+                final MessageDigest digest = tagAlgorithm.messageDigest();
+                digests.put(tagAlgorithm, digest);
+                out = new DigestOutputStream(out, digest);
+            }
+            try (final Writer manifest = new BufferedWriter(new OutputStreamWriter(out, UTF_8))) {
+                writeManifest(algorithm, manifest);
+            }
+            digests.forEach((tagAlgorithm, digest) -> tagDigests.computeIfAbsent(tagAlgorithm,
+                    k -> new TreeMap<>()).put(name, Hex.encodeHexString(digest.digest())));
+        }
+
+        bag.write();
+
+        for (final Map.Entry<BagItDigest, Map<String, String>> entry : tagDigests.entrySet()) {
+            final Path tagManifest = bagDir.resolve("tagmanifest-" + entry.getKey().bagitName() + ".txt");
+            try (final Writer writer = Files.newBufferedWriter(tagManifest, UTF_8, CREATE, APPEND)) {
+                for (final Map.Entry<String, String> manifest : entry.getValue().entrySet()) {
+                    writer.write(manifest.getValue() + "  " + manifest.getKey() + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete the temporary files
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (final Writer writer : writers.values()) {
+            try {
+                writer.close();
+            } catch (final IOException e) {
+                logger.warn("Unable to close temporary manifest: {}", e.getMessage());
+            }
+        }
+        writers.clear();
+        unsorted.values().forEach(ManifestAccumulator::delete);
+        unsorted.clear();
+        if (directory != null) {
+            delete(directory);
+            directory = null;
+        }
+    }
+
+    /**
+     * Sort the entries recorded for an algorithm into its manifest
+     */
+    private void writeManifest(final BagItDigest algorithm, final Writer manifest) throws IOException {
+        final Writer writer = writers.remove(algorithm);
+        if (writer == null) {
+            return;
+        }
+        writer.close();
+        final Path input = unsorted.remove(algorithm);
+        final List<Path> runs = new ArrayList<>();
+        try {
+            sortRuns(input, runs);
+            delete(input);
+            while (runs.size() > MERGE_WIDTH) {
+                final List<Path> group = new ArrayList<>(runs.subList(0, MERGE_WIDTH));
+                runs.subList(0, MERGE_WIDTH).clear();
+                final Path merged = Files.createTempFile(directory, "run", ".txt");
+                try (final Writer out = Files.newBufferedWriter(merged, UTF_8)) {
+                    merge(group, out, false);
+                }
+                group.forEach(ManifestAccumulator::delete);
+                runs.add(merged);
+            }
+            merge(runs, manifest, true);
+            logger.debug("Wrote the {} manifest from {} sorted runs", algorithm.bagitName(), runs.size());
+        } finally {
+            runs.forEach(ManifestAccumulator::delete);
+        }
+    }
+
+    /**
+     * Split a file of entries into sorted runs
+     */
+    private void sortRuns(final Path input, final List<Path> runs) throws IOException {
+        try (final BufferedReader reader = Files.newBufferedReader(input, UTF_8)) {
+            final List<Entry> run = new ArrayList<>(Math.min(runSize, 1024));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                run.add(Entry.parse(line));
+                if (run.size() == runSize) {
+                    runs.add(writeRun(run));
+                }
+            }
+            if (!run.isEmpty() || runs.isEmpty()) {
+                runs.add(writeRun(run));
+            }
+        }
+    }
+
+    private Path writeRun(final List<Entry> run) throws IOException {
+        run.sort(ORDER);
+        final Path path = Files.createTempFile(directory, "run", ".txt");
+        try (final Writer out = Files.newBufferedWriter(path, UTF_8)) {
+            for (final Entry entry : run) {
+                writeEntry(out, entry);
+            }
+        }
+        run.clear();
+        return path;
+    }
+
+    /**
+     * Merge sorted runs, keeping only the last entry recorded for each path
+     */
+    private static void merge(final List<Path> runs, final Writer out, final boolean manifest) throws IOException {
+        final PriorityQueue<Run> queue = new PriorityQueue<>(Math.max(runs.size(), 1),
+                (a, b) -> ORDER.compare(a.head, b.head));
+        try {
+            for (final Path path : runs) {
+                final Run run = new Run(Files.newBufferedReader(path, UTF_8));
+                if (run.advance()) {
+                    queue.add(run);
+                } else {
+                    run.reader.close();
+                }
+            }
+            Entry pending = null;
+            while (!queue.isEmpty()) {
+                final Run run = queue.poll();
+                if (pending != null && !pending.path.equals(run.head.path)) {
+                    write(out, pending, manifest);
+                }
+                pending = run.head;
+                if (run.advance()) {
+                    queue.add(run);
+                } else {
+                    run.reader.close();
+                }
+            }
+            if (pending != null) {
+                write(out, pending, manifest);
+            }
+        } finally {
+            for (final Run run : queue) {
+                run.reader.close();
+            }
+        }
+    }
+
+    private static void write(final Writer out, final Entry entry, final boolean manifest) throws IOException {
+        if (manifest) {
+            out.write(entry.digest + "  " + entry.path + "\n");
+        } else {
+            writeEntry(out, entry);
+        }
+    }
+
+    private static void writeEntry(final Writer out, final Entry entry) throws IOException {
+        out.write(entry.digest + " " + String.format("%016x", entry.sequence) + " " + entry.path + "\n");
+    }
+
+    private Writer writer(final BagItDigest algorithm) throws IOException {
+        if (closed) {
+            throw new IOException("Manifest accumulator is closed");
+        }
+        Writer writer = writers.get(algorithm);
+        if (writer == null) {
+            if (directory == null) {
+                directory = Files.createTempDirectory("fcrepo-export-manifests");
+            }
+            final Path path = Files.createTempFile(directory, algorithm.bagitName(), ".txt");
+            writer = Files.newBufferedWriter(path, UTF_8);
+            writers.put(algorithm, writer);
+            unsorted.put(algorithm, path);
+        }
+        return writer;
+    }
+
+    /**
+     * The path of a payload file relative to the bag, with the line breaks the BagIt spec requires to be encoded
+     */
+    private String relativePath(final File file) {
+        return bagDir.relativize(file.getAbsoluteFile().toPath()).toString().replace('\\', '/')
+                .replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    private static void delete(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException e) {
+            logger.warn("Unable to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * A manifest entry, with the order in which it was recorded
+     */
+    private static class Entry {
+        private final String digest;
+        private final long sequence;
+        private final String path;
+
+        private Entry(final String digest, final long sequence, final String path) {
+            this.digest = digest;
+            this.sequence = sequence;
+            this.path = path;
+        }
+
+        private static Entry parse(final String line) {
+            final int space = line.indexOf(' ');
+            return new Entry(line.substring(0, space),
+                    Long.parseUnsignedLong(line.substring(space + 1, space + 17), 16), line.substring(space + 18));
+        }
+    }
+
+    /**
+     * A sorted run being merged
+     */
+    private static class Run {
+        private final BufferedReader reader;
+        private Entry head;
+
+        private Run(final BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        private boolean advance() throws IOException {
+            final String line = reader.readLine();
+            head = line == null ? null : Entry.parse(line);
+            return head != null;
+        }
+    }
+}
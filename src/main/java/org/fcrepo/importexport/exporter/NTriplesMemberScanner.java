@@ -0,0 +1,362 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.fcrepo.importexport.common.FcrepoConstants.CONTAINS;
+import static org.fcrepo.importexport.common.UriUtils.withoutSlash;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFBase;
+
+/**
+ * Finds the members of an exported resource in N-Triples read from a stream while it is being read by someone else,
+ * e.g. while the body of a response is copied to a file. N-Triples has one triple per line, so the predicate and
+ * object of each line are matched as bytes on the reading thread, without parsing the line into a triple; only the
+ * IRIs of the members found are decoded, and passed on as soon as they are found. Every line is checked for the
+ * shape of a triple: IRI, blank node and literal terms followed by a terminating period. A line which fails the
+ * check, such as one with escaped IRIs or a malformed one, is handed to the Jena parser, which fails the read if the
+ * line is not N-Triples.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class NTriplesMemberScanner extends FilterInputStream {
+
+    private static final int LINE_SIZE = 1024;
+
+    /** the ASCII characters which may not appear unescaped in an IRI */
+    private static final boolean[] NOT_IRI = new boolean[128];
+
+    /** the characters which may follow a backslash in a literal */
+    private static final boolean[] ESCAPES = new boolean[128];
+
+    static {
+        for (int c = 0; c <= ' '; c++) {
+            NOT_IRI[c] = true;
+        }
+        for (final char c : "<>\"{}|^`\\".toCharArray()) {
+            NOT_IRI[c] = true;
+        }
+        for (final char c : "tbnrf\"'\\uU".toCharArray()) {
+            ESCAPES[c] = true;
+        }
+    }
+
+    private final byte[][] predicates;
+    private final List<Node> predicateNodes = new ArrayList<>();
+    private final Consumer<URI> members;
+    private byte[] line = new byte[LINE_SIZE];
+    private int lineLength = 0;
+    private int parsedLines = 0;
+    private boolean ended = false;
+
+    /**
+     * Constructor
+     *
+     * @param in the N-Triples to read
+     * @param predicates the predicates whose objects are the members to export
+     * @param includeContained true to also export the ldp:contains objects, e.g. the mementos of a timemap
+     * @param members receives the members to export, without trailing slashes, in the order they are found
+     */
+    public NTriplesMemberScanner(final InputStream in, final String[] predicates, final boolean includeContained,
+            final Consumer<URI> members) {
+        super(in);
+        this.members = members;
+        for (final String predicate : predicates) {
+            predicateNodes.add(NodeFactory.createURI(predicate));
+        }
+        if (includeContained && !predicateNodes.contains(CONTAINS.asNode())) {
+            predicateNodes.add(CONTAINS.asNode());
+        }
+        this.predicates = new byte[predicateNodes.size()][];
+        for (int i = 0; i < this.predicates.length; i++) {
+            this.predicates[i] = predicateNodes.get(i).getURI().getBytes(UTF_8);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int n = read(b, 0, 1);
+        return n < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int n = in.read(b, off, len);
+        if (n < 0) {
+            end();
+        } else {
+            scan(b, off, off + n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            final int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * @return the number of lines which were handed to the Jena parser
+     */
+    public int getParsedLines() {
+        return parsedLines;
+    }
+
+    private void end() {
+        if (!ended) {
+            ended = true;
+            if (lineLength > 0) {
+                scanLine(line, 0, lineLength);
+                lineLength = 0;
+            }
+        }
+    }
+
+    /**
+     * Scan the complete lines of a chunk where they are, carrying a line which is split between chunks over
+     */
+    private void scan(final byte[] b, final int from, final int to) {
+        int start = from;
+        for (int i = from; i < to; i++) {
+            if (b[i] == '\n' || b[i] == '\r') {
+                if (lineLength > 0) {
+                    append(b, start, i);
+                    scanLine(line, 0, lineLength);
+                    lineLength = 0;
+                } else if (i > start) {
+                    scanLine(b, start, i);
+                }
+                start = i + 1;
+            }
+        }
+        append(b, start, to);
+    }
+
+    private void append(final byte[] b, final int from, final int to) {
+        final int n = to - from;
+        if (n <= 0) {
+            return;
+        }
+        if (lineLength + n > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + n));
+        }
+        System.arraycopy(b, from, line, lineLength, n);
+        lineLength += n;
+    }
+
+    private void scanLine(final byte[] b, final int from, final int to) {
+        final int subjectStart = skipSpace(b, from, to);
+        if (subjectStart == to || b[subjectStart] == '#') {
+            return;
+        }
+        final int subjectEnd = b[subjectStart] == '<' ? iriEnd(b, subjectStart, to) :
+                blankNodeEnd(b, subjectStart, to);
+        final int predicateStart = subjectEnd < 0 ? to : skipSpace(b, subjectEnd, to);
+        final int predicateEnd = iriEnd(b, predicateStart, to);
+        final int objectStart = predicateEnd < 0 ? to : skipSpace(b, predicateEnd, to);
+        final int objectEnd = termEnd(b, objectStart, to);
+        if (objectEnd < 0 || !isTerminated(b, objectEnd, to)) {
+            parseLine(b, from, to);
+            return;
+        }
+
+        // literals and blank nodes are not members
+        if (b[objectStart] == '<' && isPredicate(b, predicateStart + 1, predicateEnd - 1)) {
+            addMember(new String(b, objectStart + 1, objectEnd - objectStart - 2, UTF_8));
+        }
+    }
+
+    /**
+     * @return the position after the object term starting at from, or -1 if there is none the scanner can read
+     */
+    private static int termEnd(final byte[] b, final int from, final int to) {
+        if (from >= to) {
+            return -1;
+        } else if (b[from] == '<') {
+            return iriEnd(b, from, to);
+        } else if (b[from] == '_') {
+            return blankNodeEnd(b, from, to);
+        } else if (b[from] == '"') {
+            return literalEnd(b, from, to);
+        }
+        return -1;
+    }
+
+    /**
+     * @return the position after the closing bracket of the absolute IRI starting at from, or -1 if there is none, it
+     *     is not closed, or it has escaped or invalid characters
+     */
+    private static int iriEnd(final byte[] b, final int from, final int to) {
+        if (from >= to || b[from] != '<') {
+            return -1;
+        }
+        boolean scheme = false;
+        for (int i = from + 1; i < to; i++) {
+            final byte c = b[i];
+            if (c == '>') {
+                return scheme ? i + 1 : -1;
+            } else if (c == ':') {
+                scheme = true;
+            } else if (c >= 0 && NOT_IRI[c]) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the position after the label of the blank node starting at from, or -1 if it has no label
+     */
+    private static int blankNodeEnd(final byte[] b, final int from, final int to) {
+        if (from + 2 >= to || b[from] != '_' || b[from + 1] != ':') {
+            return -1;
+        }
+        int i = from + 2;
+        while (i < to && b[i] != ' ' && b[i] != '\t' && b[i] != '<' && b[i] != '"') {
+            i++;
+        }
+        // a label does not end with a period, which terminates the triple instead
+        if (b[i - 1] == '.') {
+            i--;
+        }
+        return i > from + 2 ? i : -1;
+    }
+
+    /**
+     * @return the position after the literal starting at from, including its language tag or datatype, or -1 if it
+     *     is not closed or has an invalid escape
+     */
+    private static int literalEnd(final byte[] b, final int from, final int to) {
+        int i = from + 1;
+        while (i < to && b[i] != '"') {
+            if (b[i] == '\\') {
+                if (i + 1 == to || b[i + 1] < 0 || !ESCAPES[b[i + 1]]) {
+                    return -1;
+                }
+                i++;
+            }
+            i++;
+        }
+        if (i == to) {
+            return -1;
+        }
+        i++;
+        if (i < to && b[i] == '@') {
+            final int tag = ++i;
+            while (i < to && (isLetter(b[i]) || (i > tag && (b[i] == '-' || (b[i] >= '0' && b[i] <= '9'))))) {
+                i++;
+            }
+            return i > tag ? i : -1;
+        } else if (i + 1 < to && b[i] == '^' && b[i + 1] == '^') {
+            return iriEnd(b, i + 2, to);
+        }
+        return i;
+    }
+
+    private static boolean isLetter(final byte c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * @return true if the triple ends with a period at from, followed by nothing but space or a comment
+     */
+    private static boolean isTerminated(final byte[] b, final int from, final int to) {
+        int i = skipSpace(b, from, to);
+        if (i == to || b[i] != '.') {
+            return false;
+        }
+        i = skipSpace(b, i + 1, to);
+        return i == to || b[i] == '#';
+    }
+
+    private static int skipSpace(final byte[] b, final int from, final int to) {
+        int i = from;
+        while (i < to && (b[i] == ' ' || b[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean isPredicate(final byte[] b, final int from, final int to) {
+        for (final byte[] predicate : predicates) {
+            if (predicate.length == to - from && matches(predicate, b, from)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(final byte[] predicate, final byte[] b, final int from) {
+        for (int i = predicate.length - 1; i >= 0; i--) {
+            if (predicate[i] != b[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addMember(final String iri) {
+        members.accept(withoutSlash(URI.create(iri)));
+    }
+
+    /**
+     * Parse a line the scanner cannot read by itself
+     */
+    private void parseLine(final byte[] b, final int from, final int to) {
+        parsedLines++;
+        RDFDataMgr.parse(new StreamRDFBase() {
+            @Override
+            public void triple(final Triple triple) {
+                if (triple.getObject().isURI() && predicateNodes.contains(triple.getPredicate())) {
+                    addMember(triple.getObject().getURI());
+                }
+            }
+        }, new ByteArrayInputStream(b, from, to - from), Lang.NTRIPLES);
+    }
+}
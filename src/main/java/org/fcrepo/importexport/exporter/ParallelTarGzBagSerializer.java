@@ -0,0 +1,88 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.duraspace.bagit.serialize.BagSerializer;
+import org.fcrepo.importexport.common.ParallelGzipOutputStream;
+
+/**
+ * Serializes a bag to a tar.gz file next to it, like the bagit-support TarGzBagSerializer, but compresses the tar
+ * stream on several threads with a {@link ParallelGzipOutputStream}.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ParallelTarGzBagSerializer implements BagSerializer {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final Integer threads;
+    private final Integer level;
+
+    /**
+     * Constructor
+     *
+     * @param threads the number of compression threads, or null for one per available processor
+     * @param level the compression level from 0 to 9, or null for the default level
+     */
+    public ParallelTarGzBagSerializer(final Integer threads, final Integer level) {
+        this.threads = threads;
+        this.level = level;
+    }
+
+    @Override
+    public Path serialize(final Path root) throws IOException {
+        final Path parent = root.getParent().toAbsolutePath();
+        final Path serializedBag = parent.resolve(root.getFileName().toString() + ".tar.gz");
+        final List<Path> files;
+        try (final Stream<Path> walk = Files.walk(root)) {
+            files = walk.collect(Collectors.toList());
+        }
+        try (final OutputStream os = new BufferedOutputStream(Files.newOutputStream(serializedBag), BUFFER_SIZE);
+             final TarArchiveOutputStream tar = new TarArchiveOutputStream(
+                     new ParallelGzipOutputStream(os, threads, level))) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            for (final Path bagEntry : files) {
+                final String name = parent.relativize(bagEntry.toAbsolutePath()).toString();
+                final ArchiveEntry entry = tar.createArchiveEntry(bagEntry.toFile(), name);
+                tar.putArchiveEntry(entry);
+                if (bagEntry.toFile().isFile()) {
+                    try (final InputStream in = Files.newInputStream(bagEntry)) {
+                        IOUtils.copyLarge(in, tar);
+                    }
+                }
+                tar.closeArchiveEntry();
+            }
+        }
+        return serializedBag;
+    }
+}
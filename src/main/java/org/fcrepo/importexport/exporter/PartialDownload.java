@@ -0,0 +1,177 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+
+/**
+ * The progress of a binary download, kept in a sidecar file next to the partially written binary so that an
+ * interrupted download can be resumed from where it stopped rather than from the first byte. The sidecar records
+ * the number of bytes safely on disk and the validator (a strong ETag, or else the Last-Modified date) of the
+ * content being downloaded, which is sent as If-Range when resuming so that the repository returns the whole
+ * content instead if it has changed since.
+ *
+ * <p>The sidecar is only written when the download is checkpointed: periodically while the content is copied, and
+ * when the copy fails. It is removed once the download completes.</p>
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class PartialDownload {
+
+    private static final Logger logger = getLogger(PartialDownload.class);
+
+    public static final String EXTENSION = ".partial";
+
+    // Checkpoint the download each time this many bytes have been written
+    public static final long CHECKPOINT_INTERVAL = 64L * 1024 * 1024;
+
+    private final File file;
+    private final Path sidecar;
+    private final String validator;
+    private volatile long offset;
+
+    private PartialDownload(final File file, final String validator, final long offset) {
+        this.file = file;
+        this.sidecar = sidecarFor(file);
+        this.validator = validator;
+        this.offset = offset;
+    }
+
+    /**
+     * Start tracking a new download of a binary
+     *
+     * @param file the file the binary is written to
+     * @param etag the ETag of the content, or null
+     * @param lastModified the Last-Modified date of the content, or null
+     * @return the download, or null if the content has no validator with which it could be resumed
+     */
+    public static PartialDownload start(final File file, final String etag, final String lastModified) {
+        final String validator = validator(etag, lastModified);
+        return validator == null ? null : new PartialDownload(file, validator, 0);
+    }
+
+    /**
+     * Find the progress of an earlier, interrupted download of a binary
+     *
+     * @param file the file the binary is written to
+     * @return the interrupted download, or null if there is none that can be resumed
+     */
+    public static PartialDownload load(final File file) {
+        final Path sidecar = sidecarFor(file);
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        try (final Reader reader = Files.newBufferedReader(sidecar, UTF_8)) {
+            properties.load(reader);
+            final long offset = Long.parseLong(properties.getProperty("offset", "0"));
+            final String validator = properties.getProperty("validator");
+            if (validator == null || offset < 1 || offset > file.length()) {
+                logger.debug("Not resuming download of {} from {}", file, sidecar);
+                return null;
+            }
+            return new PartialDownload(file, validator, offset);
+        } catch (final IOException | NumberFormatException e) {
+            logger.warn("Ignoring unreadable partial download record {}: {}", sidecar, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @return the file the binary is written to
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the value to send as If-Range when resuming the download
+     */
+    public String getValidator() {
+        return validator;
+    }
+
+    /**
+     * @return the number of bytes of the binary that have been written
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Record that the first bytes of the binary are safely written
+     *
+     * @param offset the number of bytes written
+     * @throws IOException if the sidecar cannot be written
+     */
+    public synchronized void checkpoint(final long offset) throws IOException {
+        this.offset = offset;
+        final Properties properties = new Properties();
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("validator", validator);
+        final Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try (final Writer writer = Files.newBufferedWriter(temp, UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, sidecar, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    /**
+     * Remove the sidecar once the download is complete
+     *
+     * @throws IOException if the sidecar cannot be deleted
+     */
+    public synchronized void complete() throws IOException {
+        Files.deleteIfExists(sidecar);
+    }
+
+    /**
+     * @return the sidecar file recording the progress of a download
+     */
+    static Path sidecarFor(final File file) {
+        return new File(file.getParentFile(), file.getName() + EXTENSION).toPath();
+    }
+
+    /**
+     * If-Range only accepts a strong ETag, so fall back to the Last-Modified date for a weak one
+     *
+     * @param etag the ETag header, or null
+     * @param lastModified the Last-Modified header, or null
+     * @return the value of an If-Range header, or null if there is no usable validator
+     */
+    static String validator(final String etag, final String lastModified) {
+        if (etag != null && !etag.trim().isEmpty() && !etag.trim().startsWith("W/")) {
+            return etag.trim();
+        }
+        return lastModified == null || lastModified.trim().isEmpty() ? null : lastModified.trim();
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.fcrepo.importexport.common.FcrepoConstants.HEADERS_EXTENSION;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.duraspace.bagit.BagItDigest;
+import org.slf4j.Logger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * An earlier export of the same resources, from which an incremental export reuses the binaries that have not
+ * changed. A binary's counterpart in the earlier export is found at the same path relative to the export directory,
+ * along with the headers file recording the ETag and Last-Modified date it was exported with. Unchanged binaries are
+ * hard-linked into the new export, or copied where the file system does not support links.
+ *
+ * <p>When both exports are bags, the digests of a reused binary are looked up in the payload manifests of the
+ * earlier bag rather than computed again. Each lookup is a binary search of a manifest file on disk sorted by path, so
+ * the manifests are never loaded into memory. Manifests written by {@link ManifestAccumulator} are already sorted;
+ * others, such as those of bags written by earlier versions, are found to be unsorted by a scan when the export
+ * starts and are sorted into a temporary index with an external merge sort.</p>
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class PreviousExport implements Closeable {
+
+    private static final Logger logger = getLogger(PreviousExport.class);
+
+    private static final int PROBE_SIZE = 4096;
+
+    private static final TypeReference<Map<String, List<String>>> HEADERS_TYPE =
+            new TypeReference<Map<String, List<String>>>() { };
+
+    private final Path previousDir;
+    private final Path currentDir;
+    private final Map<BagItDigest, FileChannel> manifests = new EnumMap<>(BagItDigest.class);
+    private final List<Path> indexes = new ArrayList<>();
+    private final boolean complete;
+
+    /**
+     * Constructor
+     *
+     * @param previousDir the directory of the earlier export
+     * @param currentDir the directory of the new export
+     * @param algorithms the algorithms of the payload manifests of the new export, empty if it is not a bag
+     * @throws IOException if a manifest of the earlier export cannot be opened
+     */
+    public PreviousExport(final File previousDir, final File currentDir, final Set<BagItDigest> algorithms)
+            throws IOException {
+        this.previousDir = previousDir.getAbsoluteFile().toPath().normalize();
+        this.currentDir = currentDir.getAbsoluteFile().toPath().normalize();
+        boolean found = true;
+        for (final BagItDigest algorithm : algorithms) {
+            final Path manifest = this.previousDir.resolve("manifest-" + algorithm.bagitName() + ".txt");
+            if (Files.isRegularFile(manifest)) {
+                manifests.put(algorithm, FileChannel.open(isSorted(manifest) ? manifest : index(algorithm, manifest),
+                        READ));
+            } else {
+                logger.info("The earlier export has no {} manifest, the digests of reused files will be computed",
+                        algorithm.bagitName());
+                found = false;
+            }
+        }
+        this.complete = found;
+    }
+
+    /**
+     * Find the counterpart of a file of the new export in the earlier export
+     *
+     * @param file a file of the new export
+     * @return the file at the same path in the earlier export, or null if there is none
+     */
+    public File find(final File file) {
+        final Path path = file.getAbsoluteFile().toPath().normalize();
+        if (!path.startsWith(currentDir)) {
+            return null;
+        }
+        final File previous = previousDir.resolve(currentDir.relativize(path)).toFile();
+        return previous.isFile() ? previous : null;
+    }
+
+    /**
+     * Read the headers a file of the earlier export was exported with
+     *
+     * @param previous a file of the earlier export
+     * @return the headers, or null if they were not recorded or cannot be read
+     */
+    public Map<String, List<String>> readHeaders(final File previous) {
+        final File headers = headersFile(previous);
+        if (!headers.isFile()) {
+            return null;
+        }
+        try {
+            final Map<String, List<String>> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            map.putAll(new ObjectMapper().readValue(headers, HEADERS_TYPE));
+            return map;
+        } catch (final IOException e) {
+            logger.warn("Unable to read headers file {}: {}", headers, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param headers headers read by {@link #readHeaders(File)}
+     * @param name the name of a header
+     * @return the first value of the header, or null if there is none
+     */
+    public static String header(final Map<String, List<String>> headers, final String name) {
+        final List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Look up the digests of a file of the earlier export in its manifests
+     *
+     * @param previous a file of the earlier export
+     * @return the digests by BagIt algorithm name, empty if the new export is not a bag, or null if they are not all
+     *         recorded
+     * @throws IOException if a manifest cannot be read
+     */
+    public Map<String, String> getDigests(final File previous) throws IOException {
+        if (!complete) {
+            return null;
+        }
+        final String path = previousDir.relativize(previous.getAbsoluteFile().toPath().normalize()).toString()
+                .replace('\\', '/').replace("\r", "%0D").replace("\n", "%0A");
+        final Map<String, String> digests = new HashMap<>();
+        for (final Map.Entry<BagItDigest, FileChannel> manifest : manifests.entrySet()) {
+            final String digest = lookup(manifest.getValue(), path);
+            if (digest == null) {
+                return null;
+            }
+            digests.put(manifest.getKey().bagitName(), digest);
+        }
+        return digests.isEmpty() ? Collections.emptyMap() : digests;
+    }
+
+    /**
+     * Reuse a file of the earlier export, and its headers file if there is one, in the new export
+     *
+     * @param previous the file of the earlier export
+     * @param file the file of the new export
+     * @throws IOException if the file can be neither linked nor copied
+     */
+    public void reuse(final File previous, final File file) throws IOException {
+        link(previous, file);
+        final File headers = headersFile(previous);
+        if (headers.isFile()) {
+            link(headers, headersFile(file));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (final FileChannel channel : manifests.values()) {
+            channel.close();
+        }
+        for (final Path index : indexes) {
+            Files.deleteIfExists(index);
+        }
+    }
+
+    /**
+     * @return true if the paths of a manifest are in the order the lookups search them in
+     */
+    private static boolean isSorted(final Path manifest) throws IOException {
+        try (final BufferedReader reader = Files.newBufferedReader(manifest, UTF_8)) {
+            String last = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int separator = line.indexOf("  ");
+                final String path = separator < 0 ? line : line.substring(separator + 2);
+                if (last != null && last.compareTo(path) > 0) {
+                    return false;
+                }
+                last = path;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sort an unsorted manifest into a temporary index, which is deleted when the earlier export is closed
+     */
+    private Path index(final BagItDigest algorithm, final Path manifest) throws IOException {
+        logger.info("The {} manifest of the earlier export is not sorted by path, indexing it", algorithm.bagitName());
+        final Path index = Files.createTempFile("previous-manifest-" + algorithm.bagitName(), ".txt");
+        indexes.add(index);
+        try (final ManifestAccumulator sorter = new ManifestAccumulator(previousDir.toFile(),
+                Collections.singleton(algorithm));
+                final BufferedReader reader = Files.newBufferedReader(manifest, UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int separator = line.indexOf("  ");
+                if (separator > 0) {
+                    sorter.add(algorithm, line.substring(separator + 2), line.substring(0, separator));
+                }
+            }
+            sorter.writeManifest(algorithm, index);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(index);
+            indexes.remove(index);
+            throw e;
+        }
+        return index;
+    }
+
+    private static File headersFile(final File file) {
+        return new File(file.getParentFile(), file.getName() + HEADERS_EXTENSION);
+    }
+
+    private static void link(final File previous, final File file) throws IOException {
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        Files.deleteIfExists(file.toPath());
+        try {
+            Files.createLink(file.toPath(), previous.toPath());
+        } catch (final UnsupportedOperationException | IOException e) {
+            logger.debug("Unable to link {}, copying it instead: {}", previous, e.toString());
+            Files.copy(previous.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Binary search of a manifest sorted by path for the digest of a path. Every line start in the manifest before
+     * lo is known to sort before the path, and every one from hi on after it.
+     */
+    private static String lookup(final FileChannel manifest, final String path) throws IOException {
+        long lo = 0;
+        long hi = manifest.size();
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            final Line line = probe(manifest, mid);
+            if (line == null || line.start >= hi) {
+                hi = mid;
+                continue;
+            }
+            final int separator = line.text.indexOf("  ");
+            if (separator < 0) {
+                return null;
+            }
+            final int cmp = line.text.substring(separator + 2).compareTo(path);
+            if (cmp == 0) {
+                return line.text.substring(0, separator);
+            } else if (cmp < 0) {
+                lo = line.end;
+            } else {
+                hi = line.start;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the first line of a manifest which starts at or after a position
+     *
+     * @return the line, or null if no line starts at or after the position
+     */
+    private static Line probe(final FileChannel manifest, final long position) throws IOException {
+        // read from the byte before the position to tell whether a line starts exactly at the position
+        final long from = Math.max(0, position - 1);
+        ByteBuffer buffer = ByteBuffer.allocate(PROBE_SIZE);
+        int start = position == 0 ? 0 : -1;
+        while (true) {
+            final int read = manifest.read(buffer, from + buffer.position());
+            final byte[] bytes = buffer.array();
+            final int length = buffer.position();
+            if (start < 0) {
+                for (int i = 0; i < length; i++) {
+                    if (bytes[i] == '\n') {
+                        start = i + 1;
+                        break;
+                    }
+                }
+            }
+            if (start >= 0) {
+                for (int i = start; i < length; i++) {
+                    if (bytes[i] == '\n') {
+                        return new Line(from + start, from + i + 1, new String(bytes, start, i - start, UTF_8));
+                    }
+                }
+            }
+            if (read < 0) {
+                // the last line of the manifest, if it has no line break
+                return start >= 0 && start < length ?
+                        new Line(from + start, from + length, new String(bytes, start, length - start, UTF_8)) :
+                        null;
+            }
+            if (!buffer.hasRemaining()) {
+                final ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    private static class Line {
+        private final long start;
+        private final long end;
+        private final String text;
+
+        private Line(final long start, final long end, final String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+
+/**
+ * Finds out whether an RDF response body is larger than a threshold. The Content-Length decides when the repository
+ * sends one; otherwise the start of the body is read, up to one byte past the threshold, and kept (in memory up to
+ * a limit, then in a temporary file) so that the whole body can still be read from the probe.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+class RdfBodyProbe implements Closeable {
+
+    private final InputStream body;
+
+    private final DeferredFileOutputStream head;
+
+    private final boolean oversized;
+
+    private InputStream start;
+
+    /**
+     * Constructor
+     *
+     * @param body the response body
+     * @param contentLength the Content-Length of the response, or -1 if it is unknown
+     * @param threshold the size in bytes above which the body is oversized
+     * @param memoryThreshold the number of bytes read from a body of unknown length to keep in memory
+     * @throws IOException if the body cannot be read
+     */
+    RdfBodyProbe(final InputStream body, final long contentLength, final long threshold, final int memoryThreshold)
+            throws IOException {
+        this.body = body;
+        if (contentLength >= 0) {
+            this.head = null;
+            this.oversized = contentLength > threshold;
+            return;
+        }
+        this.head = new DeferredFileOutputStream(memoryThreshold, "rdf-probe-", ".tmp", null);
+        try {
+            this.oversized = IOUtils.copyLarge(body, head, 0, threshold + 1) > threshold;
+        } finally {
+            head.close();
+        }
+    }
+
+    /**
+     * @return true if the body is larger than the threshold
+     */
+    boolean isOversized() {
+        return oversized;
+    }
+
+    /**
+     * @return the whole body, starting with any bytes read to probe it
+     * @throws IOException if the bytes read cannot be opened
+     */
+    InputStream getBody() throws IOException {
+        if (head == null) {
+            return body;
+        }
+        start = head.isInMemory() ? new ByteArrayInputStream(head.getData()) :
+                Files.newInputStream(head.getFile().toPath());
+        return new SequenceInputStream(start, body);
+    }
+
+    /**
+     * Delete the temporary file holding the bytes read, if there is one
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (start != null) {
+            start.close();
+        }
+        if (head != null && !head.isInMemory() && head.getFile() != null) {
+            Files.deleteIfExists(head.getFile().toPath());
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static org.fcrepo.importexport.common.FcrepoConstants.CONTAINS;
+import static org.fcrepo.importexport.common.FcrepoConstants.REPOSITORY_NAMESPACE;
+import static org.fcrepo.importexport.common.UriUtils.withSlash;
+import static org.fcrepo.importexport.common.UriUtils.withoutSlash;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+import org.fcrepo.client.FcrepoOperationFailedException;
+
+/**
+ * Filters the RDF of an exported resource as it is parsed, without building a model of it. Every triple which is
+ * kept is passed on to an output stream, if there is one, and the objects of the member predicates among them are
+ * passed on as the resources to export next as soon as they are found, so that even a container with millions of
+ * members is never held in memory. Optionally, the triples of other subjects (inbound references) are dropped and
+ * their subjects passed on in the same way, and the triples referencing other repository resources are held back
+ * until it is known which of those resources are binaries. Those are classified and released in chunks of
+ * {@link ReferenceClassifier#CHUNK_SIZE} while parsing, so at most one chunk of them is held at a time.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class RdfStreamFilter implements StreamRDF {
+
+    private static final String TRANSACTION_PROVIDER = REPOSITORY_NAMESPACE + "hasTransactionProvider";
+
+    private final List<Node> predicates = new ArrayList<>();
+    private final Consumer<URI> members;
+    private final List<Triple> references = new ArrayList<>();
+    private BinaryFinder binaries;
+    private StreamRDF output;
+    private Set<String> subjects;
+    private Consumer<URI> inboundReferences;
+    private String lastInboundReference;
+    private String repositoryRoot;
+
+    /**
+     * Finds the binaries among a chunk of held back references
+     */
+    @FunctionalInterface
+    public interface BinaryFinder {
+
+        /**
+         * @param references the referenced resources
+         * @return the referenced resources which are binaries
+         * @throws FcrepoOperationFailedException if a lookup fails
+         * @throws IOException if a lookup fails
+         */
+        Set<URI> findBinaries(Collection<URI> references) throws FcrepoOperationFailedException, IOException;
+    }
+
+    /**
+     * Thrown out of the parse when a chunk of held back references cannot be classified
+     */
+    public static class ReferenceLookupException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private ReferenceLookupException(final Exception cause) {
+            super(cause);
+        }
+
+        /**
+         * Throw the failure of the lookup
+         *
+         * @throws FcrepoOperationFailedException if a lookup request failed
+         * @throws IOException if a lookup request failed
+         */
+        public void rethrow() throws FcrepoOperationFailedException, IOException {
+            if (getCause() instanceof FcrepoOperationFailedException) {
+                throw (FcrepoOperationFailedException) getCause();
+            }
+            throw (IOException) getCause();
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param predicates the predicates whose objects are the members to export
+     * @param includeContained true to also export the ldp:contains objects, e.g. the mementos of a timemap
+     * @param members receives the members to export, in the order they are found
+     */
+    public RdfStreamFilter(final String[] predicates, final boolean includeContained, final Consumer<URI> members) {
+        this.members = members;
+        for (final String predicate : predicates) {
+            this.predicates.add(NodeFactory.createURI(predicate));
+        }
+        if (includeContained && !this.predicates.contains(CONTAINS.asNode())) {
+            this.predicates.add(CONTAINS.asNode());
+        }
+    }
+
+    /**
+     * @param output the stream to pass the kept triples on to, or null to only collect the members
+     * @return this
+     */
+    public RdfStreamFilter setOutput(final StreamRDF output) {
+        this.output = output;
+        return this;
+    }
+
+    /**
+     * Drop the triples whose subject is not the resource, passing their subjects on as inbound references
+     *
+     * @param subject the resource
+     * @param inboundReferences receives the subjects of the dropped triples, once for each run of triples with the
+     *     same subject
+     * @return this
+     */
+    public RdfStreamFilter filterInboundReferences(final URI subject, final Consumer<URI> inboundReferences) {
+        this.inboundReferences = inboundReferences;
+        this.subjects = new LinkedHashSet<>();
+        this.subjects.add(withSlash(subject).toString());
+        this.subjects.add(withoutSlash(subject).toString());
+        return this;
+    }
+
+    /**
+     * Hold back the triples whose object is another resource of the repository until they are classified. A chunk
+     * is released whenever it fills up during the parse, and {@link #releaseReferences()} releases the rest.
+     *
+     * @param root the root of the repository
+     * @param binaries finds the binaries among a chunk of references
+     * @return this
+     */
+    public RdfStreamFilter filterBinaryReferences(final URI root, final BinaryFinder binaries) {
+        this.repositoryRoot = root.toString();
+        this.binaries = binaries;
+        return this;
+    }
+
+    @Override
+    public void start() {
+        // the output is started and finished by its owner, as held back references are released after parsing
+    }
+
+    @Override
+    public void triple(final Triple triple) {
+        if (subjects != null && !(triple.getSubject().isURI() && subjects.contains(triple.getSubject().getURI()))) {
+            // the triples of a subject usually come together, so each run of them is only passed on once
+            if (triple.getSubject().isURI() && !triple.getSubject().getURI().equals(lastInboundReference)) {
+                lastInboundReference = triple.getSubject().getURI();
+                inboundReferences.accept(URI.create(lastInboundReference));
+            }
+            return;
+        }
+        if (repositoryRoot != null && triple.getObject().isURI()
+                && triple.getObject().getURI().startsWith(repositoryRoot)
+                && !triple.getPredicate().getURI().equals(TRANSACTION_PROVIDER)) {
+            references.add(triple);
+            if (references.size() >= ReferenceClassifier.CHUNK_SIZE) {
+                try {
+                    releaseReferences();
+                } catch (final FcrepoOperationFailedException | IOException e) {
+                    throw new ReferenceLookupException(e);
+                }
+            }
+            return;
+        }
+        keep(triple);
+    }
+
+    @Override
+    public void quad(final Quad quad) {
+        triple(quad.asTriple());
+    }
+
+    @Override
+    public void base(final String base) {
+        if (output != null) {
+            output.base(base);
+        }
+    }
+
+    @Override
+    public void prefix(final String prefix, final String iri) {
+        if (output != null) {
+            output.prefix(prefix, iri);
+        }
+    }
+
+    @Override
+    public void finish() {
+        // see start()
+    }
+
+    /**
+     * @return the resources referenced by the held back triples
+     */
+    public Collection<URI> getReferences() {
+        final Set<URI> uris = new LinkedHashSet<>();
+        references.forEach(triple -> uris.add(URI.create(triple.getObject().getURI())));
+        return uris;
+    }
+
+    /**
+     * Classify the held back triples, and pass them on except those referencing binaries
+     *
+     * @throws FcrepoOperationFailedException if a lookup fails
+     * @throws IOException if a lookup fails
+     */
+    public void releaseReferences() throws FcrepoOperationFailedException, IOException {
+        if (references.isEmpty()) {
+            return;
+        }
+        final Set<URI> found = binaries.findBinaries(getReferences());
+        for (final Triple triple : references) {
+            if (!found.contains(URI.create(triple.getObject().getURI()))) {
+                keep(triple);
+            }
+        }
+        references.clear();
+    }
+
+    private void keep(final Triple triple) {
+        if (triple.getObject().isURI() && predicates.contains(triple.getPredicate())) {
+            members.accept(URI.create(triple.getObject().getURI()));
+        }
+        if (output != null) {
+            output.triple(triple);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDF;
+
+/**
+ * Parses the RDF read from a stream while it is being read by someone else, e.g. while the body of a response is
+ * copied to a file. Every chunk read through the tee is handed to a parser running on another thread, so the bytes
+ * are only read from the network once and never held in memory as a whole. The hand-off queue is bounded, so a slow
+ * parser holds up the reader; a parser that fails or finishes early keeps draining the queue so that it never does.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class RdfTee extends FilterInputStream {
+
+    private static final int QUEUE_SIZE = 16;
+
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final Future<?> parser;
+    private boolean ended = false;
+
+    /**
+     * Constructor
+     *
+     * @param in the stream to read
+     * @param lang the RDF language of the stream
+     * @param sink where to send the parsed triples
+     * @param executor the executor to run the parser on
+     */
+    public RdfTee(final InputStream in, final Lang lang, final StreamRDF sink, final ExecutorService executor) {
+        super(in);
+        this.parser = executor.submit(() -> {
+            final ChunkStream chunkStream = new ChunkStream();
+            try {
+                RDFDataMgr.parse(sink, chunkStream, lang);
+            } finally {
+                chunkStream.drain();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int n = read(b, 0, 1);
+        return n < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int n = in.read(b, off, len);
+        if (n < 0) {
+            end();
+        } else if (n > 0) {
+            put(Arrays.copyOfRange(b, off, off + n));
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            final int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Wait for the parser to finish the bytes read so far, which should be the whole stream
+     *
+     * @throws IOException if the parser is interrupted or fails with an I/O error
+     */
+    public void await() throws IOException {
+        end();
+        try {
+            parser.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing RDF");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * End the stream seen by the parser and close the underlying stream
+     *
+     * @throws IOException if the underlying stream cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            end();
+        } finally {
+            super.close();
+        }
+    }
+
+    private void end() throws IOException {
+        if (!ended) {
+            ended = true;
+            put(END);
+        }
+    }
+
+    private void put(final byte[] chunk) throws IOException {
+        try {
+            // once the parser is done (only if it was interrupted before the end) nothing takes the chunks any more
+            while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (parser.isDone()) {
+                    return;
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            parser.cancel(true);
+            throw new InterruptedIOException("Interrupted while parsing RDF");
+        }
+    }
+
+    /**
+     * The stream read by the parser
+     */
+    private class ChunkStream extends InputStream {
+
+        private byte[] chunk = null;
+        private int position = 0;
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            final int n = read(b, 0, 1);
+            return n < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (chunk != END && (chunk == null || position == chunk.length)) {
+                chunk = take();
+                position = 0;
+            }
+            if (chunk == END) {
+                return -1;
+            }
+            final int n = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        /**
+         * Discard the rest of the stream, so that the reader is never held up by a parser that has stopped
+         */
+        void drain() throws InterruptedIOException {
+            while (chunk != END) {
+                chunk = take();
+            }
+        }
+
+        private byte[] take() throws InterruptedIOException {
+            try {
+                return chunks.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while parsing RDF");
+            }
+        }
+    }
+}
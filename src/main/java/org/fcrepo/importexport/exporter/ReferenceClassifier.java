@@ -0,0 +1,174 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fcrepo.client.FcrepoOperationFailedException;
+import org.slf4j.Logger;
+
+/**
+ * Classifies the resources referenced by an exported resource as a batch. The lookups of all export tasks share one
+ * pool of threads, so the number of concurrent lookup requests is bounded no matter how many references a resource
+ * has or how many resources are exported at once. The pool's queue is bounded too: a caller submitting a batch waits
+ * for room rather than piling up lookups, and callers classify the references of a resource in chunks of at most
+ * {@link #CHUNK_SIZE}, so the lookups waiting on the heap do not grow with the width of a container.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ReferenceClassifier {
+
+    private static final Logger logger = getLogger(ReferenceClassifier.class);
+
+    public static final int DEFAULT_LOOKUPS = 8;
+
+    /**
+     * The number of references a resource holds back before they are classified
+     */
+    public static final int CHUNK_SIZE = 1000;
+
+    private static final int QUEUED_PER_THREAD = 4;
+
+    /**
+     * Determines whether a single resource is a binary
+     */
+    @FunctionalInterface
+    public interface Lookup {
+
+        /**
+         * @param uri the resource
+         * @return true if the resource is an LDP NonRDFSource
+         * @throws FcrepoOperationFailedException if the lookup request fails
+         * @throws IOException if the lookup request fails
+         */
+        boolean isBinary(URI uri) throws FcrepoOperationFailedException, IOException;
+    }
+
+    private final ExecutorService executor;
+
+    /**
+     * Constructor
+     *
+     * @param lookups the maximum number of concurrent lookups, or null for the default
+     */
+    public ReferenceClassifier(final Integer lookups) {
+        final int threads = lookups == null || lookups < 1 ? DEFAULT_LOOKUPS : lookups;
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUED_PER_THREAD), r -> {
+                    final Thread thread = new Thread(r, "reference-lookup-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (r, executor) -> {
+                    // the caller waits for room in the queue
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Reference lookups are shut down");
+                    }
+                    try {
+                        executor.getQueue().put(r);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while queueing a reference lookup", e);
+                    }
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Find the binaries among a batch of resources. Lookups are run concurrently, except for a batch with a single
+     * resource which is looked up by the calling thread. The caller blocks while the lookup queue is full.
+     *
+     * @param uris the resources to classify
+     * @param lookup how to classify a single resource
+     * @return the resources that are binaries
+     * @throws FcrepoOperationFailedException if a lookup request fails
+     * @throws IOException if a lookup request fails
+     */
+    public Set<URI> findBinaries(final Collection<URI> uris, final Lookup lookup)
+            throws FcrepoOperationFailedException, IOException {
+        final Set<URI> distinct = new LinkedHashSet<>(uris);
+        final Set<URI> binaries = new HashSet<>();
+        if (distinct.size() == 1) {
+            final URI uri = distinct.iterator().next();
+            if (lookup.isBinary(uri)) {
+                binaries.add(uri);
+            }
+            return binaries;
+        }
+
+        final List<URI> submitted = new ArrayList<>(distinct.size());
+        final List<Future<Boolean>> results = new ArrayList<>(distinct.size());
+        try {
+            for (final URI uri : distinct) {
+                results.add(executor.submit(() -> lookup.isBinary(uri)));
+                submitted.add(uri);
+            }
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).get()) {
+                    binaries.add(submitted.get(i));
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            results.forEach(f -> f.cancel(true));
+            throw new IOException("Interrupted while classifying references", e);
+        } catch (final RejectedExecutionException e) {
+            results.forEach(f -> f.cancel(true));
+            throw new IOException("Unable to classify references", e);
+        } catch (final ExecutionException e) {
+            results.forEach(f -> f.cancel(true));
+            final Throwable cause = e.getCause();
+            if (cause instanceof FcrepoOperationFailedException) {
+                throw (FcrepoOperationFailedException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+        logger.debug("Classified {} references, {} binaries", distinct.size(), binaries.size());
+        return binaries;
+    }
+
+    /**
+     * Stop the lookup threads
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
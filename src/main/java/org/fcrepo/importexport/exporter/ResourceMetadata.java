@@ -0,0 +1,232 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static org.fcrepo.importexport.common.FcrepoConstants.CONTAINER;
+import static org.fcrepo.importexport.common.FcrepoConstants.MEMENTO;
+import static org.fcrepo.importexport.common.FcrepoConstants.NON_RDF_SOURCE;
+import static org.fcrepo.importexport.common.FcrepoConstants.RDF_SOURCE;
+import static org.fcrepo.importexport.common.FcrepoConstants.TIMEMAP;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import org.fcrepo.client.FcrepoResponse;
+
+/**
+ * The metadata of a single resource, captured once from the headers of a HEAD or GET response so that the steps of
+ * an export task do not need to request it again.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ResourceMetadata {
+
+    private static final URI BINARY_TYPE = URI.create(NON_RDF_SOURCE.getURI());
+    private static final URI CONTAINER_TYPE = URI.create(CONTAINER.getURI());
+    private static final URI RDF_SOURCE_TYPE = URI.create(RDF_SOURCE.getURI());
+    private static final URI MEMENTO_TYPE = URI.create(MEMENTO.getURI());
+    private static final URI TIMEMAP_TYPE = URI.create(TIMEMAP.getURI());
+
+    private final URI uri;
+    private final int statusCode;
+    private final List<URI> types;
+    private final URI timemap;
+    private final URI acl;
+    private final List<URI> describedby;
+    private final String contentLocation;
+    private final String etag;
+    private final String lastModified;
+    private final long contentLength;
+    private final String acceptRanges;
+    private final Map<String, List<String>> headers;
+
+    private ResourceMetadata(final URI uri, final FcrepoResponse response) {
+        this.uri = uri;
+        this.statusCode = response.getStatusCode();
+        this.types = orEmpty(response.getLinkHeaders("type"));
+        this.timemap = first(response.getLinkHeaders("timemap"));
+        this.acl = first(response.getLinkHeaders("acl"));
+        this.describedby = orEmpty(response.getLinkHeaders("describedby"));
+        this.contentLocation = response.getHeaderValue("Content-Location");
+        this.etag = response.getHeaderValue("ETag");
+        this.lastModified = response.getHeaderValue("Last-Modified");
+        this.contentLength = parseLength(response.getHeaderValue("Content-Length"));
+        this.acceptRanges = response.getHeaderValue("Accept-Ranges");
+        this.headers = response.getHeaders() == null ? emptyMap() : response.getHeaders();
+    }
+
+    /**
+     * Capture the metadata of a resource from a response
+     *
+     * @param uri the resource the response is for
+     * @param response a HEAD or GET response for the resource
+     * @return the metadata
+     */
+    public static ResourceMetadata fromResponse(final URI uri, final FcrepoResponse response) {
+        return new ResourceMetadata(uri, response);
+    }
+
+    /**
+     * @return the URI of the resource
+     */
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the status code of the response the metadata was captured from
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return the rel="type" Link headers
+     */
+    public List<URI> getTypes() {
+        return types;
+    }
+
+    /**
+     * @return the rel="timemap" Link header, or null if the resource is not versioned
+     */
+    public URI getTimemap() {
+        return timemap;
+    }
+
+    /**
+     * @return the rel="acl" Link header, or null if there is none
+     */
+    public URI getAcl() {
+        return acl;
+    }
+
+    /**
+     * @return the rel="describedby" Link headers
+     */
+    public List<URI> getDescribedby() {
+        return describedby;
+    }
+
+    /**
+     * @return the Content-Location header, or null if there is none
+     */
+    public String getContentLocation() {
+        return contentLocation;
+    }
+
+    /**
+     * @return the ETag header, or null if there is none
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * @return the Last-Modified header, or null if there is none
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return the Content-Length header, or -1 if it is unknown
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * @return true if the Accept-Ranges header advertises byte ranges
+     */
+    public boolean isRangeSupported() {
+        return "bytes".equalsIgnoreCase(acceptRanges == null ? null : acceptRanges.trim());
+    }
+
+    /**
+     * @return all headers of the response
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return true if the resource is an LDP NonRDFSource
+     */
+    public boolean isBinary() {
+        return types.contains(BINARY_TYPE);
+    }
+
+    /**
+     * @return true if the resource is an LDP Container or LDP RDFSource
+     */
+    public boolean isRdf() {
+        return types.contains(CONTAINER_TYPE) || types.contains(RDF_SOURCE_TYPE);
+    }
+
+    /**
+     * @return true if the resource is a memento
+     */
+    public boolean isMemento() {
+        return types.contains(MEMENTO_TYPE);
+    }
+
+    /**
+     * @return true if the resource is a timemap
+     */
+    public boolean isTimemap() {
+        return types.contains(TIMEMAP_TYPE);
+    }
+
+    /**
+     * @return true if the binary content is stored outside the repository
+     */
+    public boolean isExternal() {
+        return contentLocation != null;
+    }
+
+    /**
+     * @return true if the response was a redirect
+     */
+    public boolean isRedirect() {
+        return statusCode >= 300 && statusCode < 400;
+    }
+
+    private static List<URI> orEmpty(final List<URI> links) {
+        return links == null ? emptyList() : links;
+    }
+
+    private static URI first(final List<URI> links) {
+        return links == null || links.isEmpty() ? null : links.get(0);
+    }
+
+    private static long parseLength(final String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+}
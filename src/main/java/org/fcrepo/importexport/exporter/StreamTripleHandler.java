@@ -17,15 +17,14 @@
  */
 package org.fcrepo.importexport.exporter;
 
-import org.apache.jena.graph.Factory;
-import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.ResourceFactory;
 import org.apache.jena.riot.Lang;
-import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
 import org.apache.jena.sparql.core.Quad;
 import org.fcrepo.client.FcrepoClient;
 import org.fcrepo.client.FcrepoOperationFailedException;
@@ -35,7 +34,6 @@ import org.slf4j.Logger;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -43,16 +41,19 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import static java.util.Collections.emptySet;
 import static org.apache.jena.graph.NodeFactory.createURI;
 import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
-import static org.fcrepo.importexport.common.FcrepoConstants.NON_RDF_SOURCE;
+import static org.fcrepo.importexport.common.FcrepoConstants.CONTAINS;
 import static org.fcrepo.importexport.common.TransferProcess.checkValidResponse;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
- * A class to handle triples from a RDFstream
+ * A class to handle triples from a RDFstream. A handler holds the state of the resource it is streaming and is not
+ * thread-safe, so each export task uses its own.
  * @author whikloj
  */
 public class StreamTripleHandler implements StreamRDF {
@@ -69,26 +70,38 @@ public class StreamTripleHandler implements StreamRDF {
     // The output stream to write to
     private OutputStream outputStream = null;
 
+    // The stream below the buffer computing the checksums of the output as it is written
+    private DigestingOutputStream digestingStream = null;
+
+    // The writer serializing the triples of the current resource to the output stream
+    private StreamRDF writer = null;
+
     // The output file to write to
     protected File file;
 
-    // The other resources to export found in the triples
-    private List<Node> exports = new ArrayList<>();
+    // The file the output is written to, which differs from the output file when exporting to an archive
+    private File staged;
+
+    // The number of other resources found in the triples, which are exported as they are found
+    private int exports = 0;
+
+    // The triples whose output depends on whether their object is a binary, at most a chunk of them
+    private List<Triple> references = new ArrayList<>();
 
-    // The predicates to include in the export as a list of nodes
-    private final List<Node> predicates = new ArrayList<>();
+    // The predicates to include in the export as a set of nodes
+    private final Set<Node> predicates;
 
-    // The RDF language to write in (currently only NTRIPLES)
-    private final Lang rdfLanguage;
+    // Whether to export the contained resources of the current resource even if ldp:contains is not a predicate
+    private boolean includeContained = false;
+
+    // The RDF format to write in, N-Triples or one of the streaming Turtle formats
+    private final RDFFormat rdfFormat;
 
     // The FcrepoClient to perform head requests to exclude binaries if necessary.
     private final FcrepoClient client;
 
     private static final Logger LOGGER = getLogger(StreamTripleHandler.class);
 
-    // The URI for a binary resource rdf:type
-    private static final URI binaryURI = URI.create(NON_RDF_SOURCE.getURI());
-
     /**
      * Constructor
      * @param config the configuration
@@ -101,11 +114,13 @@ public class StreamTripleHandler implements StreamRDF {
             final FcrepoClient client
     ) {
         this.config = config;
-        this.rdfLanguage = contentTypeToLang(config.getRdfLanguage());
+        final Lang rdfLanguage = contentTypeToLang(config.getRdfLanguage());
+        this.rdfFormat = Lang.TURTLE.equals(rdfLanguage) ? config.getTurtleFormat().getFormat() :
+                StreamRDFWriter.defaultSerialization(rdfLanguage);
         this.exporter = transferProcess;
         this.client = client;
-        this.predicates.addAll(Arrays.stream(config.getPredicates()).map(ResourceFactory::createProperty)
-                .map(Property::asNode).collect(Collectors.toList()));
+        this.predicates = Arrays.stream(config.getPredicates()).map(ResourceFactory::createProperty)
+                .map(Property::asNode).collect(Collectors.toSet());
     }
 
     /**
@@ -121,6 +136,17 @@ public class StreamTripleHandler implements StreamRDF {
         return this;
     }
 
+    /**
+     * Set whether the ldp:contains objects of the current resource are exported regardless of the configured
+     * predicates, e.g. the mementos of a timemap.
+     * @param includeContained true to export the contained resources
+     * @return this
+     */
+    public StreamTripleHandler setIncludeContained(final boolean includeContained) {
+        this.includeContained = includeContained;
+        return this;
+    }
+
     /**
      * Set the file to write to.
      * @param file the file to write to
@@ -134,7 +160,8 @@ public class StreamTripleHandler implements StreamRDF {
     @Override
     public void start() {
         LOGGER.trace("Starting stream triple handler");
-        exports = new ArrayList<>();
+        exports = 0;
+        references = new ArrayList<>();
         if (file == null) {
             LOGGER.error("No file set for output stream");
             return;
@@ -143,12 +170,16 @@ public class StreamTripleHandler implements StreamRDF {
             LOGGER.error("No resource URI set");
             return;
         }
-        if (!file.getParentFile().exists()) {
-            file.getParentFile().mkdirs();
-        }
         try {
-            outputStream = new BufferedOutputStream(new FileOutputStream(file));
-        } catch (FileNotFoundException e) {
+            staged = exporter.stagingFile(file);
+            if (!staged.getParentFile().exists()) {
+                staged.getParentFile().mkdirs();
+            }
+            digestingStream = exporter.digestingStream(new FileOutputStream(staged));
+            outputStream = new BufferedOutputStream(digestingStream);
+            writer = StreamRDFWriter.getWriterStream(outputStream, rdfFormat);
+            writer.start();
+        } catch (IOException e) {
             LOGGER.error("Error creating output stream: {}", e.getMessage());
         }
     }
@@ -156,42 +187,96 @@ public class StreamTripleHandler implements StreamRDF {
     @Override
     public void triple(final Triple triple) {
         LOGGER.trace("Triple: {}", triple);
-        // Strip trailing slashes from object URIs
-        final Node object;
-        if (triple.getObject().isURI() && triple.getObject().getURI().endsWith("/")) {
-            object = createURI(triple.getObject().getURI().substring(0, triple.getObject().getURI().length() - 1));
-        } else {
-            object = triple.getObject();
-        }
-
-        LOGGER.debug("Found triple with subject: {}", uri);
-        if (predicates.stream().anyMatch(triple::predicateMatches)) {
+        if (predicates.contains(triple.getPredicate()) ||
+                (includeContained && triple.getPredicate().equals(CONTAINS.asNode()))) {
             LOGGER.trace("Capturing object resource {} with predicate {}", uri, triple.getPredicate());
-            if (!config.isIncludeBinaries()) {
-                try {
-                    if (triple.getObject().isURI() && isBinary(URI.create(triple.getObject().getURI()))) {
-                        LOGGER.debug("Skipping binary resource: {}", triple.getObject());
-                        return;
-                    }
-                } catch (IOException | FcrepoOperationFailedException e) {
-                    LOGGER.error("Error checking if resource is binary: {}", e.getMessage());
+            if (!config.isIncludeBinaries() && triple.getObject().isURI()) {
+                // whether the object is a binary is resolved for a chunk of references at once, so that a wide
+                // container is written and its members exported as it streams rather than held until it finishes
+                references.add(triple);
+                if (references.size() >= ReferenceClassifier.CHUNK_SIZE) {
+                    resolveReferences();
                 }
+                return;
             }
-            exports.add(object);
+            export(stripSlash(triple.getObject()));
         }
-        if (object.equals(uri)) {
-            LOGGER.debug("Found triple with object: {}", uri);
-            if (config.retrieveInbound()) {
-                LOGGER.trace("Capturing inbound reference: {}", uri);
-                exports.add(triple.getSubject());
+        write(triple);
+    }
+
+    /**
+     * Write a triple to the output, unless it is an inbound reference
+     * @param triple the triple
+     */
+    private void write(final Triple triple) {
+        if (stripSlash(triple.getObject()).equals(uri) && !stripSlash(triple.getSubject()).equals(uri)) {
+            // inbound references are not written, as they are triples of other resources
+            if (config.retrieveInbound() && triple.getSubject().isURI()) {
+                LOGGER.trace("Capturing inbound reference: {}", triple.getSubject());
+                export(triple.getSubject());
             } else {
-                LOGGER.debug("Skipping inbound reference: {}", uri);
-                return;
+                LOGGER.debug("Skipping inbound reference: {}", triple.getSubject());
             }
+            return;
         }
-        final Graph graph = Factory.createDefaultGraph();
-        graph.add(triple);
-        RDFDataMgr.write(outputStream, graph, rdfLanguage);
+        writer.triple(triple);
+    }
+
+    /**
+     * Classify the objects of the collected references as a batch, then export and write the ones which are not
+     * binaries, and clear them.
+     */
+    private void resolveReferences() {
+        if (references.isEmpty()) {
+            return;
+        }
+        Set<URI> binaries = emptySet();
+        try {
+            binaries = exporter.getReferenceClassifier().findBinaries(references.stream()
+                    .map(t -> URI.create(t.getObject().getURI())).collect(Collectors.toList()), obj -> {
+                        try {
+                            return isBinary(obj);
+                        } catch (IOException | FcrepoOperationFailedException e) {
+                            LOGGER.error("Error checking if resource is binary: {}", e.getMessage());
+                            return false;
+                        }
+                    });
+        } catch (IOException | FcrepoOperationFailedException e) {
+            LOGGER.error("Error classifying references of {}: {}", uri, e.getMessage());
+        }
+        for (final Triple triple : references) {
+            if (binaries.contains(URI.create(triple.getObject().getURI()))) {
+                LOGGER.debug("Skipping binary resource: {}", triple.getObject());
+                continue;
+            }
+            export(stripSlash(triple.getObject()));
+            write(triple);
+        }
+        references.clear();
+    }
+
+    /**
+     * Export another resource found in the triples
+     * @param node the resource, ignored unless it is a URI
+     */
+    private void export(final Node node) {
+        if (!node.isURI()) {
+            return;
+        }
+        exports++;
+        exporter.export(URI.create(node.getURI()));
+    }
+
+    /**
+     * Strip the trailing slash from a URI node
+     * @param node the node
+     * @return the node without a trailing slash
+     */
+    private static Node stripSlash(final Node node) {
+        if (node.isURI() && node.getURI().endsWith("/")) {
+            return createURI(node.getURI().substring(0, node.getURI().length() - 1));
+        }
+        return node;
     }
 
     @Override
@@ -209,7 +294,10 @@ public class StreamTripleHandler implements StreamRDF {
     @Override
     public void prefix(final String s, final String s1) {
         LOGGER.trace("Prefix: {} {}", s, s1);
-        // no-op
+        // the Turtle writers abbreviate with the prefixes of the response, the N-Triples writer ignores them
+        if (writer != null) {
+            writer.prefix(s, s1);
+        }
     }
 
     @Override
@@ -217,39 +305,49 @@ public class StreamTripleHandler implements StreamRDF {
         LOGGER.debug("Finishing stream triple handler");
         try {
             if (outputStream != null) {
+                resolveReferences();
+                writer.finish();
                 outputStream.close();
-                if (this.file != null && this.file.exists()) {
-                    exporter.generateChecksums(this.file);
+                if (this.file != null && this.staged.exists()) {
+                    exporter.fileWritten(this.file, this.staged, digestingStream);
                 }
             }
-            if (!exports.isEmpty()) {
-                LOGGER.info("Exporting {} resources linked to {}", exports.size(), uri);
-                for (Node export : exports) {
-                    exporter.export(URI.create(export.getURI()));
-                }
+            if (exports > 0) {
+                LOGGER.info("Exported {} resources linked to {}", exports, uri);
             }
         } catch (IOException e) {
             LOGGER.error("Error closing output stream: {}", e.getMessage());
         } finally {
             // Reset the output stream and file
             this.outputStream = null;
+            this.digestingStream = null;
+            this.writer = null;
             this.file = null;
+            this.staged = null;
             this.uri = null;
+            this.includeContained = false;
+            this.references = new ArrayList<>();
         }
     }
 
     /**
-     * Check if the resource at obj is a binary.
+     * Check if the resource at obj is a binary, using the exporter's interaction model cache when possible.
      * @param obj the URI of the resource
      * @return true if the resource is a binary
      * @throws IOException if there is an error performing the HEAD request
      * @throws FcrepoOperationFailedException if there is an error performing the HEAD request
      */
     private boolean isBinary(final URI obj) throws IOException, FcrepoOperationFailedException {
-        try (final FcrepoResponse resp = client.head(URI.create(obj.toString())).disableRedirects().perform()) {
-            checkValidResponse(resp, URI.create(obj.toString()), config.getUsername());
-            final List<URI> linkHeaders = resp.getLinkHeaders("type");
-            return linkHeaders.contains(binaryURI);
+        final InteractionModelCache cache = exporter.getInteractionModelCache();
+        final InteractionModelCache.InteractionModel model = cache.get(obj);
+        if (model != null) {
+            return model == InteractionModelCache.InteractionModel.NON_RDF_SOURCE;
+        }
+        try (final FcrepoResponse resp = client.head(obj).disableRedirects().perform()) {
+            checkValidResponse(resp, obj, config.getUsername());
+            final ResourceMetadata metadata = ResourceMetadata.fromResponse(obj, resp);
+            cache.put(metadata);
+            return metadata.isBinary();
         }
     }
 }
@@ -0,0 +1,330 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe set of the resources an export has already visited. Only a 64-bit fingerprint of each URI is kept in
+ * memory, in open-addressing tables of primitive longs split into independently locked segments, next to the offset
+ * of the URI itself in an append-only file of keys. The file is only read when a fingerprint is already present, to
+ * confirm that the URI is the same one, so duplicates are exact even when two distinct URIs share a fingerprint. Each
+ * resource costs about twenty bytes of memory, so a hundred million resources fit in around two gigabytes.
+ *
+ * @author agent
+ * @since 2026-10-17
+ */
+public class VisitedSet implements Closeable {
+
+    private static final int SEGMENT_BITS = 8;
+
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder duplicates = new LongAdder();
+    private final ToLongFunction<String> fingerprints;
+    private final KeyStore keys = new KeyStore();
+
+    /**
+     * Constructor
+     */
+    public VisitedSet() {
+        this(VisitedSet::fingerprint);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param fingerprints the hash of the keys, never zero
+     */
+    VisitedSet(final ToLongFunction<String> fingerprints) {
+        this.fingerprints = fingerprints;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Mark a resource as visited. Trailing slashes are ignored.
+     *
+     * @param uri the resource
+     * @return true if the resource had not been visited before, false if it is a duplicate
+     * @throws UncheckedIOException if the file of keys cannot be read or written
+     */
+    public boolean add(final URI uri) {
+        final String key = key(uri);
+        final long fingerprint = fingerprints.applyAsLong(key);
+        final Segment segment = segments[(int) (fingerprint >>> (64 - SEGMENT_BITS))];
+        final boolean added;
+        try {
+            synchronized (segment) {
+                added = segment.add(fingerprint, key.getBytes(UTF_8), keys);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!added) {
+            duplicates.increment();
+        }
+        return added;
+    }
+
+    /**
+     * @param uri the resource
+     * @return true if the resource has been visited
+     * @throws UncheckedIOException if the file of keys cannot be read
+     */
+    public boolean contains(final URI uri) {
+        final String key = key(uri);
+        final long fingerprint = fingerprints.applyAsLong(key);
+        final Segment segment = segments[(int) (fingerprint >>> (64 - SEGMENT_BITS))];
+        try {
+            synchronized (segment) {
+                return segment.find(fingerprint, key.getBytes(UTF_8), keys) >= 0;
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the number of distinct resources visited
+     */
+    public long size() {
+        long size = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of times a resource that had already been visited was added again
+     */
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    /**
+     * Delete the file of keys
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        keys.close();
+    }
+
+    @Override
+    public String toString() {
+        return "[visited: " + size() + "; duplicates: " + getDuplicates() + "]";
+    }
+
+    private static String key(final URI uri) {
+        final String key = uri.toString();
+        return key.endsWith("/") ? key.substring(0, key.length() - 1) : key;
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the UTF-8 bytes, finished with the MurmurHash3 avalanche step so that both the high
+     * bits (which select the segment) and the low bits (which select the slot) are well mixed.
+     *
+     * @param key the string to hash
+     * @return the fingerprint, never zero
+     */
+    static long fingerprint(final String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : key.getBytes(UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        // zero marks an empty slot
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * An open-addressing set of fingerprints with linear probing, each with the offset of its key
+     */
+    private static class Segment {
+        private long[] table = new long[64];
+        private long[] offsets = new long[64];
+        private int size = 0;
+
+        private boolean add(final long fingerprint, final byte[] key, final KeyStore keys) throws IOException {
+            final int slot = find(fingerprint, key, keys);
+            if (slot >= 0) {
+                return false;
+            }
+            if (size + 1 > table.length * 0.8) {
+                resize();
+            }
+            insert(table, offsets, fingerprint, keys.append(key));
+            size++;
+            return true;
+        }
+
+        /**
+         * @return the slot of the key, or -1 if it is not in the set
+         */
+        private int find(final long fingerprint, final byte[] key, final KeyStore keys) throws IOException {
+            final int mask = table.length - 1;
+            for (int i = (int) fingerprint & mask; table[i] != 0; i = (i + 1) & mask) {
+                // distinct keys may share a fingerprint, so a match is confirmed against the key itself
+                if (table[i] == fingerprint && keys.matches(offsets[i], key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void resize() {
+            final long[] resized = new long[table.length * 2];
+            final long[] resizedOffsets = new long[table.length * 2];
+            for (int i = 0; i < table.length; i++) {
+                if (table[i] != 0) {
+                    insert(resized, resizedOffsets, table[i], offsets[i]);
+                }
+            }
+            table = resized;
+            offsets = resizedOffsets;
+        }
+
+        private static void insert(final long[] table, final long[] offsets, final long fingerprint,
+                final long offset) {
+            final int mask = table.length - 1;
+            int i = (int) fingerprint & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = fingerprint;
+            offsets[i] = offset;
+        }
+    }
+
+    /**
+     * An append-only temporary file of length-prefixed keys. The most recent keys are buffered in memory, so the
+     * file is only read for keys which were added a while ago.
+     */
+    private static class KeyStore implements Closeable {
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final ByteBuffer length = ByteBuffer.allocate(4);
+        private Path file;
+        private FileChannel channel;
+        private long written = 0;
+
+        /**
+         * @return the offset of the key
+         */
+        private synchronized long append(final byte[] key) throws IOException {
+            if (buffer.remaining() < key.length + 4) {
+                flush();
+            }
+            final long offset = written + buffer.position();
+            if (buffer.remaining() < key.length + 4) {
+                // too long for the buffer, so written directly
+                final ByteBuffer entry = ByteBuffer.allocate(key.length + 4).putInt(key.length).put(key);
+                entry.flip();
+                write(entry);
+            } else {
+                buffer.putInt(key.length).put(key);
+            }
+            return offset;
+        }
+
+        private synchronized boolean matches(final long offset, final byte[] key) throws IOException {
+            if (offset >= written) {
+                final int position = (int) (offset - written);
+                if (buffer.getInt(position) != key.length) {
+                    return false;
+                }
+                for (int i = 0; i < key.length; i++) {
+                    if (buffer.get(position + 4 + i) != key[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            length.clear();
+            read(length, offset);
+            if (length.getInt(0) != key.length) {
+                return false;
+            }
+            final ByteBuffer stored = ByteBuffer.allocate(key.length);
+            read(stored, offset + 4);
+            return Arrays.equals(stored.array(), key);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(final ByteBuffer entries) throws IOException {
+            if (channel == null) {
+                file = Files.createTempFile("visited-", ".keys");
+                file.toFile().deleteOnExit();
+                channel = FileChannel.open(file, READ, WRITE);
+            }
+            while (entries.hasRemaining()) {
+                written += channel.write(entries, written);
+            }
+        }
+
+        private void read(final ByteBuffer target, final long offset) throws IOException {
+            while (target.hasRemaining()) {
+                if (channel.read(target, offset + target.position()) < 0) {
+                    throw new EOFException("Visited key at offset " + offset + " is missing");
+                }
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                Files.deleteIfExists(file);
+                channel = null;
+            }
+        }
+    }
+}
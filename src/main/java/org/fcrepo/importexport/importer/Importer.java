@@ -56,6 +56,7 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -66,6 +67,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.time.ZonedDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -75,13 +77,19 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import gov.loc.repository.bagit.domain.Manifest;
+import gov.loc.repository.bagit.exceptions.CorruptChecksumException;
 import gov.loc.repository.bagit.verify.BagVerifier;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.rdf.model.Property;
 import org.duraspace.bagit.BagItDigest;
@@ -96,6 +104,8 @@ import org.fcrepo.client.PostBuilder;
 import org.fcrepo.client.PutBuilder;
 import org.fcrepo.importexport.common.AuthenticationRequiredRuntimeException;
 import org.fcrepo.importexport.common.Config;
+import org.fcrepo.importexport.common.DigestEngine;
+import org.fcrepo.importexport.common.PooledFcrepoClient;
 import org.fcrepo.importexport.common.ResourceNotFoundRuntimeException;
 import org.fcrepo.importexport.common.TransferProcess;
 
@@ -126,6 +136,7 @@ public class Importer implements TransferProcess {
     private static final Logger logger = getLogger(Importer.class);
     private final Config config;
     protected FcrepoClient.FcrepoClientBuilder clientBuilder;
+    private FcrepoClient client;
     private final List<URI> membershipResources = new ArrayList<>();
     private final List<URI> relatedResources = new ArrayList<>();
     private final List<URI> importedResources = new ArrayList<>();
@@ -202,10 +213,13 @@ public class Importer implements TransferProcess {
     }
 
     private FcrepoClient client() {
-        if (config.getUsername() != null) {
-            clientBuilder.credentials(config.getUsername(), config.getPassword());
+        if (client == null) {
+            if (config.getUsername() != null) {
+                clientBuilder.credentials(config.getUsername(), config.getPassword());
+            }
+            client = clientBuilder.build();
         }
-        return clientBuilder.build();
+        return client;
     }
 
     /**
@@ -215,12 +229,25 @@ public class Importer implements TransferProcess {
     public void run() {
         logger.info("Running importer...");
 
-        repositoryRoot = findRepositoryRoot(config.getResource());
-        logger.debug("Repository root {}", repositoryRoot);
+        try {
+            repositoryRoot = findRepositoryRoot(config.getResource());
+            logger.debug("Repository root {}", repositoryRoot);
 
-        processImport(config.getResource());
+            processImport(config.getResource());
 
-        importLogger.info("Finished import... {} resources imported", successCount.get());
+            if (client instanceof PooledFcrepoClient) {
+                logger.info("Connection pool: {}", ((PooledFcrepoClient) client).getPoolStats());
+            }
+            importLogger.info("Finished import... {} resources imported", successCount.get());
+        } finally {
+            if (client instanceof Closeable) {
+                try {
+                    ((Closeable) client).close();
+                } catch (final IOException e) {
+                    logger.warn("Failed to close HTTP client: {}", e.getMessage());
+                }
+            }
+        }
     }
 
     private void processImport(final URI resource) {
@@ -893,7 +920,8 @@ public class Importer implements TransferProcess {
             final Bag bag = bagReader.read(bagDir);
             profile.validateBag(bag);
 
-            bagVerifier.isValid(bag, false);
+            bagVerifier.isComplete(bag, false);
+            verifyChecksums(bag);
 
             return bag;
         } catch (Exception e) {
@@ -902,6 +930,65 @@ public class Importer implements TransferProcess {
         }
     }
 
+    /**
+     * Verify the checksums in the payload and tag manifests of a bag. Each file is read once and all of its digests
+     * are computed together, rather than reading it again for every manifest. Files are verified concurrently.
+     *
+     * @param bag the bag to verify
+     * @throws Exception if a checksum does not match or a file cannot be read
+     */
+    private void verifyChecksums(final Bag bag) throws Exception {
+        final Map<Path, Map<String, String>> checksums = new HashMap<>();
+        final List<Manifest> manifests = new ArrayList<>(bag.getPayLoadManifests());
+        manifests.addAll(bag.getTagManifests());
+        for (final Manifest manifest : manifests) {
+            final String algorithm = manifest.getAlgorithm().getMessageDigestName();
+            manifest.getFileToChecksumMap().forEach((file, checksum) ->
+                    checksums.computeIfAbsent(file, k -> new HashMap<>()).put(algorithm, checksum));
+        }
+
+        final DigestEngine digestEngine = new DigestEngine(null);
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            final List<Future<Void>> results = new ArrayList<>(checksums.size());
+            for (final Map.Entry<Path, Map<String, String>> entry : checksums.entrySet()) {
+                results.add(executor.submit(() -> verifyChecksums(digestEngine, entry.getKey(), entry.getValue())));
+            }
+            for (final Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (final ExecutionException e) {
+                    results.forEach(f -> f.cancel(true));
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+            logger.debug("Verified the checksums of {} files", checksums.size());
+        } finally {
+            executor.shutdownNow();
+            digestEngine.shutdown();
+        }
+    }
+
+    private static Void verifyChecksums(final DigestEngine digestEngine, final Path file,
+            final Map<String, String> checksums) throws Exception {
+        final Map<String, MessageDigest> digests = new HashMap<>();
+        for (final String algorithm : checksums.keySet()) {
+            digests.put(algorithm, MessageDigest.getInstance(algorithm));
+        }
+        try (final InputStream in = Files.newInputStream(file)) {
+            digestEngine.digest(in, digests.values());
+        }
+        for (final Map.Entry<String, MessageDigest> digest : digests.entrySet()) {
+            final String expected = checksums.get(digest.getKey());
+            final String computed = Hex.encodeHexString(digest.getValue().digest());
+            if (!computed.equalsIgnoreCase(expected)) {
+                throw new CorruptChecksumException("File [{}] is supposed to have a [{}] hash of [{}] but was " +
+                        "computed [{}]", file, digest.getKey(), expected, computed);
+            }
+        }
+        return null;
+    }
+
     /**
      * Query a {@link Bag} for the highest ranking {@link Manifest} and use that in order to populate the
      * {@code bagItFileMap} and {@code digestAlgorithm} for use when importing files
@@ -25,11 +25,14 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Paths;
 import java.util.Map;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.duraspace.bagit.profile.BagProfile;
+import org.fcrepo.importexport.common.BinaryOrder;
 import org.fcrepo.importexport.common.Config;
+import org.fcrepo.importexport.common.TurtleFormat;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -421,6 +424,44 @@ public class ArgParserTest {
         Assert.assertEquals("false", config.get("isRdfSet"));
     }
 
+    @Test
+    public void testStreamingExportTurtle() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS, "--streaming",
+                "-l", "text/turtle", "--turtle-format", "flat"));
+        Assert.assertEquals("text/turtle", config.getRdfLanguage());
+        Assert.assertEquals(TurtleFormat.FLAT, config.getTurtleFormat());
+        Assert.assertEquals("flat", config.getMap().get("turtleFormat"));
+    }
+
+    @Test
+    public void testStreamingExportDefaultTurtleFormat() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS, "--streaming",
+                "-l", "text/turtle"));
+        Assert.assertEquals(TurtleFormat.BLOCKS, config.getTurtleFormat());
+        Assert.assertEquals("blocks", config.getMap().get("turtleFormat"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStreamingExportInvalidTurtleFormat() {
+        parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS, "--streaming", "-l", "text/turtle",
+                "--turtle-format", "pretty"));
+    }
+
+    @Test
+    public void testStreamingThreshold() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "-l", "application/n-triples", "--streaming-threshold", "64"));
+        Assert.assertFalse(config.isStreaming());
+        Assert.assertEquals(Integer.valueOf(64), config.getStreamingThreshold());
+        Assert.assertEquals("64", config.getMap().get("streamingThreshold"));
+    }
+
+    @Test
+    public void testStreamingThresholdRdfLang() {
+        assertThrows(RuntimeException.class, () -> parser.parseConfiguration(ArrayUtils.addAll(
+                MINIMAL_VALID_EXPORT_ARGS, "--streaming-threshold", "64", "-l", "application/ld+json")));
+    }
+
     /**
      * Test that default RDF language is set to application/n-triples when streaming is enabled and isRdfSet is true
      */
@@ -462,4 +503,151 @@ public class ArgParserTest {
         Assert.assertEquals("false", config.get("streaming"));
         Assert.assertEquals("false", config.get("isRdfSet"));
     }
+
+    @Test
+    public void parseConnectionPoolOptions() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--max-connections", "64", "--max-connections-per-route", "32",
+                "--idle-timeout", "10", "--keep-alive", "5"));
+        Assert.assertEquals(Integer.valueOf(64), config.getMaxConnections());
+        Assert.assertEquals(Integer.valueOf(32), config.getMaxConnectionsPerRoute());
+        Assert.assertEquals(Integer.valueOf(10), config.getIdleTimeout());
+        Assert.assertEquals(Integer.valueOf(5), config.getKeepAlive());
+
+        final Map<String, String> map = config.getMap();
+        Assert.assertEquals("64", map.get("maxConnections"));
+        Assert.assertEquals("32", map.get("maxConnectionsPerRoute"));
+        Assert.assertEquals("10", map.get("idleTimeout"));
+        Assert.assertEquals("5", map.get("keepAlive"));
+    }
+
+    @Test
+    public void parseConnectionPoolDefaults() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--max-connections", "0"));
+        Assert.assertNull(config.getMaxConnections());
+        Assert.assertNull(config.getMaxConnectionsPerRoute());
+        Assert.assertFalse(config.getMap().containsKey("maxConnections"));
+    }
+
+    @Test
+    public void parseVirtualThreadOptions() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--virtual-threads", "--max-requests", "500"));
+        Assert.assertTrue(config.isVirtualThreads());
+        Assert.assertEquals(Integer.valueOf(500), config.getMaxRequests());
+        Assert.assertEquals("true", config.getMap().get("virtualThreads"));
+        Assert.assertEquals("500", config.getMap().get("maxRequests"));
+    }
+
+    @Test
+    public void parseBinaryLaneOptions() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--binary-threads", "2", "--binary-order", "largest-first"));
+        Assert.assertEquals(Integer.valueOf(2), config.getBinaryThreads());
+        Assert.assertEquals(BinaryOrder.LARGEST_FIRST, config.getBinaryOrder());
+        Assert.assertEquals("2", config.getMap().get("binaryThreads"));
+        Assert.assertEquals("largest-first", config.getMap().get("binaryOrder"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseInvalidBinaryOrder() {
+        parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--binary-threads", "2", "--binary-order", "random"));
+    }
+
+    @Test
+    public void parseJournalOptions() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--journal", "/tmp/export.journal", "--resume"));
+        Assert.assertEquals(Paths.get("/tmp/export.journal"), config.getJournal());
+        Assert.assertTrue(config.isResume());
+        Assert.assertEquals("/tmp/export.journal", config.getMap().get("journal"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void parseResumeWithoutJournal() {
+        parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS, "--resume"));
+    }
+
+    @Test
+    public void parseDirectBuffers() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--direct-buffers"));
+        Assert.assertTrue(config.isDirectBuffers());
+        Assert.assertEquals("true", config.getMap().get("directBuffers"));
+    }
+
+    @Test
+    public void parseRangeOptions() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--range-segments", "8", "--range-threshold", "256"));
+        Assert.assertEquals(Integer.valueOf(8), config.getRangeSegments());
+        Assert.assertEquals(Integer.valueOf(256), config.getRangeThreshold());
+        Assert.assertEquals("8", config.getMap().get("rangeSegments"));
+        Assert.assertEquals("256", config.getMap().get("rangeThreshold"));
+    }
+
+    @Test
+    public void parseIncremental() {
+        final String previous = System.getProperty("java.io.tmpdir");
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--incremental", previous));
+        Assert.assertEquals(new File(previous).getAbsoluteFile().toPath().normalize().toFile(),
+                config.getIncremental().getAbsoluteFile());
+        Assert.assertEquals(config.getIncremental().getAbsolutePath(), config.getMap().get("incremental"));
+    }
+
+    @Test
+    public void parseIncrementalIntoSameDirectory() {
+        final String dir = System.getProperty("java.io.tmpdir");
+        try {
+            parser.parseConfiguration(new String[]{"-m", "export", "-d", dir, "-r", "http://localhost:8080/rest/1",
+                    "--incremental", dir});
+            Assert.fail("An incremental export into the export it updates should be rejected");
+        } catch (final RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("different directory"));
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void parseIncrementalMissingDirectory() {
+        parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS, "--incremental",
+                "/tmp/no-such-export-" + System.nanoTime()));
+    }
+
+    @Test
+    public void parseArchive() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--archive", "/tmp/export.tar.gz"));
+        Assert.assertEquals("/tmp/export.tar.gz", config.getArchive());
+        Assert.assertEquals("/tmp/export.tar.gz", config.getMap().get("archive"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void parseArchiveWithJournal() {
+        parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS, "--archive", "-",
+                "--journal", "/tmp/export.journal"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseArchiveUnsupportedFormat() {
+        parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS, "--archive", "/tmp/export.7z",
+                "-s", "7z"));
+    }
+
+    @Test
+    public void parseCompression() {
+        final Config config = parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS,
+                "--compression-threads", "16", "--compression-level", "0"));
+        Assert.assertEquals(Integer.valueOf(16), config.getCompressionThreads());
+        Assert.assertEquals(Integer.valueOf(0), config.getCompressionLevel());
+        Assert.assertEquals("16", config.getMap().get("compressionThreads"));
+        Assert.assertEquals("0", config.getMap().get("compressionLevel"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void parseInvalidCompressionLevel() {
+        parser.parseConfiguration(ArrayUtils.addAll(MINIMAL_VALID_EXPORT_ARGS, "--compression-level", "10"));
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class DigestEngineTest {
+
+    private static final String[] ALGORITHMS = new String[]{"MD5", "SHA-1", "SHA-256", "SHA-512"};
+
+    private final DigestEngine engine = new DigestEngine(3);
+
+    @After
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        for (final int size : new int[]{0, 1, DigestEngine.BUFFER_SIZE, DigestEngine.BUFFER_SIZE * 7 / 2}) {
+            final byte[] data = randomBytes(size, size);
+            final List<MessageDigest> digests = digests();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            assertEquals(size, engine.copy(new TrickleInputStream(data), out, digests));
+            assertArrayEquals(data, out.toByteArray());
+            assertDigests(data, digests);
+        }
+    }
+
+    @Test
+    public void testConcurrentCopies() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                final byte[] data = randomBytes(i, DigestEngine.BUFFER_SIZE * 2 + i * 1000);
+                futures.add(executor.submit(() -> {
+                    final List<MessageDigest> digests = digests();
+                    assertEquals(data.length, engine.digest(new ByteArrayInputStream(data), digests));
+                    assertDigests(data, digests);
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadFailure() throws Exception {
+        final byte[] data = randomBytes(1, DigestEngine.BUFFER_SIZE * 3);
+        final InputStream failing = new FilterInputStream(new ByteArrayInputStream(data)) {
+            private int reads = 0;
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                if (++reads > 2) {
+                    throw new IOException("connection reset");
+                }
+                return super.read(b, off, len);
+            }
+        };
+        try {
+            engine.copy(failing, new ByteArrayOutputStream(), digests());
+            fail("Expected the read failure to be thrown");
+        } catch (final IOException e) {
+            assertEquals("connection reset", e.getMessage());
+        }
+
+        // the engine is still usable afterwards
+        final List<MessageDigest> digests = digests();
+        engine.digest(new ByteArrayInputStream(data), digests);
+        assertDigests(data, digests);
+    }
+
+    private static List<MessageDigest> digests() throws Exception {
+        final List<MessageDigest> digests = new ArrayList<>();
+        for (final String algorithm : ALGORITHMS) {
+            digests.add(MessageDigest.getInstance(algorithm));
+        }
+        return digests;
+    }
+
+    private static void assertDigests(final byte[] data, final List<MessageDigest> digests) throws Exception {
+        for (int i = 0; i < ALGORITHMS.length; i++) {
+            final byte[] expected = MessageDigest.getInstance(ALGORITHMS[i]).digest(data);
+            assertArrayEquals(ALGORITHMS[i], expected, digests.get(i).digest());
+        }
+    }
+
+    private static byte[] randomBytes(final long seed, final int size) {
+        final byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Returns at most a few kilobytes per read, like a network stream
+     */
+    private static class TrickleInputStream extends ByteArrayInputStream {
+        TrickleInputStream(final byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) {
+            return super.read(b, off, Math.min(len, 3000));
+        }
+    }
+}
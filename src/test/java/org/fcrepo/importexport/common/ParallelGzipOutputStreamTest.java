@@ -0,0 +1,145 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ParallelGzipOutputStreamTest {
+
+    private static final Logger logger = getLogger(ParallelGzipOutputStreamTest.class);
+
+    private static final int BLOCK_SIZE = 1000;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (final int size : new int[]{0, 1, BLOCK_SIZE - 1, BLOCK_SIZE, BLOCK_SIZE * 2, BLOCK_SIZE * 37 + 5}) {
+            final byte[] data = text(size, size);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (final OutputStream gzip = new ParallelGzipOutputStream(out, 3, null, BLOCK_SIZE)) {
+                gzip.write(data);
+            }
+            assertArrayEquals("size " + size, data, gunzip(out.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testSmallWrites() throws IOException {
+        final byte[] data = text(BLOCK_SIZE * 5 + 17, 7);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final OutputStream gzip = new ParallelGzipOutputStream(out, 2, 9, BLOCK_SIZE)) {
+            for (int i = 0; i < data.length; ) {
+                if (i % 3 == 0) {
+                    gzip.write(data[i++]);
+                } else {
+                    final int length = Math.min(data.length - i, 301);
+                    gzip.write(data, i, length);
+                    i += length;
+                }
+                if (i % 1024 == 0) {
+                    gzip.flush();
+                }
+            }
+        }
+        assertArrayEquals(data, gunzip(out.toByteArray()));
+    }
+
+    @Test
+    public void testMembers() throws IOException {
+        final byte[] data = text(BLOCK_SIZE * 3, 11);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final OutputStream gzip = new ParallelGzipOutputStream(out, 4, 0, BLOCK_SIZE)) {
+            gzip.write(data);
+        }
+        // level 0 stores each block: header, one stored deflate block of 5 + BLOCK_SIZE bytes, and trailer
+        assertEquals(3 * (10 + 5 + BLOCK_SIZE + 8), out.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLevel() {
+        new ParallelGzipOutputStream(new ByteArrayOutputStream(), 1, 10);
+    }
+
+    /**
+     * Compares the throughput of the parallel stream with GZIPOutputStream. Run with -Dbenchmark=true.
+     */
+    @Test
+    public void benchmark() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        final byte[] data = text(256 * 1024 * 1024, 42);
+        final int threads = Runtime.getRuntime().availableProcessors();
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            try (final OutputStream gzip = new GZIPOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, 64 * 1024)) {
+                gzip.write(data);
+            }
+            final long single = System.nanoTime() - start;
+            start = System.nanoTime();
+            try (final OutputStream gzip = new ParallelGzipOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, threads,
+                    null)) {
+                gzip.write(data);
+            }
+            final long parallel = System.nanoTime() - start;
+            logger.info("gzip of {} MB: GZIPOutputStream {} MB/s, ParallelGzipOutputStream ({} threads) {} MB/s",
+                    data.length >> 20, throughput(data.length, single), threads, throughput(data.length, parallel));
+        }
+    }
+
+    private static long throughput(final long bytes, final long nanos) {
+        return (bytes >> 20) * 1_000_000_000L / Math.max(nanos, 1);
+    }
+
+    private static byte[] gunzip(final byte[] gzip) throws IOException {
+        try (final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    /**
+     * Compressible input: random words from a small vocabulary
+     */
+    private static byte[] text(final int size, final long seed) {
+        final String[] words = {"fedora", "repository", "export", "binary", "container", "memento ", "\n", " "};
+        final Random random = new Random(seed);
+        final StringBuilder text = new StringBuilder(size + 16);
+        while (text.length() < size) {
+            text.append(words[random.nextInt(words.length)]);
+        }
+        return text.substring(0, size).getBytes(UTF_8);
+    }
+}
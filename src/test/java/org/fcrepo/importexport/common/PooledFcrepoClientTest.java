@@ -0,0 +1,170 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.fcrepo.importexport.common.PooledFcrepoClient.pooledClient;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.pool.PoolStats;
+import org.fcrepo.client.FcrepoOperationFailedException;
+import org.fcrepo.client.FcrepoResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class PooledFcrepoClientTest {
+
+    private HttpServer server;
+    private URI resource;
+    private URI missing;
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/rest/", exchange -> {
+            authorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+            final byte[] body = "content".getBytes(UTF_8);
+            final boolean found = !exchange.getRequestURI().getPath().endsWith("/missing");
+            exchange.sendResponseHeaders(found ? 200 : 404, found ? body.length : -1);
+            if (found) {
+                try (final OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        final String base = "http://localhost:" + server.getAddress().getPort() + "/rest/";
+        resource = URI.create(base + "1");
+        missing = URI.create(base + "missing");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testRequestCountAndPoolStats() throws Exception {
+        try (final PooledFcrepoClient client = pooledClient().maxTotal(5).maxPerRoute(3).build()) {
+            assertEquals(5, client.getPoolStats().getMax());
+            assertEquals(0, client.getRequestCount());
+
+            try (final FcrepoResponse response = client.get(resource).perform()) {
+                assertEquals(200, response.getStatusCode());
+                // the connection is leased until the body is consumed
+                final PoolStats leased = client.getPoolStats();
+                assertEquals(1, leased.getLeased());
+                assertEquals(0, leased.getPending());
+                assertEquals("content", IOUtils.toString(response.getBody(), UTF_8));
+            }
+            final PoolStats released = client.getPoolStats();
+            assertEquals(0, released.getLeased());
+            assertEquals(1, released.getAvailable());
+
+            // the next requests reuse the pooled connection
+            for (int i = 0; i < 2; i++) {
+                try (final FcrepoResponse response = client.head(resource).perform()) {
+                    assertEquals(200, response.getStatusCode());
+                }
+            }
+            assertEquals(3, client.getRequestCount());
+            assertEquals(1, client.getPoolStats().getAvailable());
+        }
+    }
+
+    @Test
+    public void testPreemptiveAuthentication() throws Exception {
+        try (final PooledFcrepoClient client = pooledClient().credentials("user", "secret").build()) {
+            try (final FcrepoResponse response = client.head(resource).perform()) {
+                assertEquals(200, response.getStatusCode());
+            }
+        }
+        // the credentials are sent with the first request, without waiting for a challenge
+        assertEquals(1, authorizations.size());
+        assertEquals("Basic " + Base64.getEncoder().encodeToString("user:secret".getBytes(UTF_8)),
+                authorizations.get(0));
+    }
+
+    @Test
+    public void testNoCredentials() throws Exception {
+        try (final PooledFcrepoClient client = pooledClient().build()) {
+            try (final FcrepoResponse response = client.head(resource).perform()) {
+                assertEquals(200, response.getStatusCode());
+            }
+        }
+        assertEquals("null", authorizations.get(0));
+    }
+
+    @Test
+    public void testFailureStatus() throws Exception {
+        try (final PooledFcrepoClient client = pooledClient().build()) {
+            try (final FcrepoResponse response = client.head(missing).perform()) {
+                assertEquals(404, response.getStatusCode());
+            }
+        }
+        try (final PooledFcrepoClient client = pooledClient().throwExceptionOnFailure().build()) {
+            try {
+                client.get(missing).perform();
+                fail("A failure status should throw");
+            } catch (final FcrepoOperationFailedException e) {
+                assertEquals(404, e.getStatusCode());
+            }
+            // the failed response is closed, releasing its connection
+            assertEquals(0, client.getPoolStats().getLeased());
+            assertEquals(1, client.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        final PooledFcrepoClient client = pooledClient().build();
+        try (final FcrepoResponse response = client.get(resource).perform()) {
+            assertEquals("content", IOUtils.toString(response.getBody(), UTF_8));
+        }
+        assertEquals(1, client.getPoolStats().getAvailable());
+        client.close();
+        // closing the client closes the pooled connections
+        assertEquals(0, client.getPoolStats().getAvailable());
+        assertEquals(0, client.getPoolStats().getLeased());
+        try {
+            client.head(resource).perform();
+            fail("A closed client should not send requests");
+        } catch (final FcrepoOperationFailedException | IllegalStateException e) {
+            // expected
+        }
+    }
+}
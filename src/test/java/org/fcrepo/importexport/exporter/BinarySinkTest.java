@@ -0,0 +1,171 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assume.assumeTrue;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.fcrepo.importexport.common.DigestEngine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class BinarySinkTest {
+
+    private static final Logger logger = getLogger(BinarySinkTest.class);
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("binary-sink-test", ".binary");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(PartialDownload.sidecarFor(file));
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        final byte[] data = randomBytes(1000);
+        try (final BinarySink sink = new BinarySink(file, false)) {
+            sink.write(data, 0, 600);
+            sink.write(data, 600, 400);
+            assertEquals(data.length, sink.getBytesWritten());
+        }
+        assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testReplaceLongerFile() throws Exception {
+        Files.write(file.toPath(), randomBytes(5000));
+        final byte[] data = randomBytes(1000);
+        try (final BinarySink sink = new BinarySink(file, false)) {
+            sink.write(data);
+        }
+        assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testDirectBuffer() throws Exception {
+        final byte[] data = randomBytes(DigestEngine.BUFFER_SIZE * 2 + 17);
+        try (final BinarySink sink = new BinarySink(file, true)) {
+            sink.write(data, 0, 17);
+            sink.write(data, 17, data.length - 17);
+            assertEquals(data.length, sink.getBytesWritten());
+        }
+        assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+
+        // a pooled buffer is reused by the next sink
+        try (final BinarySink sink = new BinarySink(file, true)) {
+            sink.write(Arrays.copyOf(data, 3));
+        }
+        assertArrayEquals(Arrays.copyOf(data, 3), Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testResumeDownload() throws Exception {
+        final byte[] data = randomBytes(1000);
+        final PartialDownload download = PartialDownload.start(file, "\"abc\"", null);
+        try (final BinarySink sink = new BinarySink(file, download, false)) {
+            sink.write(data, 0, 600);
+            sink.checkpoint();
+            // bytes written after the checkpoint are written again when resuming
+            sink.write(data, 600, 100);
+        }
+
+        final PartialDownload resume = PartialDownload.load(file);
+        assertEquals(600, resume.getOffset());
+        try (final BinarySink sink = new BinarySink(file, resume, false)) {
+            sink.write(data, 600, 400);
+            assertEquals(400, sink.getBytesWritten());
+        }
+        assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+        resume.complete();
+        assertFalse(Files.exists(PartialDownload.sidecarFor(file)));
+    }
+
+    /**
+     * Compares the throughput of writing 1 GB in the digest engine's blocks through a buffered FileOutputStream, as
+     * files were written before, with the sink on heap blocks and on pooled direct buffers. Run with
+     * -Dbenchmark=true; the results depend heavily on the file system and the page cache.
+     */
+    @Test
+    public void benchmark() throws Exception {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        final byte[] block = randomBytes(DigestEngine.BUFFER_SIZE);
+        final long size = 1024L * 1024 * 1024;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                writeBlocks(out, block, size);
+            }
+            final long stream = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try (final BinarySink sink = new BinarySink(file, false)) {
+                writeBlocks(sink, block, size);
+            }
+            final long heap = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try (final BinarySink sink = new BinarySink(file, true)) {
+                writeBlocks(sink, block, size);
+            }
+            final long direct = System.nanoTime() - start;
+            logger.info("write of {} MB: FileOutputStream {} MB/s, BinarySink {} MB/s, BinarySink direct {} MB/s",
+                    size >> 20, throughput(size, stream), throughput(size, heap), throughput(size, direct));
+        }
+    }
+
+    private static void writeBlocks(final OutputStream out, final byte[] block, final long size)
+            throws IOException {
+        for (long written = 0; written < size; written += block.length) {
+            out.write(block, 0, (int) Math.min(block.length, size - written));
+        }
+    }
+
+    private static long throughput(final long bytes, final long nanos) {
+        return (bytes >> 20) * 1_000_000_000L / Math.max(nanos, 1);
+    }
+
+    private static byte[] randomBytes(final int size) {
+        final byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
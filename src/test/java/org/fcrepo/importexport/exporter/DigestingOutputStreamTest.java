@@ -0,0 +1,72 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.duraspace.bagit.BagItDigest;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class DigestingOutputStreamTest {
+
+    private static final byte[] CONTENT = "<a> <b> <c> .\n<a> <b> <d> .\n".getBytes(UTF_8);
+
+    @Test
+    public void testDigestsWhatIsWritten() throws IOException {
+        final Map<String, MessageDigest> digests = new HashMap<>();
+        digests.put(BagItDigest.MD5.bagitName(), BagItDigest.MD5.messageDigest());
+        digests.put(BagItDigest.SHA256.bagitName(), BagItDigest.SHA256.messageDigest());
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (final DigestingOutputStream out = new DigestingOutputStream(target, digests)) {
+            out.write(CONTENT[0]);
+            out.write(CONTENT, 1, 10);
+            out.write(CONTENT, 11, CONTENT.length - 11);
+            out.close();
+
+            assertArrayEquals(CONTENT, target.toByteArray());
+            assertEquals(CONTENT.length, out.getByteCount());
+            final Map<String, String> hex = out.getDigests();
+            assertEquals(DigestUtils.md5Hex(CONTENT), hex.get(BagItDigest.MD5.bagitName()));
+            assertEquals(DigestUtils.sha256Hex(CONTENT), hex.get(BagItDigest.SHA256.bagitName()));
+        }
+    }
+
+    @Test
+    public void testCountsWithoutDigests() throws IOException {
+        try (final DigestingOutputStream out = new DigestingOutputStream(new ByteArrayOutputStream(),
+                new HashMap<>())) {
+            out.write(CONTENT);
+            assertEquals(CONTENT.length, out.getByteCount());
+            assertTrue(out.getDigests().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ExportArchiveTest {
+
+    private final File exportDir = new File("/tmp/export-archive");
+
+    @Test
+    public void testFormat() {
+        assertEquals(ExportArchive.Format.TAR, ExportArchive.Format.of(null, "export.tar"));
+        assertEquals(ExportArchive.Format.TAR_GZ, ExportArchive.Format.of(null, "export.tar.gz"));
+        assertEquals(ExportArchive.Format.TAR_GZ, ExportArchive.Format.of(null, "export.TGZ"));
+        assertEquals(ExportArchive.Format.ZIP, ExportArchive.Format.of(null, "export.zip"));
+        assertEquals(ExportArchive.Format.TAR, ExportArchive.Format.of(null, "-"));
+        assertEquals(ExportArchive.Format.TAR_GZ, ExportArchive.Format.of("gzip", "export.zip"));
+        assertEquals(ExportArchive.Format.ZIP, ExportArchive.Format.of("zip", "export"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedFormat() {
+        ExportArchive.Format.of("7z", "export.7z");
+    }
+
+    @Test
+    public void testTar() throws IOException {
+        final byte[] archive = write(ExportArchive.Format.TAR);
+        assertEntries(read(new TarArchiveInputStream(new ByteArrayInputStream(archive))));
+    }
+
+    @Test
+    public void testTarGz() throws IOException {
+        final byte[] archive = write(ExportArchive.Format.TAR_GZ);
+        assertEntries(read(new TarArchiveInputStream(new GZIPInputStream(new ByteArrayInputStream(archive)))));
+    }
+
+    @Test
+    public void testZip() throws IOException {
+        final byte[] archive = write(ExportArchive.Format.ZIP);
+        assertEntries(read(new ZipArchiveInputStream(new ByteArrayInputStream(archive))));
+    }
+
+    @Test
+    public void testStreamLargeEntry() throws IOException {
+        final byte[] content = new byte[ExportArchive.SPOOL_THRESHOLD + 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final ExportArchive archive = new ExportArchive(out, ExportArchive.Format.TAR, exportDir)) {
+            assertEquals(content.length, archive.add(new File(exportDir, "rest/large.binary"), content.length,
+                    o -> IOUtils.copyLarge(new ByteArrayInputStream(content), o)));
+        }
+        final Map<String, byte[]> entries = read(new TarArchiveInputStream(
+                new ByteArrayInputStream(out.toByteArray())));
+        assertArrayEquals(content, entries.get("export-archive/rest/large.binary"));
+    }
+
+    @Test
+    public void testIncompleteEntryNotAdded() throws IOException {
+        final int size = ExportArchive.SPOOL_THRESHOLD + 1024;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final ExportArchive archive = new ExportArchive(out, ExportArchive.Format.TAR, exportDir)) {
+            try {
+                archive.add(new File(exportDir, "rest/large.binary"), size, o -> {
+                    o.write("partial".getBytes(UTF_8));
+                    throw new IOException("connection reset");
+                });
+                fail("An incomplete entry should fail");
+            } catch (final IOException e) {
+                assertEquals("connection reset", e.getMessage());
+            }
+            try {
+                archive.add(new File(exportDir, "rest/short.binary"), size, o -> write(o, "short"));
+                fail("An entry shorter than its size should fail");
+            } catch (final IOException e) {
+                // expected
+            }
+            archive.add(new File(exportDir, "rest/file1.binary"), -1, o -> write(o, "binary"));
+            assertEquals(1, archive.getEntries());
+        }
+        final Map<String, byte[]> entries = read(new TarArchiveInputStream(
+                new ByteArrayInputStream(out.toByteArray())));
+        assertEquals(1, entries.size());
+        assertEquals("binary", new String(entries.get("export-archive/rest/file1.binary"), UTF_8));
+    }
+
+    @Test
+    public void testLargeEntryDoesNotHoldUpOthers() throws Exception {
+        final int size = ExportArchive.SPOOL_THRESHOLD + 1024;
+        final CountDownLatch downloading = new CountDownLatch(1);
+        final CountDownLatch added = new CountDownLatch(1);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (final ExportArchive archive = new ExportArchive(out, ExportArchive.Format.TAR, exportDir)) {
+            final Future<Long> large = executor.submit(() -> archive.add(new File(exportDir, "rest/large.binary"),
+                    size, o -> {
+                        o.write(new byte[size / 2]);
+                        downloading.countDown();
+                        // the rest of the content only arrives once another task has added its file
+                        try {
+                            if (!added.await(10, TimeUnit.SECONDS)) {
+                                throw new IOException("The other entry was held up");
+                            }
+                        } catch (final InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        o.write(new byte[size - size / 2]);
+                        return size;
+                    }));
+            assertTrue(downloading.await(10, TimeUnit.SECONDS));
+            archive.add(new File(exportDir, "rest/file1.binary"), 6, o -> write(o, "binary"));
+            added.countDown();
+            assertEquals(size, (long) large.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        final Map<String, byte[]> entries = read(new TarArchiveInputStream(
+                new ByteArrayInputStream(out.toByteArray())));
+        assertEquals(Arrays.asList("export-archive/rest/file1.binary", "export-archive/rest/large.binary"),
+                new ArrayList<>(entries.keySet()));
+        assertEquals(size, entries.get("export-archive/rest/large.binary").length);
+    }
+
+    private byte[] write(final ExportArchive.Format format) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final ExportArchive archive = new ExportArchive(out, format, exportDir)) {
+            assertEquals(6, archive.add(new File(exportDir, "rest/file1.binary"), 6, o -> write(o, "binary")));
+            archive.add(new File(exportDir, "rest/file1.binary.headers"), -1, o -> write(o, "{}"));
+            archive.add(new File(exportDir, "rest.ttl"), -1, o -> write(o, ""));
+            assertEquals(3, archive.getEntries());
+        }
+        return out.toByteArray();
+    }
+
+    private static long write(final OutputStream out, final String content) throws IOException {
+        final byte[] bytes = content.getBytes(UTF_8);
+        out.write(bytes);
+        return bytes.length;
+    }
+
+    private static void assertEntries(final Map<String, byte[]> entries) {
+        assertEquals(3, entries.size());
+        assertEquals("binary", new String(entries.get("export-archive/rest/file1.binary"), UTF_8));
+        assertEquals("{}", new String(entries.get("export-archive/rest/file1.binary.headers"), UTF_8));
+        assertEquals(0, entries.get("export-archive/rest.ttl").length);
+        assertNull(entries.get("export-archive/rest/file2.binary"));
+    }
+
+    private static Map<String, byte[]> read(final ArchiveInputStream in) throws IOException {
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (final InputStream archive = in) {
+            ArchiveEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), IOUtils.toByteArray(in));
+            }
+        }
+        return entries;
+    }
+}
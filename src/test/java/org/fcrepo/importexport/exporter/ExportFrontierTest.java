@@ -0,0 +1,101 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ExportFrontierTest {
+
+    private static URI uri(final int i) {
+        return URI.create("http://localhost:8080/rest/" + i);
+    }
+
+    @Test
+    public void testInMemory() throws Exception {
+        try (final ExportFrontier frontier = new ExportFrontier(10)) {
+            for (int i = 0; i < 5; i++) {
+                frontier.add(uri(i));
+            }
+            assertEquals(5, frontier.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(uri(i), frontier.poll());
+            }
+            assertNull(frontier.poll());
+            assertTrue(frontier.isEmpty());
+            assertEquals(0, frontier.getSpilled());
+        }
+    }
+
+    @Test
+    public void testSpillKeepsOrder() throws Exception {
+        try (final ExportFrontier frontier = new ExportFrontier(10)) {
+            for (int i = 0; i < 95; i++) {
+                frontier.add(uri(i));
+            }
+            assertEquals(95, frontier.size());
+            assertEquals(85, frontier.getSpilled());
+
+            // interleave adds and polls so that the spilled segments are refilled while being written
+            for (int i = 0; i < 50; i++) {
+                assertEquals(uri(i), frontier.poll());
+            }
+            for (int i = 95; i < 120; i++) {
+                frontier.add(uri(i));
+            }
+            for (int i = 50; i < 120; i++) {
+                assertEquals(uri(i), frontier.poll());
+            }
+            assertNull(frontier.poll());
+            assertTrue(frontier.isEmpty());
+        }
+    }
+
+    @Test
+    public void testDrain() throws Exception {
+        try (final ExportFrontier frontier = new ExportFrontier(3)) {
+            for (int i = 0; i < 10; i++) {
+                frontier.add(uri(i));
+            }
+            final List<URI> drained = new ArrayList<>();
+            frontier.drain(drained::add);
+            assertEquals(10, drained.size());
+            assertEquals(uri(9), drained.get(9));
+            assertTrue(frontier.isEmpty());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testAddAfterClose() throws Exception {
+        final ExportFrontier frontier = new ExportFrontier(3);
+        frontier.close();
+        frontier.add(uri(0));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ExportJournalTest {
+
+    private final Path file = Paths.get("target/export-journal-test.log");
+    private final URI container = URI.create("http://localhost:8080/rest/1");
+    private final URI child1 = URI.create("http://localhost:8080/rest/1/a");
+    private final URI child2 = URI.create("http://localhost:8080/rest/1/b");
+
+    @Before
+    public void setUp() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testResumeState() throws Exception {
+        try (final ExportJournal journal = new ExportJournal(file, false)) {
+            journal.queued(container);
+            final ExportJournal.Record record = journal.begin(container);
+            journal.fileWritten(new File("target/rest/1.nt"), 100, singletonMap("sha1", "abcd"));
+            journal.exported();
+            journal.queued(child1);
+            journal.queued(child2);
+            journal.complete(record);
+            journal.end();
+
+            // child1 writes a file but never completes
+            journal.begin(child1);
+            journal.fileWritten(new File("target/rest/1/a.nt"), 50, singletonMap("sha1", "ef01"));
+            journal.exported();
+            journal.end();
+        }
+        // an interrupted write leaves a partial line behind
+        Files.write(file, ("D " + child2).substring(0, 10).getBytes(UTF_8), StandardOpenOption.APPEND);
+
+        final List<URI> queued = new ArrayList<>();
+        final List<String> digests = new ArrayList<>();
+        final ExportJournal.State state = ExportJournal.read(file, queued::add,
+                (algorithm, written, digest) -> digests.add(algorithm + " " + written + " " + digest));
+        assertEquals(3, queued.size());
+        assertEquals(1, state.getCompleted());
+        assertEquals(1, state.getExported());
+        assertEquals(100, state.getBytes());
+        // only the digests of the completed task are replayed
+        assertEquals(singletonList("sha1 " + new File("target/rest/1.nt") + " abcd"), digests);
+
+        final List<URI> pending = new ArrayList<>();
+        ExportJournal.forEachPending(file, state, pending::add);
+        assertEquals(2, pending.size());
+        assertTrue(pending.contains(child1));
+        assertTrue(pending.contains(child2));
+    }
+
+    @Test
+    public void testSubtaskAndHandOff() throws Exception {
+        try (final ExportJournal journal = new ExportJournal(file, false)) {
+            final ExportJournal.Record record = journal.begin(container);
+            record.handOff();
+            journal.end();
+
+            // another thread finishes the task
+            final Thread thread = new Thread(() -> {
+                try {
+                    journal.within(record, () -> {
+                        journal.fileWritten(new File("target/rest/1.bin"), 10, singletonMap("md5", "00"));
+                        journal.exported();
+                        return null;
+                    });
+                    journal.complete(record);
+                } catch (final Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+        final ExportJournal.State state = ExportJournal.read(file, uri -> { });
+        assertEquals(1, state.getCompleted());
+        assertEquals(1, state.getExported());
+        assertEquals(10, state.getBytes());
+    }
+}
@@ -20,6 +20,11 @@ package org.fcrepo.importexport.exporter;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.vocabulary.DC;
 import org.awaitility.Duration;
 import org.duraspace.bagit.BagItDigest;
@@ -49,6 +54,8 @@ import java.util.UUID;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.synchronizedList;
+import static org.apache.commons.codec.digest.DigestUtils.sha1Hex;
 import static org.apache.commons.io.FileUtils.readLines;
 import static org.awaitility.Awaitility.await;
 import static org.duraspace.bagit.profile.BagProfileConstants.BAGIT_PROFILE_IDENTIFIER;
@@ -62,6 +69,7 @@ import static org.fcrepo.importexport.common.FcrepoConstants.RDF_SOURCE;
 import static org.fcrepo.importexport.common.FcrepoConstants.RDF_TYPE;
 import static org.fcrepo.importexport.common.FcrepoConstants.REPOSITORY_NAMESPACE;
 import static org.fcrepo.importexport.common.FcrepoConstants.REPOSITORY_ROOT;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
@@ -91,7 +99,6 @@ public class ExportStreamTest extends ExportTestBase {
     private URI resource4;
 
     private StreamExporterWrapper exporter;
-    private StreamTripleHandlerWrapper handler;
 
     public ExportStreamTest() throws URISyntaxException {
         super();
@@ -136,8 +143,7 @@ public class ExportStreamTest extends ExportTestBase {
      */
     private void reconfigureExporter() {
         exporter = new StreamExporterWrapper(config, clientBuilder);
-        handler = new StreamTripleHandlerWrapper(config, exporter, client);
-        exporter.setHandler(handler);
+        exporter.setHandlerClient(client);
     }
 
     @Test
@@ -146,7 +152,7 @@ public class ExportStreamTest extends ExportTestBase {
                 "<" + resource + "> <" + DC.creator + "> \"Creator\" .\n";
         mockResponse(resource, descriptionLinks, describedbyLinks, content);
         exporter.run();
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/" + id + ".nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/" + id + ".nt"));
     }
 
     @Test
@@ -169,9 +175,9 @@ public class ExportStreamTest extends ExportTestBase {
         exporter.run();
         assertTrue(exporter.wroteFile(exportDirectory + "/rest/" + id + BINARY_EXTENSION));
         assertTrue(exporter.wroteFile(exportDirectory + "/rest/" + id + BINARY_EXTENSION + ".headers"));
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/" + id + "/fcr%3Ametadata.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/" + id + "/fcr%3Ametadata.nt"));
         assertTrue(exporter.wroteFile(exportDirectory + "/rest/" + id + "/fcr%3Ametadata.nt.headers"));
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/" + alternateID + ".nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/" + alternateID + ".nt"));
         assertTrue(exporter.wroteFile(exportDirectory + "/rest/" + alternateID + ".nt.headers"));
     }
 
@@ -182,8 +188,8 @@ public class ExportStreamTest extends ExportTestBase {
 
         exporter.run();
         assertTrue(exporter.wroteFile(exportDirectory + "/rest/file1" + BINARY_EXTENSION));
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/file1/fcr%3Ametadata.nt"));
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/alt_description.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/file1/fcr%3Ametadata.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/alt_description.nt"));
         assertTrue(exporter.wroteFile(exportDirectory + "/rest/file1" + BINARY_EXTENSION + HEADERS_EXTENSION));
         assertTrue(exporter.wroteFile(exportDirectory + "/rest/file1/fcr%3Ametadata.nt" + HEADERS_EXTENSION));
         assertTrue(exporter.wroteFile(exportDirectory + "/rest/alt_description.nt" + HEADERS_EXTENSION));
@@ -201,8 +207,8 @@ public class ExportStreamTest extends ExportTestBase {
 
         exporter.run();
         assertTrue(exporter.wroteFile(exportDirectory + "/data/rest/file1" + BINARY_EXTENSION));
-        assertTrue(handler.wroteFile(exportDirectory + "/data/rest/file1/fcr%3Ametadata.nt"));
-        assertTrue(handler.wroteFile(exportDirectory + "/data/rest/alt_description.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/data/rest/file1/fcr%3Ametadata.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/data/rest/alt_description.nt"));
 
         final File baginfo = new File(exportDirectory + "/bag-info.txt");
         assertTrue(baginfo.exists());
@@ -216,6 +222,11 @@ public class ExportStreamTest extends ExportTestBase {
         final File sha1Manifest = new File(exportDirectory + "/manifest-sha1.txt");
         assertTrue(sha1Manifest.exists());
         assertTrue(Files.lines(sha1Manifest.toPath()).allMatch(string -> string.matches(manifestFiles)));
+        // including the streamed RDF, whose checksums are computed as it is written
+        for (final String line : readLines(sha1Manifest, UTF_8)) {
+            final String[] entry = line.split("\\s+", 2);
+            assertEquals(sha1Hex(Files.readAllBytes(Paths.get(exportDirectory, entry[1]))), entry[0]);
+        }
 
         // verify all tag files are written to the tag manifest (checksum + expected name)
         final String tagFiles = ".*bagit\\.txt|.*bag-info\\.txt|.*aptrust-info\\.txt|.*manifest-sha1\\.txt";
@@ -238,8 +249,8 @@ public class ExportStreamTest extends ExportTestBase {
         assertTrue(Files.exists(Paths.get(exportDirectory, "manifest-md5.txt")));
         assertTrue(Files.exists(Paths.get(exportDirectory, "manifest-sha256.txt")));
         assertTrue(exporter.wroteFile(exportDirectory + "/data/rest/file1" + BINARY_EXTENSION));
-        assertTrue(handler.wroteFile(exportDirectory + "/data/rest/file1/fcr%3Ametadata.nt"));
-        assertTrue(handler.wroteFile(exportDirectory + "/data/rest/alt_description.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/data/rest/file1/fcr%3Ametadata.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/data/rest/alt_description.nt"));
 
         assertTrue(Files.exists(Paths.get(exportDirectory + ".tar")));
         tearDownFiles.add(new File(exportDirectory + ".tar"));
@@ -299,8 +310,8 @@ public class ExportStreamTest extends ExportTestBase {
 
         exporter.run();
         assertTrue(exporter.wroteFile(exportDirectory + "/data/rest/file1" + BINARY_EXTENSION));
-        assertTrue(handler.wroteFile(exportDirectory + "/data/rest/file1/fcr%3Ametadata.nt"));
-        assertTrue(handler.wroteFile(exportDirectory + "/data/rest/alt_description.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/data/rest/file1/fcr%3Ametadata.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/data/rest/alt_description.nt"));
 
         final File bagInfo = new File(exportDirectory + "/bag-info.txt");
         assertTrue(bagInfo.exists());
@@ -328,8 +339,8 @@ public class ExportStreamTest extends ExportTestBase {
 
         exporter.run();
         assertFalse(exporter.wroteFile(exportDirectory + "/rest/file1" + BINARY_EXTENSION));
-        assertFalse(handler.wroteFile(exportDirectory + "/rest/file1/fcr%3Ametadata.nt"));
-        assertFalse(handler.wroteFile(exportDirectory + "/rest/alt_description.nt"));
+        assertFalse(exporter.handlerWroteFile(exportDirectory + "/rest/file1/fcr%3Ametadata.nt"));
+        assertFalse(exporter.handlerWroteFile(exportDirectory + "/rest/alt_description.nt"));
     }
 
     @Test
@@ -353,7 +364,7 @@ public class ExportStreamTest extends ExportTestBase {
         final String externalResourceFile = exportDirectory + "/rest/file1" + EXTERNAL_RESOURCE_EXTENSION;
         assertTrue(exporter.wroteFile(externalResourceFile));
         assertTrue(new File(externalResourceFile).exists());
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/file1/fcr%3Ametadata.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/file1/fcr%3Ametadata.nt"));
     }
 
     @Test
@@ -362,7 +373,7 @@ public class ExportStreamTest extends ExportTestBase {
         config.setResource(resource);
 
         exporter.run();
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/" + id + ".nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/" + id + ".nt"));
     }
 
     @Test
@@ -381,8 +392,8 @@ public class ExportStreamTest extends ExportTestBase {
 
         exporter.run();
 
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/" + id + ".nt"));
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/" + id + "/fcr%3Aacl.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/" + id + ".nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/" + id + "/fcr%3Aacl.nt"));
     }
 
     @Test
@@ -408,11 +419,11 @@ public class ExportStreamTest extends ExportTestBase {
         exporter.run();
 
         final String first_resource_path = exportDirectory + "/rest/" + id;
-        await().atMost(Duration.ONE_SECOND).until(() -> handler.wroteFile(first_resource_path + ".nt"));
-        await().atMost(Duration.ONE_SECOND).until(() -> handler.wroteFile(exportDirectory + "/rest/" + id + "/fcr%3Aacl.nt"));
+        await().atMost(Duration.ONE_SECOND).until(() -> exporter.handlerWroteFile(first_resource_path + ".nt"));
+        await().atMost(Duration.ONE_SECOND).until(() -> exporter.handlerWroteFile(exportDirectory + "/rest/" + id + "/fcr%3Aacl.nt"));
         await().atMost(Duration.ONE_SECOND).until(() -> exporter.wroteFile(first_resource_path + "/2" + BINARY_EXTENSION));
         await().atMost(Duration.ONE_SECOND).until(() -> exporter.wroteFile(first_resource_path + "/2" + BINARY_EXTENSION + ".headers"));
-        await().atMost(Duration.ONE_SECOND).until(() -> handler.wroteFile(first_resource_path + "/2/fcr%3Ametadata.nt"));
+        await().atMost(Duration.ONE_SECOND).until(() -> exporter.handlerWroteFile(first_resource_path + "/2/fcr%3Ametadata.nt"));
     }
 
     @Test
@@ -431,7 +442,7 @@ public class ExportStreamTest extends ExportTestBase {
 
         exporter.run();
 
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/" + id + ".nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/" + id + ".nt"));
         assertFalse(exporter.wroteFile(exportDirectory + "/rest/file1" + BINARY_EXTENSION));
     }
 
@@ -440,7 +451,7 @@ public class ExportStreamTest extends ExportTestBase {
         config.setResource(resource);
 
         exporter.run();
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/" + id + ".nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/" + id + ".nt"));
     }
 
     @Test
@@ -452,8 +463,117 @@ public class ExportStreamTest extends ExportTestBase {
         config.setResource(resource);
 
         exporter.run();
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/" + id + ".nt"));
-        assertTrue(handler.wroteFile(exportDirectory + "/rest/" + id + "/2.nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/" + id + ".nt"));
+        assertTrue(exporter.handlerWroteFile(exportDirectory + "/rest/" + id + "/2.nt"));
+    }
+
+    @Test
+    public void testTurtleExport() throws Exception {
+        config.setRdfLanguage("text/turtle");
+        config.setIncludeBinaries(true);
+        config.setResource(resource);
+        reconfigureExporter();
+
+        exporter.run();
+
+        final String file = exportDirectory + "/rest/" + id + ".ttl";
+        assertTrue(exporter.handlerWroteFile(file));
+        final Model model = RDFDataMgr.loadModel(file);
+        assertEquals(2, model.size());
+        assertTrue(model.contains(ResourceFactory.createResource(resource.toString()), RDF_TYPE, RDF_SOURCE));
+    }
+
+    @Test
+    public void testStreamingThreshold() throws Exception {
+        final URI child = URI.create(resource + "/child");
+        final URI other = URI.create("http://localhost:8080/rest/other");
+        final StringBuilder body = new StringBuilder("<" + resource + "> <" + CONTAINS + "> <" + resource2 + "> .\n" +
+                "<" + resource + "> <" + CONTAINS + "> <" + child + "> .\n" +
+                "<" + other + "> <" + DC.relation + "> <" + resource + "> .\n");
+        final String description = "<" + resource + "> <" + DC.description + "> \"" + StringUtils.repeat('x', 100) +
+                "\" .\n";
+        while (body.length() <= 1024 * 1024) {
+            body.append(description);
+        }
+        mockResponse(resource, containerLinks, emptyList(), body.toString());
+        mockResponse(child, containerLinks, emptyList(), "<" + child + "> <" + RDF_TYPE + "> <" + RDF_SOURCE + "> .");
+        mockResponse(other, containerLinks, emptyList(), "<" + other + "> <" + RDF_TYPE + "> <" + RDF_SOURCE + "> .");
+        config.setStreaming(false);
+        config.setStreamingThreshold(1);
+        config.setRetrieveInbound(true);
+        config.setResource(resource);
+        reconfigureExporter();
+
+        exporter.run();
+
+        // the oversized container is streamed, the small resources are written as they are
+        final String file = exportDirectory + "/rest/" + id + ".nt";
+        assertTrue(exporter.handlerWroteFile(file));
+        assertFalse(exporter.wroteFile(file));
+        assertTrue(exporter.wroteFile(exportDirectory + "/rest/" + id + "/child.nt"));
+        assertFalse(exporter.handlerWroteFile(exportDirectory + "/rest/" + id + "/child.nt"));
+        assertTrue(exporter.wroteFile(exportDirectory + "/rest/other.nt"));
+        assertFalse(exporter.wroteFile(exportDirectory + "/rest/file1" + BINARY_EXTENSION));
+
+        // and filtered as the small ones would be: no binary references, no inbound references
+        final Model model = RDFDataMgr.loadModel(file);
+        final Resource container = ResourceFactory.createResource(resource.toString());
+        assertTrue(model.contains(container, CONTAINS, ResourceFactory.createResource(child.toString())));
+        assertFalse(model.contains(container, CONTAINS, ResourceFactory.createResource(resource2.toString())));
+        assertFalse(model.contains(ResourceFactory.createResource(other.toString()), DC.relation, container));
+    }
+
+    @Test
+    public void testNTriplesPassthrough() throws Exception {
+        final URI child = URI.create(resource + "/child");
+        final String body = "# unfiltered N-Triples are exported as they are\n" +
+                "<" + resource + "> <" + RDF_TYPE + "> <" + RDF_SOURCE + "> .\n" +
+                "<" + resource + "> <" + CONTAINS + "> <" + child + "/> .\n" +
+                "<" + resource + "> <" + CONTAINS + "> <" + resource2 + "> .\n";
+        mockResponse(resource, containerLinks, emptyList(), body);
+        mockResponse(child, containerLinks, emptyList(), "<" + child + "> <" + RDF_TYPE + "> <" + RDF_SOURCE + "> .");
+        config.setStreaming(false);
+        config.setIncludeBinaries(true);
+        config.setResource(resource);
+        reconfigureExporter();
+
+        exporter.run();
+
+        final File file = new File(exportDirectory + "/rest/" + id + ".nt");
+        assertEquals(body, new String(Files.readAllBytes(file.toPath()), UTF_8));
+        assertTrue(exporter.wroteFile(exportDirectory + "/rest/" + id + "/child.nt"));
+        assertTrue(exporter.wroteFile(exportDirectory + "/rest/file1" + BINARY_EXTENSION));
+    }
+
+    @Test
+    public void testConcurrentExportOfWideTree() throws Exception {
+        final int children = 256;
+        final StringBuilder body = new StringBuilder("<" + resource + "> <" + RDF_TYPE + "> <" + RDF_SOURCE + "> .\n");
+        for (int i = 0; i < children; i++) {
+            final URI child = URI.create(resource + "/child" + i);
+            body.append("<" + resource + "> <" + CONTAINS + "> <" + child + "> .\n");
+            mockResponse(child, containerLinks, emptyList(), "<" + child + "> <" + DC.title + "> \"Child " + i +
+                    "\" .\n<" + child + "> <" + RDF_TYPE + "> <" + RDF_SOURCE + "> .\n");
+        }
+        mockResponse(resource, containerLinks, emptyList(), body.toString());
+        config.setResource(resource);
+        config.setThreadCount(32);
+        reconfigureExporter();
+
+        exporter.run();
+
+        final String parentFile = exportDirectory + "/rest/" + id + ".nt";
+        assertTrue(exporter.handlerWroteFile(parentFile));
+        assertEquals(children + 1, RDFDataMgr.loadModel(parentFile).size());
+        for (int i = 0; i < children; i++) {
+            final String childFile = exportDirectory + "/rest/" + id + "/child" + i + ".nt";
+            assertTrue(exporter.handlerWroteFile(childFile));
+            // each file holds exactly the triples of its own resource, none of another's
+            final Model model = RDFDataMgr.loadModel(childFile);
+            assertEquals(2, model.size());
+            assertTrue(model.contains(ResourceFactory.createResource(resource + "/child" + i), DC.title,
+                    "Child " + i));
+        }
     }
 
     private void createAptrustBagConfig() {
@@ -471,19 +591,24 @@ public class ExportStreamTest extends ExportTestBase {
  * A wrapper around the Exporter class to allow for testing of the StreamTripleHandler.
  */
 class StreamExporterWrapper extends Exporter {
-    private final List<String> writtenFiles = new ArrayList<>();
+    private final List<String> writtenFiles = synchronizedList(new ArrayList<>());
+    private final List<String> handlerFiles = synchronizedList(new ArrayList<>());
+    private final Config config;
+    private FcrepoClient handlerClient;
 
     StreamExporterWrapper(
             final Config config,
             final FcrepoClient.FcrepoClientBuilder clientBuilder
     ) {
         super(config, clientBuilder);
+        this.config = config;
     }
 
     @Override
-    void writeResponse(final URI uri, final InputStream in, final List<URI> describedby, final File file)
-            throws IOException, FcrepoOperationFailedException {
-        super.writeResponse(uri, in, describedby, file);
+    void writeResponse(final URI uri, final InputStream in, final List<URI> describedby, final File file,
+            final long contentLength, final PartialDownload download) throws IOException,
+            FcrepoOperationFailedException {
+        super.writeResponse(uri, in, describedby, file, contentLength, download);
         writtenFiles.add(file.getAbsolutePath());
     }
 
@@ -494,8 +619,17 @@ class StreamExporterWrapper extends Exporter {
 
     }
 
-    void setHandler(final StreamTripleHandler handler) {
-        this.streamTripleHandler = handler;
+    @Override
+    protected StreamTripleHandler newStreamTripleHandler() {
+        return new StreamTripleHandlerWrapper(config, this, handlerClient, handlerFiles);
+    }
+
+    void setHandlerClient(final FcrepoClient client) {
+        this.handlerClient = client;
+    }
+
+    boolean handlerWroteFile(final String file) {
+        return handlerFiles.contains(file);
     }
 
     boolean wroteFile(final String file) {
@@ -509,14 +643,16 @@ class StreamExporterWrapper extends Exporter {
  */
 class StreamTripleHandlerWrapper extends StreamTripleHandler {
 
-    private final List<String> files = new ArrayList<>();
+    private final List<String> files;
 
     StreamTripleHandlerWrapper(
             final Config config,
             final Exporter transferProcess,
-            final FcrepoClient client
+            final FcrepoClient client,
+            final List<String> files
     ) {
         super(config, transferProcess, client);
+        this.files = files;
     }
 
     @Override
@@ -529,8 +665,4 @@ class StreamTripleHandlerWrapper extends StreamTripleHandler {
             files.add(file.getAbsolutePath());
         }
     }
-
-    public boolean wroteFile(final String filename) {
-        return files.contains(filename);
-    }
 }
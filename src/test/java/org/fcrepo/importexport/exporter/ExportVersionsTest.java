@@ -33,6 +33,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 
@@ -206,6 +208,8 @@ public class ExportVersionsTest {
                      containerResourceVersions, versionsJson);
 
         when(config.getResource()).thenReturn(containerResource);
+        when(config.getRepositoryRoot()).thenReturn(rootResource);
+        exporter = new ExporterWrapper(config, clientBuilder);
 
         exporter.run();
 
@@ -215,6 +219,10 @@ public class ExportVersionsTest {
                                                ".jsonld")));
         assertTrue(exporter.wroteFile(new File(basedir + "/rest/container1/fcr%3Aversions/" + versionLabel +
             ".jsonld" + HEADERS_EXTENSION)));
+
+        // the resource metadata is only requested once, and the timemap is only retrieved once
+        verify(client, times(1)).head(containerResource);
+        verify(client, times(1)).get(containerResourceVersions);
     }
 
     @Test
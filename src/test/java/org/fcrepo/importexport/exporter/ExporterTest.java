@@ -19,31 +19,44 @@ package org.fcrepo.importexport.exporter;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.conn.EofSensorInputStream;
+import org.apache.http.conn.EofSensorWatcher;
 import org.duraspace.bagit.BagItDigest;
 import org.duraspace.bagit.profile.BagProfile;
 import org.fcrepo.client.FcrepoClient;
 import org.fcrepo.client.FcrepoOperationFailedException;
 import org.fcrepo.client.FcrepoResponse;
+import org.fcrepo.client.GetBuilder;
 import org.fcrepo.client.HeadBuilder;
 import org.fcrepo.importexport.common.AuthenticationRequiredRuntimeException;
+import org.fcrepo.importexport.common.BinaryOrder;
 import org.fcrepo.importexport.common.Config;
+import org.fcrepo.importexport.common.DigestEngine;
 import org.fcrepo.importexport.common.TombstoneFoundException;
 import org.fcrepo.importexport.test.util.ResponseMocker;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.commons.io.FileUtils.readLines;
@@ -54,11 +67,19 @@ import static org.fcrepo.importexport.common.FcrepoConstants.EXTERNAL_RESOURCE_E
 import static org.fcrepo.importexport.common.FcrepoConstants.HEADERS_EXTENSION;
 import static org.fcrepo.importexport.common.FcrepoConstants.REPOSITORY_NAMESPACE;
 import static org.fcrepo.importexport.common.FcrepoConstants.REPOSITORY_ROOT;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -289,6 +310,41 @@ public class ExporterTest extends ExportTestBase {
         assertTrue(bagInfoLines.contains(bagProfileId));
     }
 
+    @Test
+    public void testExportGzipBag() throws Exception {
+        final String basedir = exportDirectory + "/25";
+        final Config config = new Config();
+        config.setMode("export");
+        config.setBaseDirectory(basedir);
+        config.setIncludeBinaries(true);
+        config.setPredicates(predicates);
+        config.setRdfLanguage("application/ld+json");
+        config.setResource(resource3);
+        config.setBagProfile("beyondtherepository");
+        config.setBagConfigPath("src/test/resources/configs/bagit-config-no-aptrust.yml");
+        config.setBagSerialization("gzip");
+        config.setCompressionThreads(2);
+        config.setCompressionLevel(1);
+
+        final ExporterWrapper exporter = new ExporterWrapper(config, clientBuilder);
+        exporter.run();
+
+        final Path serialized = Paths.get(basedir + ".tar.gz");
+        assertTrue(Files.exists(serialized));
+        tearDownFiles.add(serialized.toFile());
+        final Map<String, String> entries = new ConcurrentHashMap<>();
+        try (final TarArchiveInputStream in = new TarArchiveInputStream(
+                new GZIPInputStream(Files.newInputStream(serialized)))) {
+            TarArchiveEntry entry;
+            while ((entry = in.getNextTarEntry()) != null) {
+                entries.put(entry.getName(), IOUtils.toString(in, UTF_8));
+            }
+        }
+        assertEquals("binary", entries.get("25/data/rest/file1" + BINARY_EXTENSION));
+        assertTrue(entries.containsKey("25/bagit.txt"));
+        assertTrue(entries.containsKey("25/bag-info.txt"));
+    }
+
     @Test(expected = Exception.class)
     public void testExportBeyondTheRepositoryBagValidationError() {
         final Config config = new Config();
@@ -533,19 +589,350 @@ public class ExporterTest extends ExportTestBase {
         assertTrue(exporter.wroteFile(new File(basedir + "/rest/1.jsonld")));
         assertFalse(exporter.wroteFile(new File(basedir + "/rest/1/2.jsonld")));
     }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        final String basedir = exportDirectory + "/16";
+        final Config args = new Config();
+        args.setMode("export");
+        args.setBaseDirectory(basedir);
+        args.setIncludeBinaries(true);
+        args.setPredicates(predicates);
+        args.setRdfLanguage("application/ld+json");
+        args.setResource(resource);
+        args.setVirtualThreads(true);
+        args.setMaxRequests(2);
+
+        // runs on virtual threads where supported, otherwise falls back to platform threads
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+        assertTrue(exporter.wroteFile(new File(basedir + "/rest/1.jsonld")));
+        assertTrue(exporter.wroteFile(new File(basedir + "/rest/1/2.jsonld")));
+    }
+
+    @Test
+    public void testBinaryLane() throws Exception {
+        final String basedir = exportDirectory + "/17";
+        final Config args = new Config();
+        args.setMode("export");
+        args.setBaseDirectory(basedir);
+        args.setIncludeBinaries(true);
+        args.setPredicates(predicates);
+        args.setRdfLanguage("application/ld+json");
+        args.setResource(resource3);
+        args.setBinaryThreads(1);
+        args.setBinaryOrder(BinaryOrder.SMALLEST_FIRST);
+
+        when(headResponse.getLinkHeaders(eq("type"))).thenReturn(binaryLinks);
+        when(headResponse.getLinkHeaders(eq("describedby"))).thenReturn(describedbyLinks);
+
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+        assertTrue(exporter.wroteFile(new File(basedir + "/rest/file1" + BINARY_EXTENSION)));
+        assertTrue(exporter.wroteFile(new File(basedir + "/rest/file1/fcr%3Ametadata.jsonld")));
+        assertTrue(exporter.wroteFile(new File(basedir + "/rest/alt_description.jsonld")));
+    }
+
+    @Test
+    public void testDescriptionsFetchedConcurrently() throws Exception {
+        final String basedir = exportDirectory + "/18";
+        final Config args = new Config();
+        args.setMode("export");
+        args.setBaseDirectory(basedir);
+        args.setIncludeBinaries(true);
+        args.setPredicates(predicates);
+        args.setRdfLanguage("application/ld+json");
+        args.setResource(resource3);
+
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+        final File binary = new File(basedir + "/rest/file1" + BINARY_EXTENSION);
+        final File description = new File(basedir + "/rest/file1/fcr%3Ametadata.jsonld");
+        assertTrue(exporter.wroteFile(binary));
+        assertTrue(exporter.wroteFile(description));
+        assertNotEquals(exporter.writerOf(binary), exporter.writerOf(description));
+    }
+
+    @Test
+    public void testRangedDownload() throws Exception {
+        final String basedir = exportDirectory + "/19";
+        final Config args = rangedConfig(basedir);
+        final byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        mockRanges(content, 206, "\"v1\"");
+
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+        final File binary = new File(basedir + "/rest/file1" + BINARY_EXTENSION);
+        assertArrayEquals(content, Files.readAllBytes(binary.toPath()));
+        assertTrue(new File(basedir + "/rest/file1" + BINARY_EXTENSION + HEADERS_EXTENSION).exists());
+        assertFalse(exporter.wroteFile(binary));
+    }
+
+    @Test
+    public void testRangedDownloadFallsBackWhenRangesIgnored() throws Exception {
+        final String basedir = exportDirectory + "/20";
+        final Config args = rangedConfig(basedir);
+        final byte[] content = new byte[3 * 1024 * 1024];
+        // the binary changed after the HEAD request, so its ranges are sent whole
+        final EofSensorWatcher watcher = mockRanges(content, 200, "\"v1\"");
+
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+        final File binary = new File(basedir + "/rest/file1" + BINARY_EXTENSION);
+        assertTrue(exporter.wroteFile(binary));
+        assertEquals("binary", new String(Files.readAllBytes(binary.toPath()), UTF_8));
+        // the whole content sent in answer to a range request is not read
+        verify(watcher, atLeastOnce()).streamAbort(any());
+        verify(watcher, never()).eofDetected(any());
+    }
+
+    @Test
+    public void testRangedDownloadNeedsValidator() throws Exception {
+        final String basedir = exportDirectory + "/27";
+        final Config args = rangedConfig(basedir);
+        mockRanges(new byte[3 * 1024 * 1024], 206, "W/\"v1\"");
+
+        // without a strong ETag or a Last-Modified date the ranges could come from different versions
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+        final File binary = new File(basedir + "/rest/file1" + BINARY_EXTENSION);
+        assertTrue(exporter.wroteFile(binary));
+        assertEquals("binary", new String(Files.readAllBytes(binary.toPath()), UTF_8));
+        verify(client.get(resource3), never()).range(any(), any());
+    }
+
+    @Test
+    public void testResumeInterruptedDownload() throws Exception {
+        final String basedir = exportDirectory + "/21";
+        final Config args = new Config();
+        args.setMode("export");
+        args.setBaseDirectory(basedir);
+        args.setIncludeBinaries(true);
+        args.setPredicates(predicates);
+        args.setRdfLanguage("application/ld+json");
+        args.setResource(resource3);
+        args.setBagProfile("default");
+        args.setBagConfigPath("src/test/resources/configs/bagit-config.yml");
+
+        final byte[] content = new byte[DigestEngine.BUFFER_SIZE * 3];
+        new Random(7).nextBytes(content);
+        final FcrepoResponse response = client.get(resource3).perform();
+        when(response.getHeaderValue(eq("ETag"))).thenReturn("\"v1\"");
+        when(response.getHeaderValue(eq("Content-Length"))).thenReturn(Integer.toString(content.length));
+        // the connection drops part way through the second buffer
+        when(response.getBody()).thenReturn(new SequenceInputStream(
+                new ByteArrayInputStream(content, 0, DigestEngine.BUFFER_SIZE + 100), new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                }));
+
+        final GetBuilder getBuilder = client.get(resource3);
+        final List<Long> offsets = new ArrayList<>();
+        when(getBuilder.range(any(), isNull())).thenAnswer(invocation -> {
+            final long offset = invocation.getArgument(0);
+            offsets.add(offset);
+            final GetBuilder rangeBuilder = mock(GetBuilder.class);
+            final FcrepoResponse rest = mock(FcrepoResponse.class);
+            when(rangeBuilder.addHeader(eq("If-Range"), eq("\"v1\""))).thenReturn(rangeBuilder);
+            when(rangeBuilder.perform()).thenReturn(rest);
+            when(rest.getStatusCode()).thenReturn(206);
+            when(rest.getHeaderValue(eq("Content-Length"))).thenReturn(Long.toString(content.length - offset));
+            when(rest.getBody()).thenReturn(
+                    new ByteArrayInputStream(content, (int) offset, (int) (content.length - offset)));
+            return rangeBuilder;
+        });
+
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+        final File binary = new File(basedir + "/data/rest/file1" + BINARY_EXTENSION);
+        assertEquals(Collections.singletonList((long) DigestEngine.BUFFER_SIZE), offsets);
+        assertArrayEquals(content, Files.readAllBytes(binary.toPath()));
+        assertFalse(Files.exists(PartialDownload.sidecarFor(binary)));
+
+        // the manifest covers the whole binary, not just the resumed part
+        final List<String> manifest = readLines(new File(basedir + "/manifest-sha1.txt"), UTF_8);
+        assertTrue(manifest.contains(DigestUtils.sha1Hex(content) + "  data/rest/file1" + BINARY_EXTENSION));
+    }
+
+    @Test
+    public void testIncrementalExport() throws Exception {
+        final FcrepoResponse response = client.get(resource3).perform();
+        when(response.getHeaders()).thenReturn(Collections.singletonMap("ETag", Collections.singletonList("\"v1\"")));
+
+        final String previousDir = exportDirectory + "/22";
+        final Config previousArgs = bagConfig(previousDir);
+        new ExporterWrapper(previousArgs, clientBuilder).run();
+
+        // the binary has not changed since
+        final GetBuilder getBuilder = client.get(resource3);
+        final GetBuilder conditional = mock(GetBuilder.class);
+        final FcrepoResponse notModified = mock(FcrepoResponse.class);
+        when(getBuilder.ifNoneMatch(eq("\"v1\""))).thenReturn(conditional);
+        when(conditional.perform()).thenReturn(notModified);
+        when(notModified.getStatusCode()).thenReturn(304);
+
+        final String basedir = exportDirectory + "/23";
+        final Config args = bagConfig(basedir);
+        args.setIncremental(previousDir);
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+
+        final File previous = new File(previousDir + "/data/rest/file1" + BINARY_EXTENSION);
+        final File binary = new File(basedir + "/data/rest/file1" + BINARY_EXTENSION);
+        assertFalse(exporter.wroteFile(binary));
+        assertTrue(Files.isSameFile(previous.toPath(), binary.toPath()));
+        assertTrue(new File(basedir + "/data/rest/file1" + BINARY_EXTENSION + HEADERS_EXTENSION).exists());
+        assertTrue(exporter.wroteFile(new File(basedir + "/data/rest/file1/fcr%3Ametadata.jsonld")));
+        final String entry = DigestUtils.sha1Hex("binary") + "  data/rest/file1" + BINARY_EXTENSION;
+        assertTrue(readLines(new File(previousDir + "/manifest-sha1.txt"), UTF_8).contains(entry));
+        assertTrue(readLines(new File(basedir + "/manifest-sha1.txt"), UTF_8).contains(entry));
+    }
+
+    @Test
+    public void testExportToArchive() throws Exception {
+        final FcrepoResponse response = client.get(resource3).perform();
+        when(response.getHeaders()).thenReturn(Collections.singletonMap("ETag", Collections.singletonList("\"v1\"")));
+
+        final String basedir = exportDirectory + "/24";
+        final File tar = new File(exportDirectory + "/24.tar");
+        final Config args = bagConfig(basedir);
+        args.setArchive(tar.getPath());
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+
+        final Map<String, String> entries = new ConcurrentHashMap<>();
+        try (final TarArchiveInputStream in = new TarArchiveInputStream(Files.newInputStream(tar.toPath()))) {
+            TarArchiveEntry entry;
+            while ((entry = in.getNextTarEntry()) != null) {
+                entries.put(entry.getName(), IOUtils.toString(in, UTF_8));
+            }
+        }
+        assertEquals("binary", entries.get("24/data/rest/file1" + BINARY_EXTENSION));
+        assertTrue(entries.containsKey("24/data/rest/file1" + BINARY_EXTENSION + HEADERS_EXTENSION));
+        assertTrue(entries.containsKey("24/data/rest/file1/fcr%3Ametadata.jsonld"));
+        assertTrue(entries.containsKey("24/bagit.txt"));
+        assertTrue(entries.get("24/manifest-sha1.txt").contains(DigestUtils.sha1Hex("binary") + "  data/rest/file1"
+                + BINARY_EXTENSION));
+
+        // the payload only exists in the archive
+        assertFalse(new File(basedir + "/data/rest/file1" + BINARY_EXTENSION).exists());
+        assertFalse(new File(basedir + "/data/rest/file1/fcr%3Ametadata.jsonld").exists());
+    }
+
+    private Config bagConfig(final String basedir) {
+        final Config args = new Config();
+        args.setMode("export");
+        args.setBaseDirectory(basedir);
+        args.setIncludeBinaries(true);
+        args.setPredicates(predicates);
+        args.setRdfLanguage("application/ld+json");
+        args.setResource(resource3);
+        args.setBagProfile("default");
+        args.setBagConfigPath("src/test/resources/configs/bagit-config.yml");
+        return args;
+    }
+
+    private Config rangedConfig(final String basedir) {
+        final Config args = new Config();
+        args.setMode("export");
+        args.setBaseDirectory(basedir);
+        args.setIncludeBinaries(true);
+        args.setPredicates(predicates);
+        args.setRdfLanguage("application/ld+json");
+        args.setResource(resource3);
+        args.setRangeSegments(4);
+        args.setRangeThreshold(1);
+        return args;
+    }
+
+    /**
+     * @param etag the ETag of the binary, or null
+     * @return the watcher of the bodies of the responses which are not partial, to check that they are aborted
+     */
+    private EofSensorWatcher mockRanges(final byte[] content, final int status, final String etag)
+            throws Exception {
+        final FcrepoResponse head = client.head(resource3).perform();
+        when(head.getHeaderValue(eq("ETag"))).thenReturn(etag);
+        when(head.getHeaderValue(eq("Content-Length"))).thenReturn(Integer.toString(content.length));
+        when(head.getHeaderValue(eq("Accept-Ranges"))).thenReturn("bytes");
+        when(head.getHeaders()).thenReturn(Collections.singletonMap("Content-Length",
+                Collections.singletonList(Integer.toString(content.length))));
+
+        final EofSensorWatcher watcher = mock(EofSensorWatcher.class);
+        final GetBuilder getBuilder = client.get(resource3);
+        when(getBuilder.range(any(), any())).thenAnswer(invocation -> {
+            final long first = invocation.getArgument(0);
+            final long last = invocation.getArgument(1);
+            final GetBuilder rangeBuilder = mock(GetBuilder.class);
+            final FcrepoResponse response = mock(FcrepoResponse.class);
+            when(rangeBuilder.addHeader(eq("If-Range"), eq(etag))).thenReturn(rangeBuilder);
+            when(rangeBuilder.perform()).thenReturn(response);
+            when(response.getStatusCode()).thenReturn(status);
+            when(response.getBody()).thenReturn(status == 206 ?
+                    new ByteArrayInputStream(content, (int) first, (int) (last - first + 1)) :
+                    new EofSensorInputStream(new ByteArrayInputStream(content), watcher));
+            return rangeBuilder;
+        });
+        return watcher;
+    }
+
+    @Test
+    public void testSkipHead() throws Exception {
+        final String basedir = exportDirectory + "/14";
+        final Config args = new Config();
+        args.setMode("export");
+        args.setBaseDirectory(basedir);
+        args.setIncludeBinaries(true);
+        args.setPredicates(predicates);
+        args.setRdfLanguage("application/ld+json");
+        args.setResource(resource);
+        args.setSkipHead(true);
+
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+        assertTrue(exporter.wroteFile(new File(basedir + "/rest/1.jsonld")));
+        assertTrue(exporter.wroteFile(new File(basedir + "/rest/1/2.jsonld")));
+        verify(client, never()).head(resource2);
+    }
+
+    @Test
+    public void testSkipHeadBinary() throws Exception {
+        final String basedir = exportDirectory + "/15";
+        final Config args = new Config();
+        args.setMode("export");
+        args.setBaseDirectory(basedir);
+        args.setIncludeBinaries(true);
+        args.setPredicates(predicates);
+        args.setRdfLanguage("application/ld+json");
+        args.setResource(resource3);
+        args.setRepositoryRoot(rootResource);
+        args.setSkipHead(true);
+
+        final ExporterWrapper exporter = new ExporterWrapper(args, clientBuilder);
+        exporter.run();
+        assertTrue(exporter.wroteFile(new File(basedir + "/rest/file1" + BINARY_EXTENSION)));
+        assertTrue(exporter.wroteFile(new File(basedir + "/rest/file1/fcr%3Ametadata.jsonld")));
+        verify(client, never()).head(resource3);
+    }
 }
 
 class ExporterWrapper extends Exporter {
-    private List<File> writtenFiles = new ArrayList<>();
+    private List<File> writtenFiles = Collections.synchronizedList(new ArrayList<>());
+    private Map<File, Thread> writers = new ConcurrentHashMap<>();
 
     ExporterWrapper(final Config config, final FcrepoClient.FcrepoClientBuilder clientBuilder) {
         super(config, clientBuilder);
     }
     @Override
-    void writeResponse(final URI uri, final InputStream in, final List<URI> describedby, final File file)
-            throws IOException, FcrepoOperationFailedException {
-        super.writeResponse(uri, in, describedby, file);
+    void writeResponse(final URI uri, final InputStream in, final List<URI> describedby, final File file,
+            final long contentLength, final PartialDownload download) throws IOException,
+            FcrepoOperationFailedException {
+        super.writeResponse(uri, in, describedby, file, contentLength, download);
         writtenFiles.add(file);
+        writers.put(file, Thread.currentThread());
     }
 
     @Override
@@ -558,4 +945,8 @@ class ExporterWrapper extends Exporter {
     boolean wroteFile(final File file) {
         return writtenFiles.contains(file);
     }
+
+    Thread writerOf(final File file) {
+        return writers.get(file);
+    }
 }
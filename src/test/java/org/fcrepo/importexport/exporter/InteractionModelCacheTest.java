@@ -0,0 +1,82 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static org.fcrepo.importexport.exporter.InteractionModelCache.InteractionModel.NON_RDF_SOURCE;
+import static org.fcrepo.importexport.exporter.InteractionModelCache.InteractionModel.RDF_SOURCE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class InteractionModelCacheTest {
+
+    private final URI binary = URI.create("http://localhost:8080/rest/file1");
+    private final URI container = URI.create("http://localhost:8080/rest/1/");
+
+    @Test
+    public void testHitsAndMisses() {
+        final InteractionModelCache cache = new InteractionModelCache(null);
+        assertNull(cache.get(binary));
+        cache.put(binary, NON_RDF_SOURCE);
+        cache.put(container, RDF_SOURCE);
+
+        assertEquals(NON_RDF_SOURCE, cache.get(binary));
+        // trailing slashes are ignored
+        assertEquals(RDF_SOURCE, cache.get(URI.create("http://localhost:8080/rest/1")));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testBounded() {
+        final InteractionModelCache cache = new InteractionModelCache(160);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(URI.create("http://localhost:8080/rest/" + i), RDF_SOURCE);
+        }
+        assertTrue(cache.size() <= 160);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        final Path file = Paths.get("target/interaction-models.txt");
+        Files.deleteIfExists(file);
+
+        final InteractionModelCache cache = new InteractionModelCache(null);
+        cache.put(binary, NON_RDF_SOURCE);
+        cache.put(container, RDF_SOURCE);
+        cache.save(file);
+
+        final InteractionModelCache loaded = new InteractionModelCache(null);
+        loaded.load(file);
+        assertEquals(2, loaded.size());
+        assertEquals(NON_RDF_SOURCE, loaded.get(binary));
+        assertEquals(RDF_SOURCE, loaded.get(container));
+        Files.delete(file);
+    }
+}
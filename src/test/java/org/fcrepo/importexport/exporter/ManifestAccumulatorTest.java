@@ -0,0 +1,143 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.BagWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ManifestAccumulatorTest {
+
+    private final Set<BagItDigest> algorithms = EnumSet.of(BagItDigest.MD5, BagItDigest.SHA1);
+
+    private Path bagDir;
+
+    @Before
+    public void setUp() throws Exception {
+        bagDir = Files.createTempDirectory("manifest-accumulator-test");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(bagDir.toFile());
+    }
+
+    @Test
+    public void testConcurrentAddsAreSortedAndComplete() throws Exception {
+        final int threads = 8;
+        final int filesPerThread = 250;
+        final List<String> expected = new ArrayList<>();
+        try (final ManifestAccumulator manifests = new ManifestAccumulator(bagDir.toFile(), algorithms, 7)) {
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < filesPerThread; i++) {
+                        final String name = "data/" + thread + "/file" + i;
+                        manifests.add(bagDir.resolve(name).toFile(), digests(name));
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            for (int t = 0; t < threads; t++) {
+                for (int i = 0; i < filesPerThread; i++) {
+                    final String name = "data/" + t + "/file" + i;
+                    expected.add(digests(name).get("md5") + "  " + name);
+                }
+            }
+            Collections.sort(expected, (a, b) -> a.substring(34).compareTo(b.substring(34)));
+
+            manifests.write(new BagWriter(bagDir.toFile(), algorithms));
+        }
+
+        final List<String> md5 = Files.readAllLines(bagDir.resolve("manifest-md5.txt"), UTF_8);
+        assertEquals(expected, md5);
+        assertEquals(threads * filesPerThread, Files.readAllLines(bagDir.resolve("manifest-sha1.txt")).size());
+    }
+
+    @Test
+    public void testLastEntryWins() throws Exception {
+        final File file = bagDir.resolve("data/file").toFile();
+        try (final ManifestAccumulator manifests = new ManifestAccumulator(bagDir.toFile(), algorithms, 2)) {
+            manifests.add(BagItDigest.MD5, file, "aaaa");
+            manifests.add(BagItDigest.SHA1, file, "bbbb");
+            for (int i = 0; i < 5; i++) {
+                manifests.add(bagDir.resolve("data/other" + i).toFile(), digests("other" + i));
+            }
+            manifests.add(file, digests("file"));
+            manifests.write(new BagWriter(bagDir.toFile(), algorithms));
+        }
+
+        final List<String> md5 = Files.readAllLines(bagDir.resolve("manifest-md5.txt"), UTF_8);
+        assertEquals(6, md5.size());
+        assertTrue(md5.contains(digests("file").get("md5") + "  data/file"));
+    }
+
+    @Test
+    public void testTagManifestListsPayloadManifests() throws Exception {
+        try (final ManifestAccumulator manifests = new ManifestAccumulator(bagDir.toFile(), algorithms)) {
+            manifests.add(bagDir.resolve("data/file").toFile(), digests("file"));
+            manifests.write(new BagWriter(bagDir.toFile(), algorithms));
+        }
+
+        final String md5Manifest = Hex.encodeHexString(BagItDigest.MD5.messageDigest()
+                .digest(Files.readAllBytes(bagDir.resolve("manifest-md5.txt"))));
+        final List<String> tagManifest = Files.readAllLines(bagDir.resolve("tagmanifest-md5.txt"), UTF_8);
+        assertTrue(tagManifest.contains(md5Manifest + "  manifest-md5.txt"));
+        assertTrue(tagManifest.stream().anyMatch(line -> line.endsWith("  manifest-sha1.txt")));
+        assertTrue(tagManifest.stream().anyMatch(line -> line.endsWith("  bagit.txt")));
+    }
+
+    private static Map<String, String> digests(final String name) {
+        final Map<String, String> digests = new HashMap<>();
+        digests.put("md5", Hex.encodeHexString(BagItDigest.MD5.messageDigest().digest(name.getBytes(UTF_8))));
+        digests.put("sha1", Hex.encodeHexString(BagItDigest.SHA1.messageDigest().digest(name.getBytes(UTF_8))));
+        return digests;
+    }
+}
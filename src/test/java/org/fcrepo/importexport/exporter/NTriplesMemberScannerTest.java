@@ -0,0 +1,229 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RiotException;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class NTriplesMemberScannerTest {
+
+    private static final Logger logger = getLogger(NTriplesMemberScannerTest.class);
+
+    private static final String CONTAINS = "http://www.w3.org/ns/ldp#contains";
+    private static final String HAS_MEMBER = "http://www.w3.org/ns/ldp#hasMember";
+    private static final String TITLE = "http://purl.org/dc/elements/1.1/title";
+    private static final String RESOURCE = "http://localhost:8080/rest/1";
+
+    private final List<URI> members = new ArrayList<>();
+
+    @Test
+    public void testScanWhileReading() throws IOException {
+        final StringBuilder rdf = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            rdf.append("<" + RESOURCE + "> <" + CONTAINS + "> <" + RESOURCE + "/" + i + "> .\n");
+            rdf.append("<" + RESOURCE + "> <" + TITLE + "> \"title " + i + "\" .\n");
+        }
+        final byte[] bytes = rdf.toString().getBytes(UTF_8);
+        final NTriplesMemberScanner scanner = scanner(bytes, false, CONTAINS);
+        // small reads, so that many lines are split between them
+        final byte[] copied = IOUtils.toByteArray(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return scanner.read();
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                return scanner.read(b, off, Math.min(len, 37));
+            }
+        });
+        assertArrayEquals(bytes, copied);
+        assertEquals(20_000, members.size());
+        assertEquals(URI.create(RESOURCE + "/19999"), members.get(19_999));
+        assertEquals(0, scanner.getParsedLines());
+    }
+
+    @Test
+    public void testMemberPredicates() throws IOException {
+        final NTriplesMemberScanner scanner = scan(false, new String[]{HAS_MEMBER},
+                "# a comment",
+                "",
+                "<" + RESOURCE + "> <" + HAS_MEMBER + "> <" + RESOURCE + "/a/> .",
+                "<" + RESOURCE + ">\t<" + HAS_MEMBER + ">\t<" + RESOURCE + "/b> .\r",
+                "_:b0 <" + HAS_MEMBER + "> <" + RESOURCE + "/c> .",
+                "<" + RESOURCE + "> <" + HAS_MEMBER + "> \"literal\" .",
+                "<" + RESOURCE + "> <" + HAS_MEMBER + "> _:b1 .",
+                "<" + RESOURCE + "> <" + CONTAINS + "> <" + RESOURCE + "/d> .",
+                "<" + RESOURCE + "> <" + HAS_MEMBER + "> <" + RESOURCE + "/e>.");
+        assertEquals(Arrays.asList(URI.create(RESOURCE + "/a"), URI.create(RESOURCE + "/b"),
+                URI.create(RESOURCE + "/c"), URI.create(RESOURCE + "/e")), members);
+        assertEquals(0, scanner.getParsedLines());
+    }
+
+    @Test
+    public void testIncludeContained() throws IOException {
+        scan(true, new String[0],
+                "<" + RESOURCE + "/fcr:versions> <" + CONTAINS + "> <" + RESOURCE + "/fcr:versions/20261017> .");
+        assertEquals(URI.create(RESOURCE + "/fcr:versions/20261017"), members.get(0));
+    }
+
+    @Test
+    public void testEscapedLinesAreParsed() throws IOException {
+        final NTriplesMemberScanner scanner = scan(false, new String[]{CONTAINS},
+                "<" + RESOURCE + "> <" + CONTAINS + "> <" + RESOURCE + "/\\u00e9/> .",
+                "<" + RESOURCE + "/\\u00e9> <" + CONTAINS + "> <" + RESOURCE + "/f> .",
+                "<" + RESOURCE + "> <" + TITLE + "> \"\\u00e9\" .");
+        assertEquals(Arrays.asList(URI.create(RESOURCE + "/\u00e9"), URI.create(RESOURCE + "/f")), members);
+        assertEquals(2, scanner.getParsedLines());
+    }
+
+    @Test
+    public void testLastLineWithoutNewline() throws IOException {
+        final NTriplesMemberScanner scanner = scanner(("<" + RESOURCE + "> <" + CONTAINS + "> <" + RESOURCE +
+                "/g> .").getBytes(UTF_8), false, CONTAINS);
+        IOUtils.copy(scanner, NullOutputStream.NULL_OUTPUT_STREAM);
+        assertEquals(URI.create(RESOURCE + "/g"), members.get(0));
+    }
+
+    @Test(expected = RiotException.class)
+    public void testMalformedLine() throws IOException {
+        scan(false, new String[]{CONTAINS}, "<" + RESOURCE + "> <" + CONTAINS + "> " + RESOURCE + "/h .");
+    }
+
+    @Test
+    public void testMalformedLinesWithOtherPredicates() {
+        for (final String line : new String[]{
+                "<" + RESOURCE + "> <" + TITLE + "> \"unterminated .",
+                "<" + RESOURCE + "> <" + TITLE + "> \"title\"",
+                "<" + RESOURCE + "> <" + TITLE + "> \"title\" . extra",
+                "<" + RESOURCE + "> <" + TITLE + "> \"bad \\q escape\" .",
+                "<" + RESOURCE + "> " + TITLE + " \"title\" .",
+                "<" + RESOURCE + "> <" + TITLE + "> <" + RESOURCE + "/with space> ."}) {
+            try {
+                scan(false, new String[]{CONTAINS}, line);
+                fail("Expected a malformed line to fail the read: " + line);
+            } catch (final RiotException | IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testWellFormedLinesAreNotParsed() throws IOException {
+        final NTriplesMemberScanner scanner = scan(false, new String[]{CONTAINS},
+                "<" + RESOURCE + "> <" + TITLE + "> \"title \\\"quoted\\\" \\u00e9\" .",
+                "<" + RESOURCE + "> <" + TITLE + "> \"title\"@en-GB . # a comment",
+                "<" + RESOURCE + "> <" + TITLE + "> \"1\"^^<http://www.w3.org/2001/XMLSchema#integer> .",
+                "_:b0 <" + TITLE + "> _:b1.",
+                "<" + RESOURCE + "> <" + CONTAINS + "> <" + RESOURCE + "/i> .");
+        assertEquals(singletonList(URI.create(RESOURCE + "/i")), members);
+        assertEquals(0, scanner.getParsedLines());
+    }
+
+    /**
+     * Compare the time to find the members of a container with 200,000 ldp:contains triples by scanning it and by
+     * parsing it. Run with -Dbenchmark=true (and -Dfcrepo.importexport.log=INFO, to see the results).
+     */
+    @Test
+    public void benchmark() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        final int count = 200_000;
+        final ByteArrayOutputStream rdf = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            final String line = "<" + RESOURCE + "> <" + CONTAINS + "> <" + RESOURCE + "/child" + i + "> .\n";
+            rdf.write(line.getBytes(UTF_8));
+        }
+        final byte[] bytes = rdf.toByteArray();
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            for (int round = 0; round < 3; round++) {
+                members.clear();
+                long start = System.nanoTime();
+                final NTriplesMemberScanner scanner = scanner(bytes, false, CONTAINS);
+                IOUtils.copyLarge(scanner, NullOutputStream.NULL_OUTPUT_STREAM);
+                final long scanned = System.nanoTime() - start;
+                assertEquals(count, members.size());
+
+                start = System.nanoTime();
+                final AtomicInteger parsedMembers = new AtomicInteger();
+                final RdfStreamFilter filter = new RdfStreamFilter(new String[]{CONTAINS}, false,
+                        uri -> parsedMembers.incrementAndGet());
+                try (final RdfTee tee = new RdfTee(new ByteArrayInputStream(bytes), Lang.NTRIPLES, filter,
+                        executor)) {
+                    IOUtils.copyLarge(tee, NullOutputStream.NULL_OUTPUT_STREAM);
+                    tee.await();
+                }
+                final long parsed = System.nanoTime() - start;
+                assertEquals(count, parsedMembers.get());
+                assertTrue(scanned > 0 && parsed > 0);
+
+                logger.info("{} ldp:contains triples ({} bytes): scanned {} MB/s, parsed {} MB/s", count,
+                        bytes.length, rate(bytes.length, scanned), rate(bytes.length, parsed));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private NTriplesMemberScanner scan(final boolean includeContained, final String[] predicates,
+            final String... lines) throws IOException {
+        final NTriplesMemberScanner scanner = scanner((String.join("\n", lines) + "\n").getBytes(UTF_8),
+                includeContained, predicates);
+        IOUtils.copy(scanner, NullOutputStream.NULL_OUTPUT_STREAM);
+        return scanner;
+    }
+
+    private NTriplesMemberScanner scanner(final byte[] bytes, final boolean includeContained,
+            final String... predicates) {
+        return new NTriplesMemberScanner(new ByteArrayInputStream(bytes), predicates, includeContained,
+                members::add);
+    }
+
+    private static long rate(final long bytes, final long nanos) {
+        return bytes * 1_000L / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class PartialDownloadTest {
+
+    private static final String LAST_MODIFIED = "Tue, 13 Oct 2026 10:00:00 GMT";
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("partial-download-test", ".binary");
+        Files.write(file.toPath(), new byte[100]);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(PartialDownload.sidecarFor(file));
+    }
+
+    @Test
+    public void testValidator() {
+        assertEquals("\"abc\"", PartialDownload.start(file, "\"abc\"", LAST_MODIFIED).getValidator());
+        assertEquals(LAST_MODIFIED, PartialDownload.start(file, "W/\"abc\"", LAST_MODIFIED).getValidator());
+        assertEquals(LAST_MODIFIED, PartialDownload.start(file, null, LAST_MODIFIED).getValidator());
+        assertNull(PartialDownload.start(file, "W/\"abc\"", null));
+    }
+
+    @Test
+    public void testCheckpointAndLoad() throws Exception {
+        assertNull(PartialDownload.load(file));
+
+        final PartialDownload download = PartialDownload.start(file, "\"abc\"", null);
+        download.checkpoint(60);
+        final PartialDownload loaded = PartialDownload.load(file);
+        assertEquals(60, loaded.getOffset());
+        assertEquals("\"abc\"", loaded.getValidator());
+
+        loaded.complete();
+        assertFalse(Files.exists(PartialDownload.sidecarFor(file)));
+        assertNull(PartialDownload.load(file));
+    }
+
+    @Test
+    public void testOffsetBeyondFile() throws Exception {
+        PartialDownload.start(file, "\"abc\"", null).checkpoint(200);
+        assertTrue(Files.exists(PartialDownload.sidecarFor(file)));
+        assertNull(PartialDownload.load(file));
+    }
+
+    @Test
+    public void testUnreadableSidecar() throws Exception {
+        Files.write(PartialDownload.sidecarFor(file), "offset=many\nvalidator=x\n".getBytes(UTF_8));
+        assertNull(PartialDownload.load(file));
+    }
+}
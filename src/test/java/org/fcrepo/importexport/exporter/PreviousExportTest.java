@@ -0,0 +1,146 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.duraspace.bagit.BagItDigest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class PreviousExportTest {
+
+    private Path previousDir;
+    private Path currentDir;
+
+    @Before
+    public void setUp() throws Exception {
+        previousDir = Files.createTempDirectory("previous-export");
+        currentDir = Files.createTempDirectory("current-export");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(previousDir.toFile());
+        FileUtils.deleteDirectory(currentDir.toFile());
+    }
+
+    @Test
+    public void testFindAndReuse() throws Exception {
+        final File previous = write(previousDir.resolve("data/rest/file1.binary"), "content");
+        write(previousDir.resolve("data/rest/file1.binary.headers"), "{\"ETag\":[\"\\\"v1\\\"\"]}");
+        try (final PreviousExport export = new PreviousExport(previousDir.toFile(), currentDir.toFile(),
+                Collections.emptySet())) {
+            final File file = currentDir.resolve("data/rest/file1.binary").toFile();
+            assertEquals(previous.getAbsoluteFile(), export.find(file).getAbsoluteFile());
+            assertNull(export.find(currentDir.resolve("data/rest/file2.binary").toFile()));
+
+            final Map<String, List<String>> headers = export.readHeaders(previous);
+            assertEquals("\"v1\"", PreviousExport.header(headers, "etag"));
+            assertNull(PreviousExport.header(headers, "Last-Modified"));
+            assertEquals(Collections.emptyMap(), export.getDigests(previous));
+
+            export.reuse(previous, file);
+            assertArrayEquals(Files.readAllBytes(previous.toPath()), Files.readAllBytes(file.toPath()));
+            assertTrue(new File(file.getParentFile(), "file1.binary.headers").exists());
+        }
+    }
+
+    @Test
+    public void testDigestLookup() throws Exception {
+        testDigestLookup(true);
+    }
+
+    @Test
+    public void testUnsortedManifestLookup() throws Exception {
+        // bags written by the BagIt writer list their payload in hash order
+        testDigestLookup(false);
+    }
+
+    private void testDigestLookup(final boolean sorted) throws Exception {
+        final StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 600; i++) {
+            longName.append("long-name");
+        }
+        final List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            paths.add(String.format("data/rest/%05d%s.binary", i, i == 1000 ? longName : ""));
+        }
+        if (sorted) {
+            Collections.sort(paths);
+        } else {
+            Collections.shuffle(paths, new Random(42));
+        }
+        final StringBuilder manifest = new StringBuilder();
+        for (final String path : paths) {
+            manifest.append(digestOf(path)).append("  ").append(path).append("\n");
+        }
+        write(previousDir.resolve("manifest-sha1.txt"), manifest.toString());
+
+        try (final PreviousExport export = new PreviousExport(previousDir.toFile(), currentDir.toFile(),
+                EnumSet.of(BagItDigest.SHA1))) {
+            for (final String path : paths) {
+                final Map<String, String> digests = export.getDigests(previousDir.resolve(path).toFile());
+                assertEquals(path, digestOf(path), digests.get("sha1"));
+            }
+            assertNull(export.getDigests(previousDir.resolve("data/rest/missing.binary").toFile()));
+            assertNull(export.getDigests(previousDir.resolve("data/rest/zzz.binary").toFile()));
+            assertNull(export.getDigests(previousDir.resolve("data/aaa.binary").toFile()));
+        }
+    }
+
+    @Test
+    public void testMissingManifest() throws Exception {
+        final File previous = write(previousDir.resolve("data/rest/file1.binary"), "content");
+        try (final PreviousExport export = new PreviousExport(previousDir.toFile(), currentDir.toFile(),
+                EnumSet.of(BagItDigest.SHA256))) {
+            assertNull(export.getDigests(previous));
+        }
+    }
+
+    private static String digestOf(final String path) {
+        return String.format("%040x", path.hashCode() & 0xffffffffL);
+    }
+
+    private static File write(final Path path, final String content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(UTF_8));
+        return path.toFile();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class RdfBodyProbeTest {
+
+    private static final byte[] BODY = "<a> <b> <c> .\n<a> <b> <d> .\n".getBytes(UTF_8);
+
+    @Test
+    public void testContentLengthDecides() throws IOException {
+        final InputStream body = new ByteArrayInputStream(BODY);
+        try (final RdfBodyProbe probe = new RdfBodyProbe(body, BODY.length, BODY.length - 1, 1024)) {
+            assertTrue(probe.isOversized());
+            // nothing is read when the length is known
+            assertSame(body, probe.getBody());
+            assertEquals(BODY.length, body.available());
+        }
+        try (final RdfBodyProbe probe = new RdfBodyProbe(new ByteArrayInputStream(BODY), BODY.length, BODY.length,
+                1024)) {
+            assertFalse(probe.isOversized());
+        }
+    }
+
+    @Test
+    public void testUnknownLengthWithinThreshold() throws IOException {
+        try (final RdfBodyProbe probe = new RdfBodyProbe(new ByteArrayInputStream(BODY), -1, BODY.length, 1024)) {
+            assertFalse(probe.isOversized());
+            assertArrayEquals(BODY, IOUtils.toByteArray(probe.getBody()));
+        }
+    }
+
+    @Test
+    public void testUnknownLengthOverThreshold() throws IOException {
+        try (final RdfBodyProbe probe = new RdfBodyProbe(new ByteArrayInputStream(BODY), -1, 10, 1024)) {
+            assertTrue(probe.isOversized());
+            assertArrayEquals(BODY, IOUtils.toByteArray(probe.getBody()));
+        }
+    }
+
+    @Test
+    public void testUnknownLengthSpilledToFile() throws IOException {
+        // the bytes read beyond the memory threshold are kept in a temporary file
+        try (final RdfBodyProbe probe = new RdfBodyProbe(new ByteArrayInputStream(BODY), -1, 20, 4)) {
+            assertTrue(probe.isOversized());
+            assertArrayEquals(BODY, IOUtils.toByteArray(probe.getBody()));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class RdfStreamFilterTest {
+
+    private static final String LDP_CONTAINS = "http://www.w3.org/ns/ldp#contains";
+    private static final String HAS_PART = "http://pcdm.org/models#hasMember";
+    private static final String REFERENCES = "http://purl.org/dc/terms/references";
+
+    private static final String RDF = String.join("\n",
+            "<http://localhost:8080/rest/1> <" + LDP_CONTAINS + "> <http://localhost:8080/rest/1/a> .",
+            "<http://localhost:8080/rest/1> <" + LDP_CONTAINS + "> <http://localhost:8080/rest/1/file> .",
+            "<http://localhost:8080/rest/1> <" + HAS_PART + "> <http://localhost:8080/rest/2> .",
+            "<http://localhost:8080/rest/1> <" + REFERENCES + "> <http://example.org/elsewhere> .",
+            "<http://localhost:8080/rest/1> <http://purl.org/dc/terms/title> \"title\" .",
+            "<http://localhost:8080/rest/3> <" + REFERENCES + "> <http://localhost:8080/rest/1> .",
+            "");
+
+    @Test
+    public void testMembers() {
+        final Graph graph = Factory.createDefaultGraph();
+        final List<URI> members = new ArrayList<>();
+        final RdfStreamFilter filter = new RdfStreamFilter(new String[]{LDP_CONTAINS}, false, members::add)
+                .setOutput(StreamRDFLib.graph(graph));
+        parse(filter);
+        assertEquals(Arrays.asList(URI.create("http://localhost:8080/rest/1/a"),
+                URI.create("http://localhost:8080/rest/1/file")), members);
+        assertEquals(6, graph.size());
+    }
+
+    @Test
+    public void testIncludeContained() {
+        final List<URI> members = new ArrayList<>();
+        final RdfStreamFilter filter = new RdfStreamFilter(new String[]{HAS_PART}, true, members::add);
+        parse(filter);
+        assertEquals(Arrays.asList(URI.create("http://localhost:8080/rest/1/a"),
+                URI.create("http://localhost:8080/rest/1/file"), URI.create("http://localhost:8080/rest/2")),
+                members);
+    }
+
+    @Test
+    public void testFilterInboundReferences() {
+        final Graph graph = Factory.createDefaultGraph();
+        final List<URI> members = new ArrayList<>();
+        final List<URI> inbound = new ArrayList<>();
+        final RdfStreamFilter filter = new RdfStreamFilter(new String[]{LDP_CONTAINS}, false, members::add)
+                .filterInboundReferences(URI.create("http://localhost:8080/rest/1/"), inbound::add)
+                .setOutput(StreamRDFLib.graph(graph));
+        parse(filter);
+        assertEquals(singletonList(URI.create("http://localhost:8080/rest/3")), inbound);
+        assertEquals(2, members.size());
+        assertEquals(5, graph.size());
+    }
+
+    @Test
+    public void testFilterBinaryReferences() throws Exception {
+        final Graph graph = Factory.createDefaultGraph();
+        final List<URI> members = new ArrayList<>();
+        final RdfStreamFilter filter = new RdfStreamFilter(new String[]{LDP_CONTAINS}, false, members::add)
+                .filterBinaryReferences(URI.create("http://localhost:8080/rest"),
+                        references -> singleton(URI.create("http://localhost:8080/rest/1/file")))
+                .setOutput(StreamRDFLib.graph(graph));
+        parse(filter);
+
+        // the references to repository resources are held back until they are classified
+        assertEquals(new LinkedHashSet<>(Arrays.asList(URI.create("http://localhost:8080/rest/1/a"),
+                URI.create("http://localhost:8080/rest/1/file"), URI.create("http://localhost:8080/rest/2"),
+                URI.create("http://localhost:8080/rest/1"))), filter.getReferences());
+        assertTrue(members.isEmpty());
+        assertEquals(2, graph.size());
+
+        filter.releaseReferences();
+        assertEquals(singletonList(URI.create("http://localhost:8080/rest/1/a")), members);
+        assertEquals(5, graph.size());
+        assertFalse(graph.contains(Triple.create(NodeFactory.createURI("http://localhost:8080/rest/1"),
+                NodeFactory.createURI(LDP_CONTAINS), NodeFactory.createURI("http://localhost:8080/rest/1/file"))));
+    }
+
+    @Test
+    public void testBinaryReferencesReleasedInChunks() throws Exception {
+        final int chunk = ReferenceClassifier.CHUNK_SIZE;
+        final StringBuilder rdf = new StringBuilder();
+        for (int i = 0; i < chunk * 5 / 2; i++) {
+            rdf.append("<http://localhost:8080/rest/1> <" + LDP_CONTAINS + "> <http://localhost:8080/rest/1/" + i +
+                    "> .\n");
+        }
+        final List<URI> members = new ArrayList<>();
+        final List<Integer> batches = new ArrayList<>();
+        final RdfStreamFilter filter = new RdfStreamFilter(new String[]{LDP_CONTAINS}, false, members::add)
+                .filterBinaryReferences(URI.create("http://localhost:8080/rest"), references -> {
+                    batches.add(references.size());
+                    return emptySet();
+                });
+        RDFDataMgr.parse(filter, new ByteArrayInputStream(rdf.toString().getBytes(UTF_8)), Lang.NTRIPLES);
+
+        // full chunks are released while parsing, so no more than one is ever held
+        assertEquals(Arrays.asList(chunk, chunk), batches);
+        assertEquals(chunk * 2, members.size());
+        filter.releaseReferences();
+        assertEquals(Arrays.asList(chunk, chunk, chunk / 2), batches);
+        assertEquals(chunk * 5 / 2, members.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testChunkLookupFailure() throws Exception {
+        final StringBuilder rdf = new StringBuilder();
+        for (int i = 0; i < ReferenceClassifier.CHUNK_SIZE; i++) {
+            rdf.append("<http://localhost:8080/rest/1> <" + LDP_CONTAINS + "> <http://localhost:8080/rest/1/" + i +
+                    "> .\n");
+        }
+        final RdfStreamFilter filter = new RdfStreamFilter(new String[]{LDP_CONTAINS}, false, uri -> { })
+                .filterBinaryReferences(URI.create("http://localhost:8080/rest"), references -> {
+                    throw new IOException("connection reset");
+                });
+        try {
+            RDFDataMgr.parse(filter, new ByteArrayInputStream(rdf.toString().getBytes(UTF_8)), Lang.NTRIPLES);
+        } catch (final RdfStreamFilter.ReferenceLookupException e) {
+            e.rethrow();
+        }
+    }
+
+    private static void parse(final RdfStreamFilter filter) {
+        RDFDataMgr.parse(filter, new ByteArrayInputStream(RDF.getBytes(UTF_8)), Lang.NTRIPLES);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RiotException;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class RdfTeeTest {
+
+    private static final String CONTAINS = "http://www.w3.org/ns/ldp#contains";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testParseWhileReading() throws IOException {
+        final StringBuilder rdf = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            rdf.append("<http://localhost:8080/rest/1> <" + CONTAINS + "> <http://localhost:8080/rest/1/" + i +
+                    "> .\n");
+        }
+        final byte[] bytes = rdf.toString().getBytes(UTF_8);
+        final List<URI> members = new ArrayList<>();
+        final RdfStreamFilter filter = new RdfStreamFilter(new String[]{CONTAINS}, false, members::add);
+        final byte[] copied;
+        try (final RdfTee tee = new RdfTee(new ByteArrayInputStream(bytes), Lang.NTRIPLES, filter, executor)) {
+            copied = IOUtils.toByteArray(tee);
+            tee.await();
+        }
+        assertArrayEquals(bytes, copied);
+        assertEquals(20_000, members.size());
+        assertEquals(URI.create("http://localhost:8080/rest/1/19999"), members.get(members.size() - 1));
+    }
+
+    @Test
+    public void testParseError() throws IOException {
+        // the reader is not held up by a parser that has failed, however much is left to read
+        final byte[] bytes = new byte[4 * 1024 * 1024];
+        bytes[0] = '<';
+        final RdfStreamFilter filter = new RdfStreamFilter(new String[]{CONTAINS}, false, uri -> { });
+        try (final RdfTee tee = new RdfTee(new ByteArrayInputStream(bytes), Lang.NTRIPLES, filter, executor)) {
+            assertEquals(bytes.length, IOUtils.toByteArray(tee).length);
+            tee.await();
+            fail("The parse error should be reported");
+        } catch (final RiotException e) {
+            // expected
+        }
+    }
+}
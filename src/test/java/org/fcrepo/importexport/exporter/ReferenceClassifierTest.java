@@ -0,0 +1,105 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fcrepo.client.FcrepoOperationFailedException;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class ReferenceClassifierTest {
+
+    private final ReferenceClassifier classifier = new ReferenceClassifier(2);
+
+    @After
+    public void tearDown() {
+        classifier.shutdown();
+    }
+
+    @Test
+    public void testFindBinaries() throws Exception {
+        final URI file1 = URI.create("http://localhost:8080/rest/file1");
+        final URI file2 = URI.create("http://localhost:8080/rest/file2");
+        final URI container = URI.create("http://localhost:8080/rest/1");
+        final AtomicInteger lookups = new AtomicInteger();
+
+        final Set<URI> binaries = classifier.findBinaries(asList(file1, container, file2, file1), uri -> {
+            lookups.incrementAndGet();
+            return uri.getPath().contains("file");
+        });
+        assertEquals(2, binaries.size());
+        assertTrue(binaries.contains(file1));
+        assertTrue(binaries.contains(file2));
+        // duplicates are only looked up once
+        assertEquals(3, lookups.get());
+    }
+
+    @Test
+    public void testSingleLookupRunsInline() throws Exception {
+        final Thread caller = Thread.currentThread();
+        final URI file1 = URI.create("http://localhost:8080/rest/file1");
+        final Set<URI> binaries = classifier.findBinaries(asList(file1), uri -> Thread.currentThread() == caller);
+        assertTrue(binaries.contains(file1));
+    }
+
+    @Test
+    public void testBatchLargerThanQueue() throws Exception {
+        final List<URI> uris = new ArrayList<>();
+        for (int i = 0; i < ReferenceClassifier.CHUNK_SIZE; i++) {
+            uris.add(URI.create("http://localhost:8080/rest/" + (i % 2 == 0 ? "file" : "container") + i));
+        }
+        final AtomicInteger lookups = new AtomicInteger();
+        // the two lookup threads queue only a few lookups, so the caller waits for room instead of failing
+        final Set<URI> binaries = classifier.findBinaries(uris, uri -> {
+            lookups.incrementAndGet();
+            return uri.getPath().contains("file");
+        });
+        assertEquals(ReferenceClassifier.CHUNK_SIZE, lookups.get());
+        assertEquals(ReferenceClassifier.CHUNK_SIZE / 2, binaries.size());
+    }
+
+    @Test(expected = FcrepoOperationFailedException.class)
+    public void testLookupFailure() throws Exception {
+        classifier.findBinaries(asList(URI.create("http://localhost:8080/rest/1"),
+                URI.create("http://localhost:8080/rest/2")), uri -> {
+                    throw new FcrepoOperationFailedException(uri, 500, "Internal Server Error");
+                });
+    }
+
+    @Test(expected = IOException.class)
+    public void testLookupIOException() throws Exception {
+        classifier.findBinaries(asList(URI.create("http://localhost:8080/rest/1"),
+                URI.create("http://localhost:8080/rest/2")), uri -> {
+                    throw new IOException("connection reset");
+                });
+    }
+}
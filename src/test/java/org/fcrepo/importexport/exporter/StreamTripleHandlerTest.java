@@ -0,0 +1,311 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static org.apache.jena.graph.NodeFactory.createURI;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptySet;
+import static org.fcrepo.importexport.common.FcrepoConstants.CONTAINS;
+import static org.fcrepo.importexport.common.FcrepoConstants.LDP_NAMESPACE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.fcrepo.client.FcrepoClient;
+import org.fcrepo.importexport.common.Config;
+import org.fcrepo.importexport.common.TurtleFormat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class StreamTripleHandlerTest {
+
+    private static final Logger logger = getLogger(StreamTripleHandlerTest.class);
+
+    private static final String RESOURCE = "http://localhost:8080/rest/container";
+
+    private File dir;
+    private Config config;
+    private Exporter exporter;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("stream-triple-handler").toFile();
+        config = new Config();
+        config.setMode("export");
+        config.setStreaming(true);
+        config.setRdfLanguage("application/n-triples");
+        config.setIncludeBinaries(true);
+        config.setPredicates(new String[]{CONTAINS.getURI()});
+        exporter = mock(Exporter.class);
+        when(exporter.stagingFile(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(exporter.digestingStream(any())).thenAnswer(invocation ->
+                new DigestingOutputStream(invocation.getArgument(0), new HashMap<>()));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testOneWriterPerResource() throws IOException {
+        final File file = new File(dir, "container.nt");
+        final StreamTripleHandler handler = handler(file);
+        handler.start();
+        for (int i = 0; i < 1000; i++) {
+            handler.triple(contains(i));
+        }
+        handler.finish();
+
+        final Graph graph = Factory.createDefaultGraph();
+        RDFDataMgr.read(graph, file.toURI().toString(), Lang.NTRIPLES);
+        assertEquals(1000, graph.size());
+        verify(exporter).fileWritten(eq(file), eq(file), any(DigestingOutputStream.class));
+        verify(exporter, times(1000)).export(any(URI.class));
+    }
+
+    @Test
+    public void testMembersExportedAsFound() {
+        final StreamTripleHandler handler = handler(new File(dir, "container.nt"));
+        handler.start();
+        handler.triple(Triple.create(createURI(RESOURCE), CONTAINS.asNode(), createURI(RESOURCE + "/child/")));
+        // the member is queued before the rest of the container is read, rather than held until it finishes
+        verify(exporter).export(URI.create(RESOURCE + "/child"));
+        handler.finish();
+        verify(exporter, times(1)).export(any(URI.class));
+    }
+
+    @Test
+    public void testReferencesResolvedInChunks() throws Exception {
+        config.setIncludeBinaries(false);
+        final List<Integer> batches = new ArrayList<>();
+        final ReferenceClassifier classifier = mock(ReferenceClassifier.class);
+        when(classifier.findBinaries(any(), any())).thenAnswer(invocation -> {
+            batches.add(invocation.<Collection<URI>>getArgument(0).size());
+            return emptySet();
+        });
+        when(exporter.getReferenceClassifier()).thenReturn(classifier);
+
+        final File file = new File(dir, "container.nt");
+        final StreamTripleHandler handler = handler(file);
+        final int chunk = ReferenceClassifier.CHUNK_SIZE;
+        handler.start();
+        for (int i = 0; i < chunk; i++) {
+            handler.triple(contains(i));
+        }
+        // a full chunk is resolved, exported and written without waiting for the rest of the container
+        verify(exporter, times(chunk)).export(any(URI.class));
+        for (int i = chunk; i < chunk * 5 / 2; i++) {
+            handler.triple(contains(i));
+        }
+        handler.finish();
+
+        // the handler never holds more than one chunk of references
+        assertEquals(Arrays.asList(chunk, chunk, chunk / 2), batches);
+        verify(exporter, times(chunk * 5 / 2)).export(any(URI.class));
+        final Graph graph = Factory.createDefaultGraph();
+        RDFDataMgr.read(graph, file.toURI().toString(), Lang.NTRIPLES);
+        assertEquals(chunk * 5 / 2, graph.size());
+    }
+
+    /**
+     * Compares the triples per second of a graph and writer per triple, as the handler used to serialize them, with
+     * a single writer per resource, over a container with a million ldp:contains triples; then measures the whole
+     * handler, including the capture of the members. Run with -Dbenchmark=true (and -Dfcrepo.importexport.log=INFO,
+     * so that the per-triple debug logging is not measured).
+     */
+    @Test
+    public void benchmark() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        final int count = 1_000_000;
+        final Triple[] triples = new Triple[count];
+        for (int i = 0; i < count; i++) {
+            triples[i] = contains(i);
+        }
+        // an exporter which does not record the million exports of the members
+        exporter = mock(Exporter.class, withSettings().stubOnly());
+        when(exporter.stagingFile(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(exporter.digestingStream(any())).thenAnswer(invocation ->
+                new DigestingOutputStream(invocation.getArgument(0), new HashMap<>()));
+        final File file = new File(dir, "container.nt");
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                for (final Triple triple : triples) {
+                    final Graph graph = Factory.createDefaultGraph();
+                    graph.add(triple);
+                    RDFDataMgr.write(out, graph, Lang.NTRIPLES);
+                }
+            }
+            final long perTriple = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                final StreamRDF writer = StreamRDFWriter.getWriterStream(out, Lang.NTRIPLES);
+                writer.start();
+                for (final Triple triple : triples) {
+                    writer.triple(triple);
+                }
+                writer.finish();
+            }
+            final long perResource = System.nanoTime() - start;
+
+            final StreamTripleHandler handler = handler(file);
+            start = System.nanoTime();
+            handler.start();
+            for (final Triple triple : triples) {
+                handler.triple(triple);
+            }
+            handler.finish();
+            final long total = System.nanoTime() - start;
+            logger.info("{} ldp:contains triples: writer per triple {} triples/s, writer per resource {} triples/s, " +
+                    "handler {} triples/s", count, rate(count, perTriple), rate(count, perResource),
+                    rate(count, total));
+        }
+    }
+
+    @Test
+    public void testTurtleBlocks() throws IOException {
+        config.setRdfLanguage("text/turtle");
+        final File file = writeContainer("container.ttl", 1000);
+
+        final Graph graph = Factory.createDefaultGraph();
+        RDFDataMgr.read(graph, file.toURI().toString(), Lang.TURTLE);
+        assertEquals(1000, graph.size());
+        final String turtle = FileUtils.readFileToString(file, UTF_8);
+        assertTrue(turtle.contains("@prefix ldp:"));
+        // the triples of the container share one subject block
+        assertEquals(1, StringUtils.countMatches(turtle, "<" + RESOURCE + ">"));
+    }
+
+    @Test
+    public void testTurtleFlat() throws IOException {
+        config.setRdfLanguage("text/turtle");
+        config.setTurtleFormat(TurtleFormat.FLAT);
+        final File file = writeContainer("container.ttl", 1000);
+
+        final Graph graph = Factory.createDefaultGraph();
+        RDFDataMgr.read(graph, file.toURI().toString(), Lang.TURTLE);
+        assertEquals(1000, graph.size());
+        final String turtle = FileUtils.readFileToString(file, UTF_8);
+        assertTrue(turtle.contains("ldp:contains"));
+        assertEquals(1000, StringUtils.countMatches(turtle, "<" + RESOURCE + ">"));
+    }
+
+    @Test
+    public void testTurtleSmallerThanNTriples() throws IOException {
+        final File ntriples = writeContainer("container.nt", 1000);
+        config.setRdfLanguage("text/turtle");
+        final File turtle = writeContainer("container.ttl", 1000);
+        assertTrue(turtle.length() < ntriples.length());
+    }
+
+    /**
+     * Compares the size on disk and the triples per second of a streaming export in N-Triples, Turtle blocks and flat
+     * Turtle, over a container with a million ldp:contains triples. Run with -Dbenchmark=true (and
+     * -Dfcrepo.importexport.log=INFO).
+     */
+    @Test
+    public void benchmarkFormats() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        final int count = 1_000_000;
+        exporter = mock(Exporter.class, withSettings().stubOnly());
+        when(exporter.stagingFile(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(exporter.digestingStream(any())).thenAnswer(invocation ->
+                new DigestingOutputStream(invocation.getArgument(0), new HashMap<>()));
+        // no members to export, so that only the writing is measured
+        config.setPredicates(new String[0]);
+        for (int round = 0; round < 3; round++) {
+            for (final String format : new String[]{"n-triples", "blocks", "flat"}) {
+                config.setRdfLanguage(format.equals("n-triples") ? "application/n-triples" : "text/turtle");
+                config.setTurtleFormat(format.equals("flat") ? TurtleFormat.FLAT : TurtleFormat.BLOCKS);
+                final long start = System.nanoTime();
+                final File file = writeContainer("container-" + format, count);
+                final long nanos = System.nanoTime() - start;
+                logger.info("{} ldp:contains triples as {}: {} bytes, {} triples/s", count, format, file.length(),
+                        rate(count, nanos));
+            }
+        }
+    }
+
+    /**
+     * Stream a container with the ldp prefix and the given number of ldp:contains triples through a handler
+     */
+    private File writeContainer(final String name, final int count) {
+        final File file = new File(dir, name);
+        final StreamTripleHandler handler = handler(file);
+        handler.start();
+        handler.prefix("ldp", LDP_NAMESPACE);
+        for (int i = 0; i < count; i++) {
+            handler.triple(contains(i));
+        }
+        handler.finish();
+        return file;
+    }
+
+    private StreamTripleHandler handler(final File file) {
+        return new StreamTripleHandler(config, exporter, mock(FcrepoClient.class)).setResource(URI.create(RESOURCE))
+                .setFile(file);
+    }
+
+    private static Triple contains(final int i) {
+        final Node subject = createURI(RESOURCE);
+        return Triple.create(subject, CONTAINS.asNode(), createURI(RESOURCE + "/child" + i));
+    }
+
+    private static long rate(final long count, final long nanos) {
+        return count * 1_000_000_000L / Math.max(nanos, 1);
+    }
+}
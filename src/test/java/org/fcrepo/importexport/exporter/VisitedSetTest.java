@@ -0,0 +1,104 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.importexport.exporter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 2026-10-17
+ */
+public class VisitedSetTest {
+
+    @Test
+    public void testDuplicates() {
+        final VisitedSet visited = new VisitedSet();
+        assertTrue(visited.add(URI.create("http://localhost:8080/rest/1")));
+        assertFalse(visited.add(URI.create("http://localhost:8080/rest/1")));
+        // trailing slashes are ignored
+        assertFalse(visited.add(URI.create("http://localhost:8080/rest/1/")));
+        assertTrue(visited.add(URI.create("http://localhost:8080/rest/2")));
+        assertTrue(visited.contains(URI.create("http://localhost:8080/rest/2/")));
+        assertFalse(visited.contains(URI.create("http://localhost:8080/rest/3")));
+        assertEquals(2, visited.size());
+        assertEquals(2, visited.getDuplicates());
+    }
+
+    @Test
+    public void testGrowth() {
+        final VisitedSet visited = new VisitedSet();
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(visited.add(URI.create("http://localhost:8080/rest/" + i)));
+        }
+        for (int i = 0; i < 200_000; i += 7) {
+            assertFalse(visited.add(URI.create("http://localhost:8080/rest/" + i)));
+        }
+        assertEquals(200_000, visited.size());
+    }
+
+    @Test
+    public void testFingerprintCollisions() throws IOException {
+        // a handful of fingerprints for all keys, which are long enough that most of them are read back from disk
+        try (final VisitedSet visited = new VisitedSet(key -> 1 + (key.hashCode() & 7))) {
+            final String prefix = "http://localhost:8080/rest/" + StringUtils.repeat('x', 200) + "/";
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(visited.add(URI.create(prefix + i)));
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertFalse(visited.add(URI.create(prefix + i + "/")));
+            }
+            assertFalse(visited.contains(URI.create(prefix + 1000)));
+            assertEquals(1000, visited.size());
+            assertEquals(1000, visited.getDuplicates());
+        }
+    }
+
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        final VisitedSet visited = new VisitedSet();
+        final AtomicInteger added = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (visited.add(URI.create("http://localhost:8080/rest/" + i))) {
+                        added.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(10_000, added.get());
+        assertEquals(10_000, visited.size());
+        assertEquals(70_000, visited.getDuplicates());
+    }
+}